@@ -16,8 +16,9 @@
 package net.sf.uadetector;
 
 import net.sf.uadetector.internal.Check;
+import net.sf.uadetector.internal.util.PatternPrefilter;
 
-import java.util.regex.Matcher;
+import java.util.*;
 import java.util.regex.Pattern;
 
 /**
@@ -278,6 +279,21 @@ public enum OperatingSystemFamily
 	 */
 	UNKNOWN("", Pattern.compile("^$"));
 
+	/**
+	 * All enum values in the order of their declaration
+	 */
+	private static final OperatingSystemFamily[] VALUES = values();
+
+	/**
+	 * Enum values by their names, the first declared value wins on equal names
+	 */
+	private static final Map<String, OperatingSystemFamily> VALUES_BY_NAME = createValuesByName();
+
+	/**
+	 * Prefilter of the patterns of all enum values in the order of their declaration
+	 */
+	private static final PatternPrefilter PREFILTER = createPrefilter();
+
 	/**
 	 * The internal family name in the UAS database.
 	 */
@@ -295,6 +311,26 @@ public enum OperatingSystemFamily
 		this.pattern = pattern;
 	}
 
+	private static PatternPrefilter createPrefilter()
+	{
+		List<Pattern> patterns = new ArrayList<>(VALUES.length);
+		for (OperatingSystemFamily value : VALUES)
+		{
+			patterns.add(value.getPattern());
+		}
+		return new PatternPrefilter(patterns);
+	}
+
+	private static Map<String, OperatingSystemFamily> createValuesByName()
+	{
+		Map<String, OperatingSystemFamily> valuesByName = new HashMap<>(VALUES.length * 4 / 3 + 1);
+		for (OperatingSystemFamily value : VALUES)
+		{
+			valuesByName.putIfAbsent(value.getName(), value);
+		}
+		return valuesByName;
+	}
+
 	/**
 	 * This method try to find by the given family name a matching enum value. The family name must match against an
 	 * operating system entry in UAS data file.
@@ -341,18 +377,7 @@ public enum OperatingSystemFamily
 	{
 		Check.notNull(family, "family");
 
-		OperatingSystemFamily result = UNKNOWN;
-		for (OperatingSystemFamily value : values())
-		{
-			if (value.getName()
-			         .equals(family))
-			{
-				result = value;
-				break;
-			}
-		}
-
-		return result;
+		return VALUES_BY_NAME.getOrDefault(family, UNKNOWN);
 	}
 
 	/**
@@ -372,13 +397,14 @@ public enum OperatingSystemFamily
 		Check.notNull(family, "family");
 
 		OperatingSystemFamily result = UNKNOWN;
-		for (OperatingSystemFamily value : values())
+		BitSet candidates = PREFILTER.findCandidates(family);
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
 		{
-			Matcher m = value.getPattern()
-			                 .matcher(family);
-			if (m.matches())
+			if (VALUES[i].getPattern()
+			             .matcher(family)
+			             .matches())
 			{
-				result = value;
+				result = VALUES[i];
 				break;
 			}
 		}
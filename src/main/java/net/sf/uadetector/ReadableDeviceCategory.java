@@ -3,6 +3,9 @@ package net.sf.uadetector;
 
 import net.sf.uadetector.internal.Check;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Defines a category of devices.<br>
  * <p>
@@ -116,6 +119,11 @@ public interface ReadableDeviceCategory
 		 */
 		WEARABLE_COMPUTER("Wearable computer");
 
+		/**
+		 * Enum values by their names
+		 */
+		private static final Map<String, Category> VALUES_BY_NAME = createValuesByName();
+
 		/**
 		 * Name of the device category
 		 */
@@ -127,6 +135,16 @@ public interface ReadableDeviceCategory
 			this.name = name;
 		}
 
+		private static Map<String, Category> createValuesByName()
+		{
+			Map<String, Category> valuesByName = new HashMap<>();
+			for (Category value : values())
+			{
+				valuesByName.putIfAbsent(value.getName(), value);
+			}
+			return valuesByName;
+		}
+
 		/**
 		 * Tries to find by the given category name a matching enum value. The category name must match against an
 		 * device entry in the <i>UAS data</i>.
@@ -143,17 +161,7 @@ public interface ReadableDeviceCategory
 		{
 			Check.notNull(categoryName, "categoryName");
 
-			Category result = UNKNOWN;
-			for (Category value : values())
-			{
-				if (value.getName()
-				         .equals(categoryName))
-				{
-					result = value;
-					break;
-				}
-			}
-			return result;
+			return VALUES_BY_NAME.getOrDefault(categoryName, UNKNOWN);
 		}
 
 		/**
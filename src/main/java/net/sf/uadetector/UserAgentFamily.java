@@ -16,8 +16,9 @@
 package net.sf.uadetector;
 
 import net.sf.uadetector.internal.Check;
+import net.sf.uadetector.internal.util.PatternPrefilter;
 
-import java.util.regex.Matcher;
+import java.util.*;
 import java.util.regex.Pattern;
 
 /**
@@ -4409,6 +4410,16 @@ public enum UserAgentFamily
 	 */
 	ZYBORG("ZyBorg", Pattern.compile("ZyBorg"));
 
+	/**
+	 * All enum values in the order of their declaration
+	 */
+	private static final UserAgentFamily[] VALUES = values();
+
+	/**
+	 * Enum values by their case-folded names, the first declared value wins on equal names
+	 */
+	private static final Map<String, UserAgentFamily> VALUES_BY_NAME = createValuesByName();
+
 	/**
 	 * The internal family name in the UAS database.
 	 */
@@ -4426,6 +4437,35 @@ public enum UserAgentFamily
 		this.pattern = pattern;
 	}
 
+	private static Map<String, UserAgentFamily> createValuesByName()
+	{
+		Map<String, UserAgentFamily> valuesByName = new HashMap<>(VALUES.length * 4 / 3 + 1);
+		for (UserAgentFamily value : VALUES)
+		{
+			valuesByName.putIfAbsent(foldCase(value.getName()), value);
+		}
+		return valuesByName;
+	}
+
+	/**
+	 * Folds the case of the given name, so that two names are equal after folding if and only if they are equal
+	 * according to {@link String#equalsIgnoreCase(String)}.
+	 *
+	 * @param name
+	 * 		name to fold
+	 *
+	 * @return case-folded name
+	 */
+	private static String foldCase(@javax.validation.constraints.NotNull String name)
+	{
+		char[] chars = name.toCharArray();
+		for (int i = 0; i < chars.length; i++)
+		{
+			chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+		}
+		return new String(chars);
+	}
+
 	/**
 	 * This method try to find by the given family name a matching enum value. The family name must match against an
 	 * user agent entry in UAS data file.
@@ -4474,17 +4514,7 @@ public enum UserAgentFamily
 	{
 		Check.notNull(family, "family");
 
-		UserAgentFamily result = UNKNOWN;
-		for (UserAgentFamily value : values())
-		{
-			if (value.getName()
-			         .equalsIgnoreCase(family))
-			{
-				return value;
-			}
-		}
-
-		return result;
+		return VALUES_BY_NAME.getOrDefault(foldCase(family), UNKNOWN);
 	}
 
 	/**
@@ -4504,18 +4534,18 @@ public enum UserAgentFamily
 	{
 		Check.notNull(family, "family");
 
-		UserAgentFamily result = UNKNOWN;
-		for (UserAgentFamily value : values())
+		BitSet candidates = PatternIndex.PREFILTER.findCandidates(family);
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
 		{
-			Matcher m = value.getPattern()
-			                 .matcher(family);
-			if (m.find())
+			if (VALUES[i].getPattern()
+			             .matcher(family)
+			             .find())
 			{
-				return value;
+				return VALUES[i];
 			}
 		}
 
-		return result;
+		return UNKNOWN;
 	}
 
 	/**
@@ -4540,4 +4570,27 @@ public enum UserAgentFamily
 		return pattern;
 	}
 
+	/**
+	 * Holder of the prefilter for the patterns of all enum values, which will be created on first use
+	 */
+	private static final class PatternIndex
+	{
+
+		/**
+		 * Prefilter of the patterns of all enum values in the order of their declaration
+		 */
+		private static final PatternPrefilter PREFILTER = createPrefilter();
+
+		private static PatternPrefilter createPrefilter()
+		{
+			List<Pattern> patterns = new ArrayList<>(VALUES.length);
+			for (UserAgentFamily value : VALUES)
+			{
+				patterns.add(value.getPattern());
+			}
+			return new PatternPrefilter(patterns);
+		}
+
+	}
+
 }
@@ -15,6 +15,13 @@
  ******************************************************************************/
 package net.sf.uadetector;
 
+import net.sf.uadetector.internal.Check;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * Basic interface for user agent string parsers.
  *
@@ -50,6 +57,73 @@ public interface UserAgentStringParser
 	 */
 	ReadableUserAgent parse(String userAgent);
 
+	/**
+	 * Detects informations about network clients based on a collection of user agent strings.<br>
+	 * <br>
+	 * Implementations should analyze the whole batch with the same <em>UAS data</em> and may reuse intermediate state
+	 * between the entries, so this method is preferable to call {@link #parse(String)} in a loop.
+	 *
+	 * @param userAgents
+	 * 		collection of user agent strings
+	 *
+	 * @return the detected information of all user agents in the iteration order of the given collection
+	 */
+	default List<ReadableUserAgent> parseAll(Collection<String> userAgents)
+	{
+		Check.notNull(userAgents, "userAgents");
+
+		List<ReadableUserAgent> results = new ArrayList<>(userAgents.size());
+		for (String userAgent : userAgents)
+		{
+			results.add(parse(userAgent));
+		}
+		return results;
+	}
+
+	/**
+	 * Detects informations about network clients based on a stream of user agent strings. The user agent strings will
+	 * be analyzed lazily when the returned stream is consumed.<br>
+	 * <br>
+	 * Implementations should analyze the whole stream with the same <em>UAS data</em> and may reuse intermediate state
+	 * between the entries. A parallel stream will result in a parallel stream.
+	 *
+	 * @param userAgents
+	 * 		stream of user agent strings
+	 *
+	 * @return stream of the detected information of all user agents in the encounter order of the given stream
+	 */
+	default Stream<ReadableUserAgent> parseAll(Stream<String> userAgents)
+	{
+		Check.notNull(userAgents, "userAgents");
+
+		return userAgents.map(this::parse);
+	}
+
+	/**
+	 * Detects informations about network clients based on an array of user agent strings and stores them into the
+	 * passed array at the same index.<br>
+	 * <br>
+	 * Implementations should analyze the whole batch with the same <em>UAS data</em> and may reuse intermediate state
+	 * between the entries, so this method is preferable to call {@link #parse(String)} in a loop.
+	 *
+	 * @param userAgents
+	 * 		array of user agent strings
+	 * @param results
+	 * 		array to store the detected information of each user agent into, which must be at least as long as the given
+	 * 		array of user agent strings
+	 */
+	default void parse(String[] userAgents, ReadableUserAgent[] results)
+	{
+		Check.notNull(userAgents, "userAgents");
+		Check.notNull(results, "results");
+		Check.stateIsTrue(results.length >= userAgents.length, "Argument 'results' must not be shorter than 'userAgents'.");
+
+		for (int i = 0; i < userAgents.length; i++)
+		{
+			results[i] = parse(userAgents[i]);
+		}
+	}
+
 	/**
 	 * In environments where the JVM will never shut down while reinstalling UADetector, it is necessary to manually
 	 * shutdown running threads of <code>UserAgentStringParser</code>s with <b>updating functionality</b> like
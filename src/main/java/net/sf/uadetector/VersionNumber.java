@@ -25,7 +25,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.regex.Pattern;
 
 /**
  * The {@code VersionNumber} class represents the version number of an operating system or User-Agent.<br>
@@ -55,10 +54,6 @@ public final class VersionNumber
 	 * Minimum number of numeric group a version number
 	 */
 	private static final int MIN_GROUP_SIZE = 3;
-	/**
-	 * Regular expression to find only numerical values ​​in strings
-	 */
-	private static final Pattern NUMERIC = Pattern.compile("\\d+");
 	/**
 	 * Separator between numeric groups of a version number
 	 */
@@ -171,8 +166,19 @@ public final class VersionNumber
 	 */
 	private static boolean isNumeric(String text)
 	{
-		return NUMERIC.matcher(text)
-		              .matches();
+		if (text.isEmpty())
+		{
+			return false;
+		}
+		for (int i = 0; i < text.length(); i++)
+		{
+			char c = text.charAt(i);
+			if (c < '0' || c > '9')
+			{
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
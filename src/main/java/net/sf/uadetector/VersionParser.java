@@ -17,9 +17,7 @@ package net.sf.uadetector;
 
 import net.sf.uadetector.internal.Check;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -32,29 +30,84 @@ final class VersionParser
 {
 
 	/**
-	 * Index number of the group in a matching {@link Pattern} which contains the extension/suffix of a version string
+	 * Index number of the group in a matching {@link Pattern} which contains the first/major number of a version string
 	 */
-	private static final int EXTENSION_INDEX = 5;
+	private static final int MAJOR_INDEX = 1;
 
 	/**
-	 * Index number of the group in a matching {@link Pattern} which contains the first/major number of a version string
+	 * Minimum number of groups of a version number
 	 */
-	private static final int MAJOR_INDEX = 1;
+	private static final int MIN_GROUP_SIZE = 3;
+
+	/**
+	 * Separator between numeric groups of a version number
+	 */
+	private static final char SEPARATOR = '.';
+
+	/**
+	 * Patterns to identify the version number of the operating system <i>Android</i> in order of precedence
+	 */
+	private static final VersionPattern[] ANDROID_VERSION_PATTERNS = { new VersionPattern(Pattern.compile("Android\\s?((\\d+)((\\.\\d+)+)?(\\-(\\w|\\d)+)?);"), false),
+	                                                                   new VersionPattern(Pattern.compile("Android\\-((\\d+)((\\.\\d+)+)?(\\-(\\w|\\d)+)?);"), false) };
+
+	/**
+	 * Patterns to identify the version number of the operating system <i>Bada</i> in order of precedence
+	 */
+	private static final VersionPattern[] BADA_VERSION_PATTERNS = { new VersionPattern(Pattern.compile("Bada/((\\d+)((\\.\\d+)+)?)"), false) };
+
+	/**
+	 * Patterns to identify the version number of the operating system of a <i>BSD</i> platform in order of precedence
+	 */
+	private static final VersionPattern[] BSD_VERSION_PATTERNS = { new VersionPattern(Pattern.compile("\\w+bsd\\s?((\\d+)((\\.\\d+)+)?((\\-|_)[\\w\\d\\-]+)?)", Pattern.CASE_INSENSITIVE), false) };
+
+	/**
+	 * Patterns to identify the version number of the operating system <i>iOS</i> in order of precedence
+	 */
+	private static final VersionPattern[] IOS_VERSION_PATTERNS = { new VersionPattern(Pattern.compile("iPhone OS\\s?((\\d+)((\\_\\d+)+)?) like Mac OS X"), true),
+	                                                               new VersionPattern(Pattern.compile("CPU OS\\s?((\\d+)((\\_\\d+)+)?) like Mac OS X"), true),
+	                                                               new VersionPattern(Pattern.compile("iPhone OS\\s?((\\d+)((\\.\\d+)+)?);"), true) };
+
+	/**
+	 * Patterns to identify the version number of the running <i>JVM</i> in order of precedence
+	 */
+	private static final VersionPattern[] JAVA_VERSION_PATTERNS = { new VersionPattern(Pattern.compile("Java/((\\d+)((\\.\\d+)+)?((\\-|_)[\\w\\d\\-]+)?)"), false),
+	                                                                new VersionPattern(Pattern.compile("Java((\\d+)((\\.\\d+)+)?((\\-|_)[\\w\\d\\-]+)?)"), false) };
+
+	/**
+	 * Patterns to identify the version number of the operating system <i>OS X</i> in order of precedence
+	 */
+	private static final VersionPattern[] OSX_VERSION_PATTERNS = { new VersionPattern(Pattern.compile("Mac OS X\\s?((\\d+)((\\.\\d+)+)?);"), true),
+	                                                               new VersionPattern(Pattern.compile("Mac OS X\\s?((\\d+)((\\_\\d+)+)?);"), true),
+	                                                               new VersionPattern(Pattern.compile("Mac OS X\\s?((\\d+)((\\_\\d+)+)?)\\)"), true) };
+
+	/**
+	 * Patterns to identify the version number of the operating system <i>Symbian</i> in order of precedence
+	 */
+	private static final VersionPattern[] SYMBIAN_VERSION_PATTERNS = { new VersionPattern(Pattern.compile("SymbianOS/((\\d+)((\\.\\d+)+)?s?)"), false) };
 
 	/**
-	 * Regular expression to analyze a version number separated by a dot
+	 * Patterns to identify the version number of the operating system <i>webOS</i> in order of precedence
 	 */
-	private static final Pattern VERSIONNUMBER = Pattern.compile("((\\d+)((\\.\\d+)+)?)");
+	private static final VersionPattern[] WEBOS_VERSION_PATTERNS = { new VersionPattern(Pattern.compile("hpwOS/((\\d+)((\\.\\d+)+)?);"), false),
+	                                                                 new VersionPattern(Pattern.compile("webOS/((\\d+)((\\.\\d+)+)?);"), false) };
 
 	/**
-	 * Regular expression to analyze a version number separated by a dot with suffix
+	 * Patterns to identify the version number of the operating system <i>Windows</i> in order of precedence
 	 */
-	private static final Pattern VERSIONNUMBER_WITH_SUFFIX = Pattern.compile(VERSIONNUMBER.pattern() + "((\\s|\\-|\\.|\\[|\\]|\\w+)+)?");
+	private static final VersionPattern[] WINDOWS_VERSION_PATTERNS = { new VersionPattern(Pattern.compile("Windows NT\\s?((\\d+)((\\.\\d+)+)?)"), false),
+	                                                                   new VersionPattern(Pattern.compile("Windows Phone OS ((\\d+)((\\.\\d+)+)?)"), false),
+	                                                                   new VersionPattern(Pattern.compile("Windows CE ((\\d+)((\\.\\d+)+)?)"), false),
+	                                                                   new VersionPattern(Pattern.compile("Windows 2000\\s?((\\d+)((\\.\\d+)+)?)"), false),
+	                                                                   new VersionPattern(Pattern.compile("Windows XP\\s?((\\d+)((\\.\\d+)+)?)"), false),
+	                                                                   new VersionPattern(Pattern.compile("Windows 7\\s?((\\d+)((\\.\\d+)+)?)"), false),
+	                                                                   new VersionPattern(Pattern.compile("Win 9x ((\\d+)((\\.\\d+)+)?)"), false),
+	                                                                   new VersionPattern(Pattern.compile("Windows ((\\d+)((\\.\\d+)+)?)"), false),
+	                                                                   new VersionPattern(Pattern.compile("WebTV/((\\d+)((\\.\\d+)+)?)"), false) };
 
 	/**
-	 * Regular expression to analyze segments of a version string, consisting of prefix, numeric groups and suffix
+	 * Patterns to identify version numbers of operating systems by family
 	 */
-	private static final Pattern VERSIONSTRING = Pattern.compile("^" + VERSIONNUMBER_WITH_SUFFIX.pattern());
+	private static final Map<OperatingSystemFamily, VersionPattern[]> OPERATING_SYSTEM_VERSION_PATTERNS = createOperatingSystemVersionPatterns();
 
 	/**
 	 * <strong>Attention:</strong> This class is not intended to create objects from it.
@@ -64,6 +117,21 @@ final class VersionParser
 		// This class is not intended to create objects from it.
 	}
 
+	private static Map<OperatingSystemFamily, VersionPattern[]> createOperatingSystemVersionPatterns()
+	{
+		Map<OperatingSystemFamily, VersionPattern[]> patterns = new EnumMap<>(OperatingSystemFamily.class);
+		patterns.put(OperatingSystemFamily.ANDROID, ANDROID_VERSION_PATTERNS);
+		patterns.put(OperatingSystemFamily.BADA, BADA_VERSION_PATTERNS);
+		patterns.put(OperatingSystemFamily.BSD, BSD_VERSION_PATTERNS);
+		patterns.put(OperatingSystemFamily.IOS, IOS_VERSION_PATTERNS);
+		patterns.put(OperatingSystemFamily.JVM, JAVA_VERSION_PATTERNS);
+		patterns.put(OperatingSystemFamily.OS_X, OSX_VERSION_PATTERNS);
+		patterns.put(OperatingSystemFamily.SYMBIAN, SYMBIAN_VERSION_PATTERNS);
+		patterns.put(OperatingSystemFamily.WEBOS, WEBOS_VERSION_PATTERNS);
+		patterns.put(OperatingSystemFamily.WINDOWS, WINDOWS_VERSION_PATTERNS);
+		return Collections.unmodifiableMap(patterns);
+	}
+
 	/**
 	 * This method try to determine the version number of the operating system <i>Android</i> more accurately.
 	 *
@@ -74,20 +142,7 @@ final class VersionParser
 	 */
 	static VersionNumber identifyAndroidVersion(@javax.validation.constraints.NotNull String userAgent)
 	{
-		VersionNumber version = VersionNumber.UNKNOWN;
-		List<Pattern> patterns = new ArrayList<>();
-		patterns.add(Pattern.compile("Android\\s?((\\d+)((\\.\\d+)+)?(\\-(\\w|\\d)+)?);"));
-		patterns.add(Pattern.compile("Android\\-((\\d+)((\\.\\d+)+)?(\\-(\\w|\\d)+)?);"));
-		for (Pattern pattern : patterns)
-		{
-			Matcher m = pattern.matcher(userAgent);
-			if (m.find())
-			{
-				version = parseFirstVersionNumber(m.group(MAJOR_INDEX));
-				break;
-			}
-		}
-		return version;
+		return identifyVersion(ANDROID_VERSION_PATTERNS, userAgent);
 	}
 
 	/**
@@ -100,14 +155,7 @@ final class VersionParser
 	 */
 	static VersionNumber identifyBadaVersion(String userAgent)
 	{
-		VersionNumber version = VersionNumber.UNKNOWN;
-		Pattern pattern = Pattern.compile("Bada/((\\d+)((\\.\\d+)+)?)");
-		Matcher m = pattern.matcher(userAgent);
-		if (m.find())
-		{
-			version = parseFirstVersionNumber(m.group(MAJOR_INDEX));
-		}
-		return version;
+		return identifyVersion(BADA_VERSION_PATTERNS, userAgent);
 	}
 
 	/**
@@ -120,14 +168,7 @@ final class VersionParser
 	 */
 	static VersionNumber identifyBSDVersion(String userAgent)
 	{
-		VersionNumber version = VersionNumber.UNKNOWN;
-		Pattern pattern = Pattern.compile("\\w+bsd\\s?((\\d+)((\\.\\d+)+)?((\\-|_)[\\w\\d\\-]+)?)", Pattern.CASE_INSENSITIVE);
-		Matcher m = pattern.matcher(userAgent);
-		if (m.find())
-		{
-			version = parseFirstVersionNumber(m.group(MAJOR_INDEX));
-		}
-		return version;
+		return identifyVersion(BSD_VERSION_PATTERNS, userAgent);
 	}
 
 	/**
@@ -140,22 +181,7 @@ final class VersionParser
 	 */
 	static VersionNumber identifyIOSVersion(String userAgent)
 	{
-		VersionNumber version = VersionNumber.UNKNOWN;
-		List<Pattern> patterns = new ArrayList<>();
-		patterns.add(Pattern.compile("iPhone OS\\s?((\\d+)((\\_\\d+)+)?) like Mac OS X"));
-		patterns.add(Pattern.compile("CPU OS\\s?((\\d+)((\\_\\d+)+)?) like Mac OS X"));
-		patterns.add(Pattern.compile("iPhone OS\\s?((\\d+)((\\.\\d+)+)?);"));
-		for (Pattern pattern : patterns)
-		{
-			Matcher m = pattern.matcher(userAgent);
-			if (m.find())
-			{
-				version = parseFirstVersionNumber(m.group(MAJOR_INDEX)
-				                                   .replaceAll("_", "."));
-				break;
-			}
-		}
-		return version;
+		return identifyVersion(IOS_VERSION_PATTERNS, userAgent);
 	}
 
 	/**
@@ -168,20 +194,7 @@ final class VersionParser
 	 */
 	static VersionNumber identifyJavaVersion(String userAgent)
 	{
-		VersionNumber version = VersionNumber.UNKNOWN;
-		List<Pattern> patterns = new ArrayList<>();
-		patterns.add(Pattern.compile("Java/((\\d+)((\\.\\d+)+)?((\\-|_)[\\w\\d\\-]+)?)"));
-		patterns.add(Pattern.compile("Java((\\d+)((\\.\\d+)+)?((\\-|_)[\\w\\d\\-]+)?)"));
-		for (Pattern pattern : patterns)
-		{
-			Matcher m = pattern.matcher(userAgent);
-			if (m.find())
-			{
-				version = parseFirstVersionNumber(m.group(MAJOR_INDEX));
-				break;
-			}
-		}
-		return version;
+		return identifyVersion(JAVA_VERSION_PATTERNS, userAgent);
 	}
 
 	/**
@@ -194,22 +207,7 @@ final class VersionParser
 	 */
 	static VersionNumber identifyOSXVersion(String userAgent)
 	{
-		VersionNumber version = VersionNumber.UNKNOWN;
-		List<Pattern> patterns = new ArrayList<>();
-		patterns.add(Pattern.compile("Mac OS X\\s?((\\d+)((\\.\\d+)+)?);"));
-		patterns.add(Pattern.compile("Mac OS X\\s?((\\d+)((\\_\\d+)+)?);"));
-		patterns.add(Pattern.compile("Mac OS X\\s?((\\d+)((\\_\\d+)+)?)\\)"));
-		for (Pattern pattern : patterns)
-		{
-			Matcher m = pattern.matcher(userAgent);
-			if (m.find())
-			{
-				version = parseFirstVersionNumber(m.group(MAJOR_INDEX)
-				                                   .replaceAll("_", "."));
-				break;
-			}
-		}
-		return version;
+		return identifyVersion(OSX_VERSION_PATTERNS, userAgent);
 	}
 
 	/**
@@ -222,14 +220,7 @@ final class VersionParser
 	 */
 	static VersionNumber identifySymbianVersion(String userAgent)
 	{
-		VersionNumber version = VersionNumber.UNKNOWN;
-		Pattern pattern = Pattern.compile("SymbianOS/((\\d+)((\\.\\d+)+)?s?)");
-		Matcher m = pattern.matcher(userAgent);
-		if (m.find())
-		{
-			version = parseFirstVersionNumber(m.group(MAJOR_INDEX));
-		}
-		return version;
+		return identifyVersion(SYMBIAN_VERSION_PATTERNS, userAgent);
 	}
 
 	/**
@@ -242,20 +233,7 @@ final class VersionParser
 	 */
 	static VersionNumber identifyWebOSVersion(String userAgent)
 	{
-		VersionNumber version = VersionNumber.UNKNOWN;
-		List<Pattern> patterns = new ArrayList<>();
-		patterns.add(Pattern.compile("hpwOS/((\\d+)((\\.\\d+)+)?);"));
-		patterns.add(Pattern.compile("webOS/((\\d+)((\\.\\d+)+)?);"));
-		for (Pattern pattern : patterns)
-		{
-			Matcher m = pattern.matcher(userAgent);
-			if (m.find())
-			{
-				version = parseFirstVersionNumber(m.group(MAJOR_INDEX));
-				break;
-			}
-		}
-		return version;
+		return identifyVersion(WEBOS_VERSION_PATTERNS, userAgent);
 	}
 
 	/**
@@ -267,24 +245,31 @@ final class VersionParser
 	 * @return more accurately identified version number or {@code null}
 	 */
 	static VersionNumber identifyWindowsVersion(String userAgent)
+	{
+		return identifyVersion(WINDOWS_VERSION_PATTERNS, userAgent);
+	}
+
+	/**
+	 * Determines the version number by the first of the given patterns which can be found in the given user agent
+	 * string.
+	 *
+	 * @param patterns
+	 * 		patterns in order of precedence
+	 * @param userAgent
+	 * 		user agent string
+	 *
+	 * @return identified version number or {@link VersionNumber#UNKNOWN}
+	 */
+	private static VersionNumber identifyVersion(@javax.validation.constraints.NotNull VersionPattern[] patterns, @javax.validation.constraints.NotNull String userAgent)
 	{
 		VersionNumber version = VersionNumber.UNKNOWN;
-		List<Pattern> patterns = new ArrayList<>();
-		patterns.add(Pattern.compile("Windows NT\\s?((\\d+)((\\.\\d+)+)?)"));
-		patterns.add(Pattern.compile("Windows Phone OS ((\\d+)((\\.\\d+)+)?)"));
-		patterns.add(Pattern.compile("Windows CE ((\\d+)((\\.\\d+)+)?)"));
-		patterns.add(Pattern.compile("Windows 2000\\s?((\\d+)((\\.\\d+)+)?)"));
-		patterns.add(Pattern.compile("Windows XP\\s?((\\d+)((\\.\\d+)+)?)"));
-		patterns.add(Pattern.compile("Windows 7\\s?((\\d+)((\\.\\d+)+)?)"));
-		patterns.add(Pattern.compile("Win 9x ((\\d+)((\\.\\d+)+)?)"));
-		patterns.add(Pattern.compile("Windows ((\\d+)((\\.\\d+)+)?)"));
-		patterns.add(Pattern.compile("WebTV/((\\d+)((\\.\\d+)+)?)"));
-		for (Pattern pattern : patterns)
+		for (VersionPattern pattern : patterns)
 		{
-			Matcher m = pattern.matcher(userAgent);
+			Matcher m = pattern.pattern.matcher(userAgent);
 			if (m.find())
 			{
-				version = parseFirstVersionNumber(m.group(MAJOR_INDEX));
+				String number = m.group(MAJOR_INDEX);
+				version = parseFirstVersionNumber(pattern.underscoreSeparated ? number.replace('_', '.') : number);
 				break;
 			}
 		}
@@ -304,19 +289,13 @@ final class VersionParser
 	{
 		Check.notNull(text, "text");
 
-		Matcher matcher = VERSIONNUMBER_WITH_SUFFIX.matcher(text);
-		String[] split = null;
-		String ext = null;
-		if (matcher.find())
+		int start = indexOfDigit(text, 0);
+		if (start < 0)
 		{
-			split = matcher.group(MAJOR_INDEX)
-			               .split("\\.");
-			ext = matcher.group(EXTENSION_INDEX);
+			return VersionNumber.UNKNOWN;
 		}
-
-		String extension = ext == null ? VersionNumber.EMPTY_EXTENSION : trimRight(ext);
-
-		return split == null ? VersionNumber.UNKNOWN : new VersionNumber(Arrays.asList(split), extension);
+		int numberEnd = scanNumber(text, start);
+		return toVersionNumber(text, start, numberEnd, scanSuffix(text, numberEnd));
 	}
 
 	/**
@@ -332,32 +311,155 @@ final class VersionParser
 	{
 		Check.notNull(text, "text");
 
-		Matcher matcher = VERSIONNUMBER_WITH_SUFFIX.matcher(text);
-		String[] split = null;
-		String ext = null;
-		while (matcher.find())
+		int start = -1;
+		int numberEnd = 0;
+		int suffixEnd = 0;
+		for (int i = indexOfDigit(text, 0); i >= 0; i = indexOfDigit(text, suffixEnd))
 		{
-			split = matcher.group(MAJOR_INDEX)
-			               .split("\\.");
-			ext = matcher.group(EXTENSION_INDEX);
+			start = i;
+			numberEnd = scanNumber(text, start);
+			suffixEnd = scanSuffix(text, numberEnd);
 		}
+		return start < 0 ? VersionNumber.UNKNOWN : toVersionNumber(text, start, numberEnd, suffixEnd);
+	}
+
+	/**
+	 * Searches the first decimal digit in the given string.
+	 *
+	 * @param text
+	 * 		string to search in
+	 * @param from
+	 * 		index to start the search from
+	 *
+	 * @return index of the first digit or {@code -1} if there is none
+	 */
+	private static int indexOfDigit(@javax.validation.constraints.NotNull String text, int from)
+	{
+		for (int i = from; i < text.length(); i++)
+		{
+			if (isDigit(text.charAt(i)))
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks whether the given character is a decimal digit. In contrast to {@link Character#isDigit(char)} only ASCII
+	 * digits are taken into account.
+	 */
+	private static boolean isDigit(char c)
+	{
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Checks whether the given character can be part of the extension/suffix of a version string. These are
+	 * whitespace, word characters, dashes, dots and square brackets.
+	 */
+	private static boolean isSuffixCharacter(char c)
+	{
+		return isDigit(c) || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_' || c == '-' || c == '.' || c == '[' || c == ']'
+				       || isWhitespace(c);
+	}
 
-		String extension = ext == null ? VersionNumber.EMPTY_EXTENSION : trimRight(ext);
+	/**
+	 * Checks whether the given character is whitespace. In contrast to {@link Character#isWhitespace(char)} only the
+	 * ASCII whitespace characters are taken into account.
+	 */
+	private static boolean isWhitespace(char c)
+	{
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
 
-		return split == null ? VersionNumber.UNKNOWN : new VersionNumber(Arrays.asList(split), extension);
+	/**
+	 * Scans the numeric groups of a version number, which are separated by dots, beginning with the digit at the given
+	 * index.
+	 *
+	 * @param text
+	 * 		string with version information
+	 * @param start
+	 * 		index of the first digit
+	 *
+	 * @return index after the last digit of the version number
+	 */
+	private static int scanNumber(@javax.validation.constraints.NotNull String text, int start)
+	{
+		int end = start;
+		while (end < text.length() && isDigit(text.charAt(end)))
+		{
+			end++;
+		}
+		while (end + 1 < text.length() && text.charAt(end) == SEPARATOR && isDigit(text.charAt(end + 1)))
+		{
+			end += 2;
+			while (end < text.length() && isDigit(text.charAt(end)))
+			{
+				end++;
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * Scans the extension/suffix of a version number beginning at the given index.
+	 *
+	 * @param text
+	 * 		string with version information
+	 * @param start
+	 * 		index after the numeric groups
+	 *
+	 * @return index after the last character of the extension
+	 */
+	private static int scanSuffix(@javax.validation.constraints.NotNull String text, int start)
+	{
+		int end = start;
+		while (end < text.length() && isSuffixCharacter(text.charAt(end)))
+		{
+			end++;
+		}
+		return end;
 	}
 
 	/**
-	 * Trims the whitespace at the end of the given string.
+	 * Creates a version number of a scanned range of the given string. The numeric groups will be split at the dots
+	 * and trailing whitespace will be removed from the extension.
 	 *
 	 * @param text
-	 * 		string to trim
+	 * 		string with version information
+	 * @param start
+	 * 		index of the first digit
+	 * @param numberEnd
+	 * 		index after the numeric groups
+	 * @param suffixEnd
+	 * 		index after the extension
 	 *
-	 * @return trimmed string
+	 * @return an object of {@code VersionNumber}
 	 */
-	private static String trimRight(@javax.validation.constraints.NotNull String text)
+	@javax.validation.constraints.NotNull
+	private static VersionNumber toVersionNumber(@javax.validation.constraints.NotNull String text, int start, int numberEnd, int suffixEnd)
 	{
-		return text.replaceAll("\\s+$", "");
+		List<String> groups = new ArrayList<>(MIN_GROUP_SIZE);
+		int groupStart = start;
+		for (int i = start; i < numberEnd; i++)
+		{
+			if (text.charAt(i) == SEPARATOR)
+			{
+				groups.add(text.substring(groupStart, i));
+				groupStart = i + 1;
+			}
+		}
+		groups.add(text.substring(groupStart, numberEnd));
+
+		int extensionEnd = suffixEnd;
+		while (extensionEnd > numberEnd && isWhitespace(text.charAt(extensionEnd - 1)))
+		{
+			extensionEnd--;
+		}
+		String extension = extensionEnd > numberEnd ? text.substring(numberEnd, extensionEnd) : VersionNumber.EMPTY_EXTENSION;
+
+		return new VersionNumber(groups, extension);
 	}
 
 	/**
@@ -375,48 +477,8 @@ final class VersionParser
 		Check.notNull(family, "family");
 		Check.notNull(userAgent, "userAgent");
 
-		VersionNumber v;
-		if (OperatingSystemFamily.ANDROID == family)
-		{
-			v = identifyAndroidVersion(userAgent);
-		}
-		else if (OperatingSystemFamily.BADA == family)
-		{
-			v = identifyBadaVersion(userAgent);
-		}
-		else if (OperatingSystemFamily.BSD == family)
-		{
-			v = identifyBSDVersion(userAgent);
-		}
-		else if (OperatingSystemFamily.IOS == family)
-		{
-			v = identifyIOSVersion(userAgent);
-		}
-		else if (OperatingSystemFamily.JVM == family)
-		{
-			v = identifyJavaVersion(userAgent);
-		}
-		else if (OperatingSystemFamily.OS_X == family)
-		{
-			v = identifyOSXVersion(userAgent);
-		}
-		else if (OperatingSystemFamily.SYMBIAN == family)
-		{
-			v = identifySymbianVersion(userAgent);
-		}
-		else if (OperatingSystemFamily.WEBOS == family)
-		{
-			v = identifyWebOSVersion(userAgent);
-		}
-		else if (OperatingSystemFamily.WINDOWS == family)
-		{
-			v = identifyWindowsVersion(userAgent);
-		}
-		else
-		{
-			v = VersionNumber.UNKNOWN;
-		}
-		return v;
+		VersionPattern[] patterns = OPERATING_SYSTEM_VERSION_PATTERNS.get(family);
+		return patterns != null ? identifyVersion(patterns, userAgent) : VersionNumber.UNKNOWN;
 	}
 
 	/**
@@ -431,18 +493,34 @@ final class VersionParser
 	{
 		Check.notNull(version, "version");
 
-		VersionNumber result = new VersionNumber(new ArrayList<>(0), version);
-		Matcher matcher = VERSIONSTRING.matcher(version);
-		if (matcher.find())
+		if (version.isEmpty() || !isDigit(version.charAt(0)))
+		{
+			return new VersionNumber(new ArrayList<>(0), version);
+		}
+		int numberEnd = scanNumber(version, 0);
+		return toVersionNumber(version, 0, numberEnd, scanSuffix(version, numberEnd));
+	}
+
+	/**
+	 * A precompiled pattern whose first group contains a version number
+	 */
+	private static final class VersionPattern
+	{
+
+		@javax.validation.constraints.NotNull
+		private final Pattern pattern;
+
+		/**
+		 * Whether the groups of the version number are separated by underscores instead of dots
+		 */
+		private final boolean underscoreSeparated;
+
+		private VersionPattern(@javax.validation.constraints.NotNull Pattern pattern, boolean underscoreSeparated)
 		{
-			List<String> groups = Arrays.asList(matcher.group(MAJOR_INDEX)
-			                                           .split("\\."));
-			String extension = matcher.group(EXTENSION_INDEX) == null ? VersionNumber.EMPTY_EXTENSION : trimRight(matcher
-					                                                                                                      .group(EXTENSION_INDEX));
-			result = new VersionNumber(groups, extension);
+			this.pattern = pattern;
+			this.underscoreSeparated = underscoreSeparated;
 		}
 
-		return result;
 	}
 
 }
@@ -0,0 +1,506 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.datareader;
+
+import net.sf.uadetector.exception.CanNotOpenStreamException;
+import net.sf.uadetector.internal.Check;
+import net.sf.uadetector.internal.data.Data;
+import net.sf.uadetector.internal.data.DataBuilder;
+import net.sf.uadetector.internal.data.domain.*;
+import net.sf.uadetector.internal.util.Closeables;
+import net.sf.uadetector.internal.util.LazyPattern;
+import net.sf.uadetector.internal.util.UrlUtil;
+import net.sf.uadetector.writer.BinaryDataWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reader for binary snapshots of <em>UAS data</em> which have been written by {@link BinaryDataWriter}.<br>
+ * <br>
+ * A snapshot contains already converted regular expressions and deduplicated strings, so reading it avoids parsing and
+ * validating XML. Snapshots with an unknown magic number or format version as well as truncated snapshots will be
+ * rejected.<br>
+ * <br>
+ * This reader is safe when used concurrently by multiple threads.
+ *
+ * @author André Rouél
+ */
+public final class BinaryDataReader
+		implements DataReader
+{
+
+	/**
+	 * Character set to map the characters of a string one-to-one to the bytes of a snapshot
+	 */
+	private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+	/**
+	 * Corresponding default logger for this class
+	 */
+	private static final Logger LOG = Logger.getLogger(BinaryDataReader.class.toString());
+
+	/**
+	 * Character set of the strings in the string table
+	 */
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * Whether regular expressions will be compiled on first use instead of while reading
+	 */
+	private final boolean lazyPatterns;
+
+	/**
+	 * Constructs a {@code BinaryDataReader} which compiles all regular expressions while reading.
+	 */
+	public BinaryDataReader()
+	{
+		this(false);
+	}
+
+	/**
+	 * Constructs a {@code BinaryDataReader}.<br>
+	 * <br>
+	 * In the lazy pattern mode the regular expressions of browsers, operating systems and devices will be compiled on
+	 * first use, which makes reading a snapshot a matter of milliseconds.
+	 *
+	 * @param lazyPatterns
+	 * 		{@code true} to compile regular expressions on first use, otherwise {@code false}
+	 */
+	public BinaryDataReader(boolean lazyPatterns)
+	{
+		this.lazyPatterns = lazyPatterns;
+	}
+
+	/**
+	 * Reads a binary snapshot of <em>UAS data</em> from the given stream, which will be closed afterwards. The given
+	 * character set will be ignored, because the strings of a snapshot are always encoded in UTF-8.
+	 *
+	 * @param inputStream
+	 * 		an input stream for reading a binary snapshot
+	 * @param charset
+	 * 		will be ignored
+	 *
+	 * @return read in <em>UAS data</em> as {@code Data} instance otherwise {@link Data#EMPTY}
+	 */
+	@Override
+	public Data read(@javax.validation.constraints.NotNull InputStream inputStream, @javax.validation.constraints.NotNull Charset charset)
+	{
+		Check.notNull(charset, "charset");
+
+		return readSnapshot(inputStream, lazyPatterns);
+	}
+
+	/**
+	 * Reads a binary snapshot of <em>UAS data</em> based on the given URL.
+	 *
+	 * @param url
+	 * 		{@code URL} to a binary snapshot
+	 * @param charset
+	 * 		will be ignored, because the strings of a snapshot are always encoded in UTF-8
+	 *
+	 * @return read in User-Agent data as {@code Data} instance otherwise {@link Data#EMPTY}
+	 * 		<p>
+	 * 		<p>
+	 * 		if any of the given arguments is {@code null}
+	 */
+	@Override
+	public Data read(@javax.validation.constraints.NotNull URL url, @javax.validation.constraints.NotNull Charset charset)
+	{
+		Check.notNull(url, "url");
+		Check.notNull(charset, "charset");
+
+		Data data = Data.EMPTY;
+		try
+		{
+			data = readSnapshot(UrlUtil.open(url), lazyPatterns);
+		}
+		catch (CanNotOpenStreamException e)
+		{
+			LOG.log(Level.WARNING, e.getLocalizedMessage(), e);
+		}
+
+		return data;
+	}
+
+	/**
+	 * Reads a binary snapshot of <em>UAS data</em> from the given string, in which every character represents one byte
+	 * of the snapshot (as it would be decoded with ISO-8859-1).
+	 *
+	 * @param data
+	 * 		binary snapshot as string
+	 *
+	 * @return read in User-Agent data as {@code Data} instance otherwise {@link Data#EMPTY}
+	 * 		<p>
+	 * 		<p>
+	 * 		if any of the given argument is {@code null}
+	 */
+	@Override
+	public Data read(@javax.validation.constraints.NotNull String data)
+	{
+		Check.notNull(data, "data");
+
+		return readSnapshot(new ByteArrayInputStream(data.getBytes(ISO_8859_1)), lazyPatterns);
+	}
+
+	/**
+	 * Reads a binary snapshot of <em>UAS data</em> from the given stream, which will be closed afterwards.<br>
+	 * <br>
+	 * When during the reading errors occur which lead to a termination of the read operation, the information will be
+	 * written to a log. The termination of the read operation will not lead to a program termination and in this case
+	 * this method returns {@link Data#EMPTY}.
+	 *
+	 * @param inputStream
+	 * 		an input stream for reading a binary snapshot
+	 * @param lazyPatterns
+	 * 		{@code true} to compile regular expressions on first use, otherwise {@code false}
+	 *
+	 * @return read in <em>UAS data</em> as {@code Data} instance
+	 */
+	private static Data readSnapshot(@javax.validation.constraints.NotNull InputStream inputStream, boolean lazyPatterns)
+	{
+		Check.notNull(inputStream, "inputStream");
+
+		Data data = Data.EMPTY;
+		try
+		{
+			data = readSnapshot(ByteBuffer.wrap(SnapshotParser.readFully(inputStream)), lazyPatterns);
+		}
+		catch (IOException e)
+		{
+			LOG.log(Level.SEVERE, e.getLocalizedMessage(), e);
+		}
+		finally
+		{
+			Closeables.closeAndConvert(inputStream, true);
+		}
+
+		return data;
+	}
+
+	/**
+	 * Reads a binary snapshot of <em>UAS data</em> from the remaining bytes of the given buffer. The position of the
+	 * given buffer will not be changed.<br>
+	 * <br>
+	 * Every string of the string table will be decoded only once, when it is referenced for the first time. The
+	 * resulting {@code Data} instance does not refer to the buffer afterwards, so it can be reused or released.
+	 *
+	 * @param buffer
+	 * 		buffer which contains a binary snapshot
+	 *
+	 * @return read in User-Agent data as {@code Data} instance otherwise {@link Data#EMPTY}
+	 * 		<p>
+	 * 		<p>
+	 * 		if the given argument is {@code null}
+	 */
+	public Data read(@javax.validation.constraints.NotNull ByteBuffer buffer)
+	{
+		Check.notNull(buffer, "buffer");
+
+		return readSnapshot(buffer, lazyPatterns);
+	}
+
+	/**
+	 * Reads a binary snapshot of <em>UAS data</em> from the remaining bytes of the given buffer.
+	 *
+	 * @param buffer
+	 * 		buffer which contains a binary snapshot
+	 * @param lazyPatterns
+	 * 		{@code true} to compile regular expressions on first use, otherwise {@code false}
+	 *
+	 * @return read in <em>UAS data</em> as {@code Data} instance otherwise {@link Data#EMPTY}
+	 */
+	private static Data readSnapshot(@javax.validation.constraints.NotNull ByteBuffer buffer, boolean lazyPatterns)
+	{
+		Check.notNull(buffer, "buffer");
+
+		Data data = Data.EMPTY;
+		try
+		{
+			data = SnapshotParser.parse(buffer);
+			if (!lazyPatterns)
+			{
+				data.compilePatterns();
+			}
+		}
+		catch (RuntimeException e)
+		{
+			LOG.log(Level.SEVERE, e.getLocalizedMessage(), e);
+		}
+
+		return data;
+	}
+
+	private static final class SnapshotParser
+	{
+
+		/**
+		 * Size of the chunks in which a stream will be read
+		 */
+		private static final int CHUNK_SIZE = 1 << 16;
+
+		private static final String MSG_NOT_PARSED_AS_EXPECTED = "The binary snapshot has not been parsed as expected.";
+
+		private SnapshotParser()
+		{
+			// This class is not intended to create objects from it.
+		}
+
+		/**
+		 * Parses a binary snapshot from the remaining bytes of the given buffer without changing its position.
+		 *
+		 * @param snapshot
+		 * 		buffer which contains a binary snapshot
+		 *
+		 * @return read in <em>UAS data</em>
+		 *
+		 * @throws java.nio.BufferUnderflowException
+		 * 		if the snapshot is truncated
+		 * @throws net.sf.uadetector.exception.IllegalStateOfArgumentException
+		 * 		if the buffer does not contain a supported and consistent snapshot
+		 */
+		@javax.validation.constraints.NotNull
+		static Data parse(@javax.validation.constraints.NotNull ByteBuffer snapshot)
+		{
+			ByteBuffer buffer = snapshot.duplicate()
+			                            .order(ByteOrder.BIG_ENDIAN);
+			int magic = buffer.getInt();
+			Check.stateIsTrue(magic == BinaryDataWriter.MAGIC, "The stream does not contain a binary snapshot of UAS data.");
+			int formatVersion = buffer.getInt();
+			Check.stateIsTrue(formatVersion == BinaryDataWriter.FORMAT_VERSION, "The format version '%s' of the binary snapshot is not supported.",
+			                  String.valueOf(formatVersion));
+
+			StringTable strings = new StringTable(buffer);
+			int sectionsLength = Check.notNegative(buffer.getInt(), "sectionsLength");
+			Check.stateIsTrue(sectionsLength == buffer.remaining(), MSG_NOT_PARSED_AS_EXPECTED);
+
+			DataBuilder builder = new DataBuilder();
+			builder.setVersion(strings.get(buffer.getInt()));
+			readRobots(buffer, strings, builder);
+			readBrowserTypes(buffer, strings, builder);
+			readOperatingSystems(buffer, strings, builder);
+			readBrowsers(buffer, strings, builder);
+			readBrowserPatterns(buffer, strings, builder);
+			readBrowserOperatingSystemMappings(buffer, builder);
+			readOperatingSystemPatterns(buffer, strings, builder);
+			readDevices(buffer, strings, builder);
+			readDevicePatterns(buffer, strings, builder);
+			Check.stateIsTrue(!buffer.hasRemaining(), MSG_NOT_PARSED_AS_EXPECTED);
+			return builder.build();
+		}
+
+		private static void readBrowserOperatingSystemMappings(ByteBuffer buffer, DataBuilder builder)
+		{
+			for (int i = buffer.getInt(); i > 0; i--)
+			{
+				builder.appendBrowserOperatingSystemMapping(new BrowserOperatingSystemMapping(buffer.getInt(), buffer.getInt()));
+			}
+		}
+
+		private static void readBrowserPatterns(ByteBuffer buffer, StringTable strings, DataBuilder builder)
+		{
+			for (int i = buffer.getInt(); i > 0; i--)
+			{
+				int id = buffer.getInt();
+				int position = buffer.getInt();
+				builder.appendBrowserPattern(new BrowserPattern(id, readPattern(buffer, strings), position));
+			}
+		}
+
+		private static void readBrowsers(ByteBuffer buffer, StringTable strings, DataBuilder builder)
+		{
+			for (int i = buffer.getInt(); i > 0; i--)
+			{
+				Browser.Builder browserBuilder = new Browser.Builder();
+				browserBuilder.setId(buffer.getInt());
+				browserBuilder.setTypeId(buffer.getInt());
+				browserBuilder.setFamilyName(strings.get(buffer.getInt()));
+				browserBuilder.setUrl(strings.get(buffer.getInt()));
+				browserBuilder.setProducer(strings.get(buffer.getInt()));
+				browserBuilder.setProducerUrl(strings.get(buffer.getInt()));
+				browserBuilder.setIcon(strings.get(buffer.getInt()));
+				browserBuilder.setInfoUrl(strings.get(buffer.getInt()));
+				builder.appendBrowserBuilder(browserBuilder);
+			}
+		}
+
+		private static void readBrowserTypes(ByteBuffer buffer, StringTable strings, DataBuilder builder)
+		{
+			for (int i = buffer.getInt(); i > 0; i--)
+			{
+				int id = buffer.getInt();
+				builder.appendBrowserType(new BrowserType(id, strings.get(buffer.getInt())));
+			}
+		}
+
+		private static void readDevicePatterns(ByteBuffer buffer, StringTable strings, DataBuilder builder)
+		{
+			for (int i = buffer.getInt(); i > 0; i--)
+			{
+				int id = buffer.getInt();
+				int position = buffer.getInt();
+				builder.appendDevicePattern(new DevicePattern(id, readPattern(buffer, strings), position));
+			}
+		}
+
+		private static void readDevices(ByteBuffer buffer, StringTable strings, DataBuilder builder)
+		{
+			for (int i = buffer.getInt(); i > 0; i--)
+			{
+				Device.Builder deviceBuilder = new Device.Builder();
+				deviceBuilder.setId(buffer.getInt());
+				deviceBuilder.setName(strings.get(buffer.getInt()));
+				deviceBuilder.setIcon(strings.get(buffer.getInt()));
+				deviceBuilder.setInfoUrl(strings.get(buffer.getInt()));
+				builder.appendDeviceBuilder(deviceBuilder);
+			}
+		}
+
+		private static void readOperatingSystemPatterns(ByteBuffer buffer, StringTable strings, DataBuilder builder)
+		{
+			for (int i = buffer.getInt(); i > 0; i--)
+			{
+				int id = buffer.getInt();
+				int position = buffer.getInt();
+				builder.appendOperatingSystemPattern(new OperatingSystemPattern(id, readPattern(buffer, strings), position));
+			}
+		}
+
+		private static void readOperatingSystems(ByteBuffer buffer, StringTable strings, DataBuilder builder)
+		{
+			for (int i = buffer.getInt(); i > 0; i--)
+			{
+				OperatingSystem.Builder operatingSystemBuilder = new OperatingSystem.Builder();
+				operatingSystemBuilder.setId(buffer.getInt());
+				operatingSystemBuilder.setFamily(strings.get(buffer.getInt()));
+				operatingSystemBuilder.setName(strings.get(buffer.getInt()));
+				operatingSystemBuilder.setUrl(strings.get(buffer.getInt()));
+				operatingSystemBuilder.setProducer(strings.get(buffer.getInt()));
+				operatingSystemBuilder.setProducerUrl(strings.get(buffer.getInt()));
+				operatingSystemBuilder.setIcon(strings.get(buffer.getInt()));
+				operatingSystemBuilder.setInfoUrl(strings.get(buffer.getInt()));
+				builder.appendOperatingSystemBuilder(operatingSystemBuilder);
+			}
+		}
+
+		@javax.validation.constraints.NotNull
+		private static LazyPattern readPattern(ByteBuffer buffer, StringTable strings)
+		{
+			String regex = strings.get(buffer.getInt());
+			return new LazyPattern(regex, buffer.getInt());
+		}
+
+		private static void readRobots(ByteBuffer buffer, StringTable strings, DataBuilder builder)
+		{
+			for (int i = buffer.getInt(); i > 0; i--)
+			{
+				Robot.Builder robotBuilder = new Robot.Builder();
+				robotBuilder.setId(buffer.getInt());
+				robotBuilder.setUserAgentString(strings.get(buffer.getInt()));
+				robotBuilder.setFamilyName(strings.get(buffer.getInt()));
+				robotBuilder.setName(strings.get(buffer.getInt()));
+				robotBuilder.setProducer(strings.get(buffer.getInt()));
+				robotBuilder.setProducerUrl(strings.get(buffer.getInt()));
+				robotBuilder.setIcon(strings.get(buffer.getInt()));
+				robotBuilder.setInfoUrl(strings.get(buffer.getInt()));
+				builder.appendRobot(robotBuilder.build());
+			}
+		}
+
+		/**
+		 * Reads the whole content of the given stream.
+		 */
+		@javax.validation.constraints.NotNull
+		static byte[] readFully(@javax.validation.constraints.NotNull InputStream stream) throws IOException
+		{
+			ByteArrayOutputStream out = new ByteArrayOutputStream(CHUNK_SIZE);
+			byte[] chunk = new byte[CHUNK_SIZE];
+			for (int size = stream.read(chunk); size >= 0; size = stream.read(chunk))
+			{
+				out.write(chunk, 0, size);
+			}
+			return out.toByteArray();
+		}
+
+		/**
+		 * Table of the strings of a snapshot, which will be decoded on first access.
+		 */
+		private static final class StringTable
+		{
+
+			@javax.validation.constraints.NotNull
+			private final ByteBuffer buffer;
+
+			@javax.validation.constraints.NotNull
+			private final int[] lengths;
+
+			@javax.validation.constraints.NotNull
+			private final int[] offsets;
+
+			@javax.validation.constraints.NotNull
+			private final String[] values;
+
+			/**
+			 * Locates all strings of the table which starts at the current position of the given buffer and moves the
+			 * position behind the table.
+			 */
+			StringTable(@javax.validation.constraints.NotNull ByteBuffer buffer)
+			{
+				this.buffer = buffer;
+				int count = Check.notNegative(buffer.getInt(), "stringCount");
+				Check.stateIsTrue(count <= buffer.remaining() / Integer.BYTES, MSG_NOT_PARSED_AS_EXPECTED);
+				lengths = new int[count];
+				offsets = new int[count];
+				values = new String[count];
+				for (int i = 0; i < count; i++)
+				{
+					int length = Check.notNegative(buffer.getInt(), "stringLength");
+					Check.stateIsTrue(length <= buffer.remaining(), MSG_NOT_PARSED_AS_EXPECTED);
+					lengths[i] = length;
+					offsets[i] = buffer.position();
+					buffer.position(buffer.position() + length);
+				}
+			}
+
+			@javax.validation.constraints.NotNull
+			String get(int index)
+			{
+				String value = values[index];
+				if (value == null)
+				{
+					byte[] bytes = new byte[lengths[index]];
+					ByteBuffer source = buffer.duplicate();
+					source.position(offsets[index]);
+					source.get(bytes);
+					value = new String(bytes, UTF_8);
+					values[index] = value;
+				}
+				return value;
+			}
+
+		}
+
+	}
+
+}
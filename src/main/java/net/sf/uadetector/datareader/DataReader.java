@@ -17,8 +17,13 @@ package net.sf.uadetector.datareader;
 
 import net.sf.uadetector.internal.data.Data;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.logging.Level;
 
 /**
  * Interface for data readers that reads User-Agent informations for implementations of {@code UserAgentStringParser}.
@@ -28,6 +33,67 @@ import java.nio.charset.Charset;
 public interface DataReader
 {
 
+	/**
+	 * Reads <em>UAS data</em> from the given stream, which will be closed afterwards. This allows to read data while
+	 * they are downloaded, without buffering them completely before.
+	 *
+	 * <p>
+	 * The implementing class must ensure that no error leads to a termination of this operation. In case of an error
+	 * this operation must return {@link Data#EMPTY} and all error information must be stored in a log.
+	 *
+	 * <p>
+	 * The default implementation reads the whole stream into a string and passes it to {@link #read(String)}, so
+	 * implementations should override this method to read the data while they are streamed.
+	 *
+	 * @param inputStream
+	 * 		an input stream for reading <em>UAS data</em>
+	 * @param charset
+	 * 		the character set in which the data should be read
+	 *
+	 * @return read in <em>UAS data</em> as new {@code Data} instance or {@link Data#EMPTY}
+	 */
+	default Data read(InputStream inputStream, Charset charset)
+	{
+		StringBuilder data = new StringBuilder();
+		try (Reader reader = new InputStreamReader(inputStream, charset))
+		{
+			char[] buffer = new char[8192];
+			for (int length = reader.read(buffer); length != -1; length = reader.read(buffer))
+			{
+				data.append(buffer, 0, length);
+			}
+		}
+		catch (IOException e)
+		{
+			java.util.logging.Logger.getLogger(DataReader.class.toString())
+			                        .log(Level.WARNING, "Can not read UAS data from the stream: " + e.getLocalizedMessage(), e);
+			return Data.EMPTY;
+		}
+		return read(data.toString());
+	}
+
+	/**
+	 * Reads <em>UAS data</em> from the given stream, which will be closed afterwards, and reuses the patterns and
+	 * entries of the given previous data which have not been changed. This keeps the costs of a refresh proportional
+	 * to the changes since the previous data.
+	 *
+	 * <p>
+	 * The default implementation does not reuse anything and reads the data completely anew.
+	 *
+	 * @param inputStream
+	 * 		an input stream for reading <em>UAS data</em>
+	 * @param charset
+	 * 		the character set in which the data should be read
+	 * @param previous
+	 * 		previously read <em>UAS data</em> or {@link Data#EMPTY}
+	 *
+	 * @return read in <em>UAS data</em> as new {@code Data} instance or {@link Data#EMPTY}
+	 */
+	default Data read(InputStream inputStream, Charset charset, Data previous)
+	{
+		return read(inputStream, charset);
+	}
+
 	/**
 	 * Reads <em>UAS data</em> from the given {@code URL}.
 	 *
@@ -44,6 +110,27 @@ public interface DataReader
 	 */
 	Data read(URL url, Charset charset);
 
+	/**
+	 * Reads <em>UAS data</em> from the given {@code URL} and reuses the patterns and entries of the given previous data
+	 * which have not been changed.
+	 *
+	 * <p>
+	 * The default implementation does not reuse anything and reads the data completely anew.
+	 *
+	 * @param url
+	 * 		the URL where the <em>UAS data</em> can be retrieved
+	 * @param charset
+	 * 		the character set in which the data should be read
+	 * @param previous
+	 * 		previously read <em>UAS data</em> or {@link Data#EMPTY}
+	 *
+	 * @return read in <em>UAS data</em> as new {@code Data} instance or {@link Data#EMPTY}
+	 */
+	default Data read(URL url, Charset charset, Data previous)
+	{
+		return read(url, charset);
+	}
+
 	/**
 	 * Reads <em>UAS data</em> from the given {@code String}.
 	 *
@@ -20,7 +20,9 @@ import net.sf.uadetector.internal.Check;
 import net.sf.uadetector.internal.data.Data;
 import net.sf.uadetector.internal.data.DataBuilder;
 import net.sf.uadetector.internal.data.XmlDataHandler;
+import net.sf.uadetector.internal.data.XmlDataStreamParser;
 import net.sf.uadetector.internal.util.Closeables;
+import net.sf.uadetector.internal.util.CompressionUtil;
 import net.sf.uadetector.internal.util.UrlUtil;
 import org.xml.sax.SAXException;
 
@@ -39,6 +41,8 @@ import java.util.logging.Logger;
  * Reader for the XML data for UASparser from <a
  * href="http://user-agent-string.info/">http://user-agent-string.info</a>.<br>
  * <br>
+ * GZIP compressed data will be detected by its content and decompressed transparently while reading.<br>
+ * <br>
  * This reader is safe when used concurrently by multiple threads.
  *
  * @author André Rouél
@@ -56,6 +60,95 @@ public final class XmlDataReader
 	 */
 	private static final Logger LOG = Logger.getLogger(XmlDataReader.class.toString());
 
+	/**
+	 * Whether regular expressions will be compiled on first use instead of while reading
+	 */
+	private final boolean lazyPatterns;
+
+	/**
+	 * Whether the document will be validated against its Document Type Definition (DTD) while reading
+	 */
+	private final boolean validating;
+
+	/**
+	 * Constructs an {@code XmlDataReader} which compiles all regular expressions while reading.
+	 */
+	public XmlDataReader()
+	{
+		this(false);
+	}
+
+	/**
+	 * Constructs an {@code XmlDataReader}.<br>
+	 * <br>
+	 * In the lazy pattern mode the regular expressions of browsers, operating systems and devices will be compiled on
+	 * first use. This shortens reading and saves memory when only a fraction of the patterns will ever be needed, for
+	 * example in short-lived processes. Invalid regular expressions will then be logged on first use and never match
+	 * instead of being skipped while reading.
+	 *
+	 * @param lazyPatterns
+	 * 		{@code true} to compile regular expressions on first use, otherwise {@code false}
+	 */
+	public XmlDataReader(boolean lazyPatterns)
+	{
+		this(lazyPatterns, true);
+	}
+
+	/**
+	 * Constructs an {@code XmlDataReader}.<br>
+	 * <br>
+	 * In the non-validating mode the document will be read with a streaming StAX parser, which neither loads nor
+	 * validates the Document Type Definition (DTD). The structure of the document will be checked against the declared
+	 * elements while reading instead, and the built {@code Data} will be checked for lost entries afterwards. This
+	 * results in the same {@code Data} as the validating mode, but reads noticeably faster.
+	 *
+	 * @param lazyPatterns
+	 * 		{@code true} to compile regular expressions on first use, otherwise {@code false}
+	 * @param validating
+	 * 		{@code true} to validate the document against its DTD, {@code false} to read it with the streaming parser
+	 */
+	public XmlDataReader(boolean lazyPatterns, boolean validating)
+	{
+		this.lazyPatterns = lazyPatterns;
+		this.validating = validating;
+	}
+
+	/**
+	 * Reads the <em>UAS data</em> in XML format from the given stream, which will be closed afterwards.
+	 *
+	 * @param inputStream
+	 * 		an input stream for reading <em>UAS data</em>
+	 * @param charset
+	 * 		the character set in which the data should be read
+	 *
+	 * @return read in User-Agent data as {@code Data} instance otherwise {@link Data#EMPTY}
+	 */
+	@Override
+	public Data read(@javax.validation.constraints.NotNull InputStream inputStream, @javax.validation.constraints.NotNull Charset charset)
+	{
+		return readXml(inputStream, charset, lazyPatterns, validating);
+	}
+
+	/**
+	 * Reads the <em>UAS data</em> in XML format from the given stream, which will be closed afterwards, and reuses the
+	 * unchanged patterns and entries of the given previous data.
+	 *
+	 * @param inputStream
+	 * 		an input stream for reading <em>UAS data</em>
+	 * @param charset
+	 * 		the character set in which the data should be read
+	 * @param previous
+	 * 		previously read <em>UAS data</em> or {@link Data#EMPTY}
+	 *
+	 * @return read in User-Agent data as {@code Data} instance otherwise {@link Data#EMPTY}
+	 */
+	@Override
+	public Data read(@javax.validation.constraints.NotNull InputStream inputStream, @javax.validation.constraints.NotNull Charset charset,
+	                 @javax.validation.constraints.NotNull Data previous)
+	{
+		return readXml(inputStream, charset, lazyPatterns, validating, previous);
+	}
+
 	/**
 	 * Reads the <em>UAS data</em> in XML format based on the given URL.
 	 *
@@ -71,6 +164,26 @@ public final class XmlDataReader
 	 */
 	@Override
 	public Data read(@javax.validation.constraints.NotNull URL url, @javax.validation.constraints.NotNull Charset charset)
+	{
+		return read(url, charset, Data.EMPTY);
+	}
+
+	/**
+	 * Reads the <em>UAS data</em> in XML format based on the given URL and reuses the unchanged patterns and entries of
+	 * the given previous data.
+	 *
+	 * @param url
+	 * 		{@code URL} to User-Agent informations
+	 * @param charset
+	 * 		the character set in which the data should be read
+	 * @param previous
+	 * 		previously read <em>UAS data</em> or {@link Data#EMPTY}
+	 *
+	 * @return read in User-Agent data as {@code Data} instance otherwise {@link Data#EMPTY}
+	 */
+	@Override
+	public Data read(@javax.validation.constraints.NotNull URL url, @javax.validation.constraints.NotNull Charset charset,
+	                 @javax.validation.constraints.NotNull Data previous)
 	{
 		Check.notNull(url, "url");
 		Check.notNull(charset, "charset");
@@ -78,7 +191,7 @@ public final class XmlDataReader
 		Data data = Data.EMPTY;
 		try
 		{
-			data = readXml(UrlUtil.open(url), charset);
+			data = readXml(UrlUtil.open(url), charset, lazyPatterns, validating, previous);
 		}
 		catch (CanNotOpenStreamException e)
 		{
@@ -104,7 +217,7 @@ public final class XmlDataReader
 	{
 		Check.notNull(data, "data");
 
-		return readXml(new ByteArrayInputStream(data.getBytes(DEFAULT_CHARSET)), DEFAULT_CHARSET);
+		return readXml(new ByteArrayInputStream(data.getBytes(DEFAULT_CHARSET)), DEFAULT_CHARSET, lazyPatterns, validating);
 	}
 
 	/**
@@ -128,27 +241,103 @@ public final class XmlDataReader
 	 * 		if no stream to the given {@code URL} can be established
 	 */
 	protected static Data readXml(@javax.validation.constraints.NotNull InputStream inputStream, @javax.validation.constraints.NotNull Charset charset)
+	{
+		return readXml(inputStream, charset, false);
+	}
+
+	/**
+	 * Reads the <em>UAS data</em> in XML format from the given stream, optionally without compiling the regular
+	 * expressions before first use.
+	 *
+	 * @param inputStream
+	 * 		an input stream for reading <em>UAS data</em>
+	 * @param charset
+	 * 		the character set in which the data should be read
+	 * @param lazyPatterns
+	 * 		{@code true} to compile regular expressions on first use, otherwise {@code false}
+	 *
+	 * @return read in <em>UAS data</em> as {@code Data} instance
+	 */
+	protected static Data readXml(@javax.validation.constraints.NotNull InputStream inputStream, @javax.validation.constraints.NotNull Charset charset,
+	                              boolean lazyPatterns)
+	{
+		return readXml(inputStream, charset, lazyPatterns, true);
+	}
+
+	/**
+	 * Reads the <em>UAS data</em> in XML format from the given stream, optionally without compiling the regular
+	 * expressions before first use and optionally with the non-validating streaming parser.
+	 *
+	 * @param inputStream
+	 * 		an input stream for reading <em>UAS data</em>
+	 * @param charset
+	 * 		the character set in which the data should be read
+	 * @param lazyPatterns
+	 * 		{@code true} to compile regular expressions on first use, otherwise {@code false}
+	 * @param validating
+	 * 		{@code true} to validate the document against its DTD, {@code false} to read it with the streaming parser
+	 *
+	 * @return read in <em>UAS data</em> as {@code Data} instance
+	 */
+	protected static Data readXml(@javax.validation.constraints.NotNull InputStream inputStream, @javax.validation.constraints.NotNull Charset charset,
+	                              boolean lazyPatterns, boolean validating)
+	{
+		return readXml(inputStream, charset, lazyPatterns, validating, Data.EMPTY);
+	}
+
+	/**
+	 * Reads the <em>UAS data</em> in XML format from the given stream like
+	 * {@link #readXml(InputStream, Charset, boolean, boolean)}, but reuses the patterns and entries of the given
+	 * previous data which have not been changed.
+	 *
+	 * @param inputStream
+	 * 		an input stream for reading <em>UAS data</em>
+	 * @param charset
+	 * 		the character set in which the data should be read
+	 * @param lazyPatterns
+	 * 		{@code true} to compile regular expressions on first use, otherwise {@code false}
+	 * @param validating
+	 * 		{@code true} to validate the document against its DTD, {@code false} to read it with the streaming parser
+	 * @param previous
+	 * 		previously read <em>UAS data</em> or {@link Data#EMPTY}
+	 *
+	 * @return read in <em>UAS data</em> as {@code Data} instance
+	 */
+	protected static Data readXml(@javax.validation.constraints.NotNull InputStream inputStream, @javax.validation.constraints.NotNull Charset charset,
+	                              boolean lazyPatterns, boolean validating, @javax.validation.constraints.NotNull Data previous)
 	{
 		Check.notNull(inputStream, "inputStream");
 		Check.notNull(charset, "charset");
+		Check.notNull(previous, "previous");
 
-		DataBuilder builder = new DataBuilder();
-		boolean hasErrors = false;
+		DataBuilder builder = new DataBuilder().setLazyPatterns(lazyPatterns)
+		                                       .setPrevious(previous);
+		Data data = Data.EMPTY;
+		InputStream stream = inputStream;
 		try
 		{
-			XmlParser.parse(inputStream, builder);
+			stream = CompressionUtil.decompressIfNecessary(inputStream);
+			if (validating)
+			{
+				XmlParser.parse(stream, builder);
+				data = builder.build();
+			}
+			else
+			{
+				data = XmlDataStreamParser.parse(stream, builder);
+			}
 		}
 		catch (Exception e)
 		{
-			hasErrors = true;
+			data = Data.EMPTY;
 			LOG.log(Level.SEVERE, e.getLocalizedMessage(), e);
 		}
 		finally
 		{
-			Closeables.closeAndConvert(inputStream, true);
+			Closeables.closeAndConvert(stream, true);
 		}
 
-		return hasErrors ? Data.EMPTY : builder.build();
+		return data;
 	}
 
 	protected static final class XmlParser
@@ -15,15 +15,28 @@
  ******************************************************************************/
 package net.sf.uadetector.datastore;
 
+import net.sf.uadetector.VersionNumber;
 import net.sf.uadetector.datareader.DataReader;
 import net.sf.uadetector.exception.CanNotOpenStreamException;
 import net.sf.uadetector.exception.IllegalStateOfArgumentException;
 import net.sf.uadetector.internal.Check;
 import net.sf.uadetector.internal.data.Data;
+import net.sf.uadetector.internal.data.DataDiff;
 import net.sf.uadetector.internal.util.UrlUtil;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 
 /**
@@ -34,6 +47,11 @@ import java.util.logging.Level;
  * <p>
  * Such a store must always have an usable instance of {@link Data} and should be initialized with the supplied UAS file
  * in the <em>uadetector-resources</em> module.
+ * <p>
+ * New <em>UAS data</em> will be swapped in stages: the update operation reads and builds them in background, then they
+ * will be warmed up (see {@link #setWarmUpSample(Collection)}) and finally published atomically. Requests keep working
+ * on the previous data until the new data are ready, so that a refresh does not cause latency spikes. By default a
+ * small sample of common user agent strings, which is bundled with this library, will be used for warming up.
  *
  * @author André Rouél
  */
@@ -45,6 +63,14 @@ public abstract class AbstractRefreshableDataStore
 	 * Corresponding default logger for this class
 	 */
 	private static final java.util.logging.Logger LOG = java.util.logging.Logger.getLogger(AbstractRefreshableDataStore.class.toString());
+	/**
+	 * Name of the bundled resource with the default sample of user agent strings to warm up new <em>UAS data</em>
+	 */
+	private static final String WARM_UP_SAMPLE = "warm-up-sample.txt";
+	/**
+	 * Default sample of user agent strings to warm up new <em>UAS data</em>
+	 */
+	private static final List<String> DEFAULT_WARM_UP_SAMPLE = readWarmUpSample(WARM_UP_SAMPLE);
 	/**
 	 * Current the character set in which the <em>UAS data</em> will be read
 	 */
@@ -58,6 +84,10 @@ public abstract class AbstractRefreshableDataStore
 	 * cases.
 	 */
 	private final DataStore fallback;
+	/**
+	 * Listeners which will be notified when the <em>UAS data</em> have been replaced
+	 */
+	private final List<DataStoreListener> listeners = new CopyOnWriteArrayList<>();
 	/**
 	 * The data reader to read in <em>UAS data</em>
 	 */
@@ -67,9 +97,17 @@ public abstract class AbstractRefreshableDataStore
 	 */
 	private final URL versionUrl;
 	/**
-	 * Current <em>UAS data</em>
+	 * Current <em>UAS data</em>, which will be replaced atomically
 	 */
-	private Data data;
+	private volatile Data data;
+	/**
+	 * User agent strings to replay through new <em>UAS data</em> before they will be published
+	 */
+	private volatile List<String> warmUpSample = DEFAULT_WARM_UP_SAMPLE;
+	/**
+	 * Function which replays a sample of user agent strings through new <em>UAS data</em>
+	 */
+	private volatile BiConsumer<Data, List<String>> warmUpFunction = Data::warmUp;
 	/**
 	 * Update operation which runs itself in background (non-blocking)
 	 */
@@ -157,6 +195,42 @@ public abstract class AbstractRefreshableDataStore
 		return data;
 	}
 
+	/**
+	 * Reads the bundled sample of user agent strings with the given name. Empty lines and lines starting with
+	 * {@code #} will be skipped.
+	 *
+	 * @param name
+	 * 		name of the resource relative to the package {@code net.sf.uadetector}
+	 *
+	 * @return read in user agent strings or an empty list if the resource can not be read
+	 */
+	@javax.validation.constraints.NotNull
+	private static List<String> readWarmUpSample(@javax.validation.constraints.NotNull String name)
+	{
+		List<String> sample = new ArrayList<>();
+		InputStream stream = VersionNumber.class.getResourceAsStream(name);
+		if (stream == null)
+		{
+			LOG.warning("The warm-up sample '" + name + "' can not be found.");
+			return Collections.emptyList();
+		}
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)))
+		{
+			for (String line = reader.readLine(); line != null; line = reader.readLine())
+			{
+				if (!line.isEmpty() && !line.startsWith("#"))
+				{
+					sample.add(line);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			LOG.log(Level.WARNING, "The warm-up sample '" + name + "' can not be read: " + e.getLocalizedMessage(), e);
+		}
+		return Collections.unmodifiableList(sample);
+	}
+
 	@Override
 	public Charset getCharset()
 	{
@@ -188,7 +262,10 @@ public abstract class AbstractRefreshableDataStore
 	}
 
 	/**
-	 * Sets new <em>UAS data</em> in the store.
+	 * Sets new <em>UAS data</em> in the store.<br>
+	 * <br>
+	 * The given data will be warmed up in the calling thread, which is usually the thread of the update operation, and
+	 * published afterwards. Until then {@link #getData()} returns the previous data.
 	 *
 	 * @param data
 	 * 		<em>UAS data</em> to override the current ({@code null} is not allowed)
@@ -202,16 +279,94 @@ public abstract class AbstractRefreshableDataStore
 	protected void setData(@javax.validation.constraints.NotNull Data data)
 	{
 		Check.notNull(data, "data");
+		checkData(data);
 
-		this.data = checkData(data);
+		long warmUpStart = System.nanoTime();
+		warmUpFunction.accept(data, warmUpSample);
+		long warmUpNanos = System.nanoTime() - warmUpStart;
+		Data previous = this.data;
+		this.data = data;
+		fireDataChanged(new DataChangedEvent(this, previous, data, System.currentTimeMillis(), warmUpNanos));
 
 		// add some useful UAS data informations to the log
 		if (Check.isDebugEnabled())
 		{
 			LOG.finer(data.toStats());
+			LOG.finer(DataDiff.compute(previous, data)
+			                  .toString());
+		}
+	}
+
+	@Override
+	public void addDataStoreListener(@javax.validation.constraints.NotNull DataStoreListener listener)
+	{
+		Check.notNull(listener, "listener");
+		listeners.add(listener);
+	}
+
+	@Override
+	public void removeDataStoreListener(@javax.validation.constraints.NotNull DataStoreListener listener)
+	{
+		Check.notNull(listener, "listener");
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Notifies all registered listeners about the given change. A failing listener will be logged and does not prevent
+	 * the notification of the other listeners.
+	 *
+	 * @param event
+	 * 		information about the replaced and the published data
+	 */
+	private void fireDataChanged(@javax.validation.constraints.NotNull DataChangedEvent event)
+	{
+		for (DataStoreListener listener : listeners)
+		{
+			try
+			{
+				listener.dataChanged(event);
+			}
+			catch (RuntimeException e)
+			{
+				LOG.log(Level.WARNING, "A listener failed to process " + event + ": " + e.getLocalizedMessage(), e);
+			}
 		}
 	}
 
+	/**
+	 * Sets the function which replays a sample of user agent strings through new <em>UAS data</em> before they will be
+	 * published. By default only the pattern indexes will be warmed up (see {@link Data#warmUp(Iterable)}), a parser
+	 * can set a function which detects the sample in the same way as a request does.
+	 *
+	 * @param warmUpFunction
+	 * 		function which receives the new <em>UAS data</em> and the sample of user agent strings
+	 * 		<p>
+	 * 		<p>
+	 * 		if the given argument is {@code null}
+	 */
+	public void setWarmUpFunction(@javax.validation.constraints.NotNull BiConsumer<Data, List<String>> warmUpFunction)
+	{
+		this.warmUpFunction = Check.notNull(warmUpFunction, "warmUpFunction");
+	}
+
+	/**
+	 * Sets the user agent strings which will be replayed through new <em>UAS data</em> before they will be published,
+	 * instead of the bundled default sample. A representative sample of recently parsed user agent strings is
+	 * recommended, so that the patterns and indexes which are needed most are warm. In the lazy pattern mode only the
+	 * regular expressions which are needed to detect the sample will be compiled before publishing.
+	 *
+	 * @param userAgentStrings
+	 * 		sample of user agent strings, which will be copied
+	 * 		<p>
+	 * 		<p>
+	 * 		if the given argument is {@code null}
+	 */
+	public void setWarmUpSample(@javax.validation.constraints.NotNull Collection<String> userAgentStrings)
+	{
+		Check.notNull(userAgentStrings, "userAgentStrings");
+		warmUpSample = Collections.unmodifiableList(new ArrayList<>(userAgentStrings));
+	}
+
 	@Override
 	public DataStore getFallback()
 	{
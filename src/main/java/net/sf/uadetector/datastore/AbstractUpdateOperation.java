@@ -19,7 +19,6 @@ import net.sf.uadetector.internal.Check;
 import net.sf.uadetector.internal.util.ExecutorServices;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.net.URL;
@@ -99,6 +98,20 @@ public abstract class AbstractUpdateOperation
 	 * Time of last update check in milliseconds
 	 */
 	private long lastUpdateCheck = 0;
+	/**
+	 * Fetcher to request the version and the UAS data conditionally
+	 */
+	@javax.validation.constraints.NotNull
+	private volatile UrlFetcher fetcher = new UrlFetcher();
+	/**
+	 * Remote version of the last confirmed response, which will be used if the version information has not been
+	 * modified since then
+	 */
+	private String remoteVersion = EMPTY_VERSION;
+	/**
+	 * Whether the most recent call failed
+	 */
+	private volatile boolean failed;
 
 	public AbstractUpdateOperation(@javax.validation.constraints.NotNull RefreshableDataStore dataStore)
 	{
@@ -106,6 +119,29 @@ public abstract class AbstractUpdateOperation
 		store = dataStore;
 	}
 
+	/**
+	 * Gets the fetcher to request the version information and the UAS data.
+	 *
+	 * @return fetcher for remote resources
+	 */
+	@javax.validation.constraints.NotNull
+	protected UrlFetcher getFetcher()
+	{
+		return fetcher;
+	}
+
+	/**
+	 * Sets the fetcher to request the version information and the UAS data, for example to change the timeouts or the
+	 * backoff after failures.
+	 *
+	 * @param fetcher
+	 * 		fetcher for remote resources
+	 */
+	public void setFetcher(@javax.validation.constraints.NotNull UrlFetcher fetcher)
+	{
+		this.fetcher = Check.notNull(fetcher, "fetcher");
+	}
+
 	/**
 	 * Gets the time of the last update check in milliseconds.
 	 *
@@ -117,6 +153,23 @@ public abstract class AbstractUpdateOperation
 		return lastUpdateCheck;
 	}
 
+	@Override
+	public boolean hasFailed()
+	{
+		return failed;
+	}
+
+	/**
+	 * Records whether the current call failed.
+	 *
+	 * @param failed
+	 * 		{@code true} if the current call failed, otherwise {@code false}
+	 */
+	protected void setFailed(boolean failed)
+	{
+		this.failed = failed;
+	}
+
 	/**
 	 * Shuts down the corresponding background executor as soon as possible, but at the latest specified default time.
 	 *
@@ -129,7 +182,7 @@ public abstract class AbstractUpdateOperation
 	}
 
 	/**
-	 * Fetches the current version information over HTTP and compares it with the last version of the most recently
+	 * Fetches the current version information (conditionally over HTTP) and compares it with the last version of the most recently
 	 * imported data.
 	 *
 	 * @return {@code true} if an update exists, otherwise {@code false}
@@ -141,9 +194,11 @@ public abstract class AbstractUpdateOperation
 		try
 		{
 			version = retrieveRemoteVersion(store.getVersionUrl(), store.getCharset());
+			setFailed(false);
 		}
 		catch (IOException e)
 		{
+			setFailed(true);
 			LOG.info(MSG_NO_UPDATE_CHECK_POSSIBLE);
 			LOG.log(Level.FINER, String.format(MSG_NO_UPDATE_CHECK_POSSIBLE__DEBUG, e.getClass()
 			                                                                         .getName(), e.getLocalizedMessage()), e);
@@ -163,24 +218,32 @@ public abstract class AbstractUpdateOperation
 
 	/**
 	 * Reads the current User-Agent data version from <a
-	 * href="http://data.udger.com">http://data.udger.com</a>.
+	 * href="http://data.udger.com">http://data.udger.com</a>. If the version information has not been modified since
+	 * the last request, the previously read version will be returned.
 	 *
 	 * @param url
 	 * 		a URL which the version information can be loaded
 	 *
-	 * @return a version string or {@code null}
+	 * @return a version string, never {@code null}
 	 *
 	 * @throws IOException
 	 * 		if an I/O exception occurs
 	 */
-
-	private static String retrieveRemoteVersion(@javax.validation.constraints.NotNull URL url, @javax.validation.constraints.NotNull Charset charset) throws IOException
+	private synchronized String retrieveRemoteVersion(@javax.validation.constraints.NotNull URL url, @javax.validation.constraints.NotNull Charset charset) throws IOException
 	{
-		try (InputStream stream = url.openStream();
-		     InputStreamReader reader = new InputStreamReader(stream, charset);
-		     LineNumberReader lnr = new LineNumberReader(reader))
+		UrlFetcher urlFetcher = fetcher;
+		try (UrlFetcher.Response response = urlFetcher.fetch(url))
 		{
-			return lnr.readLine();
+			if (response.isModified())
+			{
+				try (LineNumberReader lnr = new LineNumberReader(new InputStreamReader(response.getInputStream(), charset)))
+				{
+					String version = lnr.readLine();
+					remoteVersion = version != null ? version : EMPTY_VERSION;
+				}
+				urlFetcher.confirm(response);
+			}
+			return remoteVersion;
 		}
 	}
 
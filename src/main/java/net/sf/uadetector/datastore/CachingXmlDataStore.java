@@ -15,16 +15,22 @@
  ******************************************************************************/
 package net.sf.uadetector.datastore;
 
+import net.sf.uadetector.datareader.BinaryDataReader;
 import net.sf.uadetector.datareader.DataReader;
 import net.sf.uadetector.datareader.XmlDataReader;
 import net.sf.uadetector.exception.IllegalStateOfArgumentException;
 import net.sf.uadetector.internal.Check;
 import net.sf.uadetector.internal.data.Data;
+import net.sf.uadetector.internal.util.CompressionUtil;
 import net.sf.uadetector.internal.util.FileUtil;
 import net.sf.uadetector.internal.util.UrlUtil;
+import net.sf.uadetector.writer.BinaryDataWriter;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.logging.Level;
@@ -33,7 +39,14 @@ import java.util.logging.Level;
  * Implementation of a {@link DataStore} which is able to recover <em>UAS data</em> in XML format from a cache file. If
  * the cache file is empty, the data will be read from the given data URL.<br>
  * <br>
- * You can also update the data of the store at any time if you trigger {@link CachingXmlDataStore#refresh()}.
+ * You can also update the data of the store at any time if you trigger {@link CachingXmlDataStore#refresh()}.<br>
+ * <br>
+ * Next to the cache file a binary snapshot of the read in data will be kept (see {@link BinaryDataWriter}). As long as
+ * the snapshot is not older than the cache file it will be loaded instead of parsing the XML again.<br>
+ * <br>
+ * A cache file whose name ends with {@value CompressionUtil#GZIP_SUFFIX} (see {@link #findOrCreateCacheFile(boolean)})
+ * will be written GZIP compressed, which reduces its size to a fraction. Compressed cache files will be detected by
+ * their content and decompressed while reading.
  *
  * @author André Rouél
  */
@@ -64,6 +77,14 @@ public final class CachingXmlDataStore
 	 * Message if the cache file contains unexpected data and has been removed
 	 */
 	private static final String MSG_CACHE_FILE_IS_DAMAGED_AND_DELETED = "The cache file '%s' is damaged and has been deleted.";
+	/**
+	 * Message for the log if the snapshot of the cache file has been loaded
+	 */
+	private static final String MSG_SNAPSHOT_LOADED = "The snapshot of the cache file has been imported.";
+	/**
+	 * Message if the snapshot of the cache file can not be written
+	 */
+	private static final String MSG_SNAPSHOT_NOT_WRITTEN = "The snapshot '%s' of the cache file could not be written.";
 	/**
 	 * The prefix string to be used in generating the cache file's name; must be at least three characters long
 	 */
@@ -73,6 +94,10 @@ public final class CachingXmlDataStore
 	 * {@code .tmp}" will be used
 	 */
 	private static final String SUFFIX = ".xml";
+	/**
+	 * The suffix which will be appended to the name of the cache file to name its binary snapshot
+	 */
+	private static final String SNAPSHOT_SUFFIX = ".bin";
 
 	/**
 	 * Constructs an {@code CachingXmlDataStore} with the given arguments.
@@ -181,7 +206,27 @@ public final class CachingXmlDataStore
 	@javax.validation.constraints.NotNull
 	public static File findOrCreateCacheFile()
 	{
-		File file = new File(CACHE_DIR, PREFIX + SUFFIX);
+		return findOrCreateCacheFile(false);
+	}
+
+	/**
+	 * Gets the cache file for <em>UAS data</em> in the default temporary-file directory. If no cache file exists, a new
+	 * empty file in the default temporary-file directory will be created, using the default prefix and suffix to
+	 * generate its name. The name of a compressed cache file additionally ends with
+	 * {@value CompressionUtil#GZIP_SUFFIX}.
+	 *
+	 * @param compressed
+	 * 		{@code true} to get a cache file which will be written GZIP compressed, otherwise {@code false}
+	 *
+	 * @return file to cache read in <em>UAS data</em>
+	 *
+	 * @throws net.sf.uadetector.exception.IllegalStateOfArgumentException
+	 * 		if the cache file can not be created
+	 */
+	@javax.validation.constraints.NotNull
+	public static File findOrCreateCacheFile(boolean compressed)
+	{
+		File file = new File(CACHE_DIR, PREFIX + SUFFIX + (compressed ? CompressionUtil.GZIP_SUFFIX : ""));
 		if (!file.exists())
 		{
 			try
@@ -223,8 +268,18 @@ public final class CachingXmlDataStore
 			URL cacheFileUrl = UrlUtil.toUrl(cacheFile);
 			try
 			{
-				fallbackDataStore = new CacheFileDataStore(reader.read(cacheFileUrl, charset), reader, cacheFileUrl, charset);
-				log.finer(MSG_CACHE_FILE_IS_FILLED);
+				Data data = readSnapshot(cacheFile);
+				if (Data.EMPTY.equals(data))
+				{
+					data = reader.read(cacheFileUrl, charset);
+					writeSnapshot(data, cacheFile);
+					log.finer(MSG_CACHE_FILE_IS_FILLED);
+				}
+				else
+				{
+					log.finer(MSG_SNAPSHOT_LOADED);
+				}
+				fallbackDataStore = new CacheFileDataStore(data, reader, cacheFileUrl, charset);
 			}
 			catch (RuntimeException e)
 			{
@@ -272,6 +327,7 @@ public final class CachingXmlDataStore
 	 */
 	private static void deleteCacheFile(File cacheFile)
 	{
+		deleteSnapshot(cacheFile);
 		try
 		{
 			if (cacheFile.delete())
@@ -289,6 +345,99 @@ public final class CachingXmlDataStore
 		}
 	}
 
+	/**
+	 * Removes the binary snapshot of the given cache file, if any.
+	 *
+	 * @param cacheFile
+	 * 		cache file whose snapshot should be removed
+	 */
+	private static void deleteSnapshot(@javax.validation.constraints.NotNull File cacheFile)
+	{
+		File snapshotFile = getSnapshotFile(cacheFile);
+		if (snapshotFile.exists() && !snapshotFile.delete())
+		{
+			log.warning(String.format(MSG_CACHE_FILE_IS_DAMAGED, snapshotFile.getPath()));
+		}
+	}
+
+	/**
+	 * Gets the file of the binary snapshot which belongs to the given cache file.
+	 *
+	 * @param cacheFile
+	 * 		file with cached <em>UAS data</em> in XML format
+	 *
+	 * @return file of the binary snapshot
+	 */
+	@javax.validation.constraints.NotNull
+	static File getSnapshotFile(@javax.validation.constraints.NotNull File cacheFile)
+	{
+		return new File(cacheFile.getParentFile(), cacheFile.getName() + SNAPSHOT_SUFFIX);
+	}
+
+	/**
+	 * Reads the binary snapshot of the given cache file. A missing snapshot or one which is older than the cache file
+	 * will not be read.
+	 *
+	 * @param cacheFile
+	 * 		file with cached <em>UAS data</em> in XML format
+	 *
+	 * @return <em>UAS data</em> of the snapshot or {@link Data#EMPTY} if no up-to-date snapshot is available
+	 */
+	@javax.validation.constraints.NotNull
+	static Data readSnapshot(@javax.validation.constraints.NotNull File cacheFile)
+	{
+		Check.notNull(cacheFile, "cacheFile");
+
+		File snapshotFile = getSnapshotFile(cacheFile);
+		if (snapshotFile.length() == 0 || snapshotFile.lastModified() < cacheFile.lastModified())
+		{
+			return Data.EMPTY;
+		}
+		return new BinaryDataReader().read(UrlUtil.toUrl(snapshotFile), DEFAULT_CHARSET);
+	}
+
+	/**
+	 * Writes a binary snapshot of the given <em>UAS data</em> next to the given cache file. Because the snapshot only
+	 * speeds up the next import, failures will be logged but not passed on.
+	 *
+	 * @param data
+	 * 		<em>UAS data</em> which have been read from the cache file
+	 * @param cacheFile
+	 * 		file with cached <em>UAS data</em> in XML format
+	 */
+	static void writeSnapshot(@javax.validation.constraints.NotNull Data data, @javax.validation.constraints.NotNull File cacheFile)
+	{
+		Check.notNull(data, "data");
+		Check.notNull(cacheFile, "cacheFile");
+
+		if (Data.EMPTY.equals(data))
+		{
+			return;
+		}
+
+		File snapshotFile = getSnapshotFile(cacheFile);
+		File tempFile = new File(snapshotFile.getParentFile(), snapshotFile.getName() + ".temp");
+		try
+		{
+			try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(tempFile)))
+			{
+				BinaryDataWriter.write(data, outputStream);
+			}
+			if (snapshotFile.exists() && !snapshotFile.delete() || !tempFile.renameTo(snapshotFile))
+			{
+				throw new IOException("Renaming file from '" + tempFile.getPath() + "' to '" + snapshotFile.getPath() + "' failed.");
+			}
+		}
+		catch (IOException e)
+		{
+			log.log(Level.WARNING, String.format(MSG_SNAPSHOT_NOT_WRITTEN, snapshotFile.getPath()), e);
+			if (tempFile.exists() && !tempFile.delete())
+			{
+				log.warning(String.format(MSG_CACHE_FILE_IS_DAMAGED, tempFile.getPath()));
+			}
+		}
+	}
+
 	/**
 	 * @param fallback
 	 *
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.datastore;
+
+import net.sf.uadetector.internal.Check;
+import net.sf.uadetector.internal.data.Data;
+
+/**
+ * Describes the replacement of the <em>UAS data</em> of a {@link RefreshableDataStore}, which will be passed to every
+ * registered {@link DataStoreListener}.<br>
+ * <br>
+ * An instance of {@code DataChangedEvent} is immutable.
+ *
+ * @author André Rouél
+ */
+public final class DataChangedEvent
+{
+
+	/**
+	 * <em>UAS data</em> which have been published
+	 */
+	@javax.validation.constraints.NotNull
+	private final Data currentData;
+
+	/**
+	 * <em>UAS data</em> which have been replaced
+	 */
+	@javax.validation.constraints.NotNull
+	private final Data previousData;
+
+	/**
+	 * Time in milliseconds since midnight, January 1, 1970 UTC when the data have been published
+	 */
+	private final long publishTime;
+
+	/**
+	 * Store whose data have been replaced
+	 */
+	@javax.validation.constraints.NotNull
+	private final RefreshableDataStore store;
+
+	/**
+	 * Time in nanoseconds which was needed to warm up the published data
+	 */
+	private final long warmUpNanos;
+
+	/**
+	 * Constructs a {@code DataChangedEvent}.
+	 *
+	 * @param store
+	 * 		store whose data have been replaced
+	 * @param previousData
+	 * 		replaced <em>UAS data</em>
+	 * @param currentData
+	 * 		published <em>UAS data</em>
+	 * @param publishTime
+	 * 		time in milliseconds since midnight, January 1, 1970 UTC when the data have been published
+	 * @param warmUpNanos
+	 * 		time in nanoseconds which was needed to warm up the published data
+	 *
+	 * @throws net.sf.uadetector.exception.IllegalNullArgumentException
+	 * 		if one of the given arguments is {@code null}
+	 * @throws net.sf.uadetector.exception.IllegalNegativeArgumentException
+	 * 		if the given warm up time is negative
+	 */
+	public DataChangedEvent(@javax.validation.constraints.NotNull RefreshableDataStore store, @javax.validation.constraints.NotNull Data previousData,
+	                        @javax.validation.constraints.NotNull Data currentData, long publishTime, long warmUpNanos)
+	{
+		this.store = Check.notNull(store, "store");
+		this.previousData = Check.notNull(previousData, "previousData");
+		this.currentData = Check.notNull(currentData, "currentData");
+		this.publishTime = publishTime;
+		this.warmUpNanos = Check.notNegative(warmUpNanos, "warmUpNanos");
+	}
+
+	/**
+	 * Gets the <em>UAS data</em> which have been published.
+	 *
+	 * @return published data
+	 */
+	@javax.validation.constraints.NotNull
+	public Data getCurrentData()
+	{
+		return currentData;
+	}
+
+	/**
+	 * Gets the <em>UAS data</em> which have been replaced.
+	 *
+	 * @return replaced data
+	 */
+	@javax.validation.constraints.NotNull
+	public Data getPreviousData()
+	{
+		return previousData;
+	}
+
+	/**
+	 * Gets the time when the data have been published.
+	 *
+	 * @return time in milliseconds since midnight, January 1, 1970 UTC
+	 */
+	public long getPublishTime()
+	{
+		return publishTime;
+	}
+
+	/**
+	 * Gets the store whose data have been replaced.
+	 *
+	 * @return the changed store
+	 */
+	@javax.validation.constraints.NotNull
+	public RefreshableDataStore getStore()
+	{
+		return store;
+	}
+
+	/**
+	 * Gets the time which was needed to warm up the published data before they replaced the previous data.
+	 *
+	 * @return warm up time in nanoseconds
+	 */
+	public long getWarmUpNanos()
+	{
+		return warmUpNanos;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder();
+		builder.append("DataChangedEvent [previousVersion=");
+		builder.append(previousData.getVersion());
+		builder.append(", currentVersion=");
+		builder.append(currentData.getVersion());
+		builder.append(", currentGeneration=");
+		builder.append(currentData.getGeneration());
+		builder.append(", publishTime=");
+		builder.append(publishTime);
+		builder.append(", warmUpNanos=");
+		builder.append(warmUpNanos);
+		builder.append("]");
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.datastore;
+
+/**
+ * Listener which will be notified when a {@link RefreshableDataStore} has replaced its <em>UAS data</em>.<br>
+ * <br>
+ * Caches, indexes or precomputed tables built on top of the data of a store can register a listener to be invalidated
+ * once per change instead of comparing the version of the data on every request.
+ *
+ * @author André Rouél
+ */
+public interface DataStoreListener
+{
+
+	/**
+	 * Will be called after new <em>UAS data</em> have been published in a store. The call happens in the thread which
+	 * updated the store, usually the thread of the update operation, so implementations should return quickly.
+	 *
+	 * @param event
+	 * 		information about the replaced and the published <em>UAS data</em>
+	 */
+	void dataChanged(@javax.validation.constraints.NotNull DataChangedEvent event);
+
+}
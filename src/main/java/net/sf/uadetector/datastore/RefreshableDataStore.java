@@ -35,6 +35,14 @@ public interface RefreshableDataStore
 	 */
 	String MSG_URL_NOT_READABLE = "The data can not be read from the specified URL: %s";
 
+	/**
+	 * Registers a listener which will be notified every time this store has replaced its <em>UAS data</em>.
+	 *
+	 * @param listener
+	 * 		listener to register
+	 */
+	void addDataStoreListener(@javax.validation.constraints.NotNull DataStoreListener listener);
+
 	/**
 	 * This method returns a data store which will be used during start up and can be used in emergency cases.
 	 * <p>
@@ -59,4 +67,12 @@ public interface RefreshableDataStore
 	 */
 	void refresh();
 
+	/**
+	 * Removes a previously registered listener. Nothing happens if the given listener is not registered.
+	 *
+	 * @param listener
+	 * 		listener to remove
+	 */
+	void removeDataStoreListener(@javax.validation.constraints.NotNull DataStoreListener listener);
+
 }
@@ -44,6 +44,17 @@ public interface UpdateOperation
 	 */
 	long getLastUpdateCheck();
 
+	/**
+	 * Checks whether the most recent call of this operation failed, for example because the remote resources were not
+	 * reachable. Schedulers can use this to retry sooner than in the regular interval.
+	 *
+	 * @return {@code true} if the most recent call failed, otherwise {@code false}
+	 */
+	default boolean hasFailed()
+	{
+		return false;
+	}
+
 	/**
 	 * Shuts down the corresponding background executor.
 	 */
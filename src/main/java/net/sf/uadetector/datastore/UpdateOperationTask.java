@@ -17,10 +17,23 @@ package net.sf.uadetector.datastore;
 
 import net.sf.uadetector.internal.data.Data;
 
+import java.io.IOException;
+import java.util.logging.Level;
+
 final class UpdateOperationTask
 		extends AbstractUpdateOperation
 {
 
+	/**
+	 * Corresponding default logger for this class
+	 */
+	private static final java.util.logging.Logger LOG = java.util.logging.Logger.getLogger(UpdateOperationTask.class.toString());
+
+	/**
+	 * Message for the log if the UAS data can not be fetched
+	 */
+	private static final String MSG_URL_NOT_READABLE = "The UAS data can not be fetched from '%s'.";
+
 	/**
 	 * The data store for instances that implements {@link net.sf.uadetector.internal.data.Data}
 	 */
@@ -37,9 +50,31 @@ final class UpdateOperationTask
 	{
 		if (isUpdateAvailable())
 		{
-			Data data = store.getDataReader()
-			                 .read(store.getDataUrl(), store.getCharset());
-			store.setData(data);
+			UrlFetcher fetcher = getFetcher();
+			try (UrlFetcher.Response response = fetcher.fetch(store.getDataUrl()))
+			{
+				if (response.isModified())
+				{
+					Data data = store.getDataReader()
+					                 .read(response.getInputStream(), store.getCharset(), store.getData());
+					if (Data.EMPTY.equals(data))
+					{
+						// closing the unconfirmed response counts as a failed request
+						setFailed(true);
+						LOG.warning(String.format(MSG_URL_NOT_READABLE, store.getDataUrl()));
+					}
+					else
+					{
+						store.setData(data);
+						fetcher.confirm(response);
+					}
+				}
+			}
+			catch (IOException e)
+			{
+				setFailed(true);
+				LOG.log(Level.WARNING, String.format(MSG_URL_NOT_READABLE, store.getDataUrl()), e);
+			}
 		}
 	}
 
@@ -18,20 +18,48 @@ package net.sf.uadetector.datastore;
 import net.sf.uadetector.exception.CanNotOpenStreamException;
 import net.sf.uadetector.internal.Check;
 import net.sf.uadetector.internal.data.Data;
+import net.sf.uadetector.internal.util.CompressionUtil;
 import net.sf.uadetector.internal.util.FileUtil;
 import net.sf.uadetector.internal.util.UrlUtil;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
 import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.logging.Level;
 
+/**
+ * Update operation which downloads newer <em>UAS data</em> into a cache file.<br>
+ * <br>
+ * If multiple processes share the same cache file, only one of them downloads updates. The processes elect it by
+ * locking a file next to the cache file ({@value #LOCK_FILE_SUFFIX}), which the elected process holds until it shuts
+ * down or terminates. All other processes reload the cache file (or its binary snapshot) when it has been modified
+ * instead. If the lock file can not be created, every process updates the cache file on its own.<br>
+ * <br>
+ * Within one virtual machine a lock file will be opened only once and shared by all data stores with the same cache
+ * file, because closing any channel of a locked file would release the lock of the whole process on some platforms.
+ */
 final class UpdateOperationWithCacheFileTask
 		extends AbstractUpdateOperation
 {
 
+	/**
+	 * Suffix of the file which will be locked by the process that downloads updates into the cache file
+	 */
+	static final String LOCK_FILE_SUFFIX = ".lock";
+
+	/**
+	 * Opened lock files of this virtual machine by their canonical path
+	 */
+	private static final Map<String, LockFile> LOCK_FILES = new HashMap<>();
+
 	/**
 	 * Corresponding default logger of this class
 	 */
@@ -42,6 +70,16 @@ final class UpdateOperationWithCacheFileTask
 	 */
 	private static final String MSG_CACHE_FILE_ISSUES = "Issues occured during reading of or writing to the cache file: %s";
 
+	/**
+	 * Message for the log if the lock file can not be used to elect the updating process
+	 */
+	private static final String MSG_LOCK_FILE_ISSUES = "The lock file '%s' can not be used, this process updates the cache file on its own: %s";
+
+	/**
+	 * Message for the log if another process updates the cache file
+	 */
+	private static final String MSG_NOT_ELECTED = "The cache file '%s' will be updated by another process.";
+
 	/**
 	 * Message for the log if the passed resources are the same and an update makes no sense
 	 */
@@ -54,6 +92,18 @@ final class UpdateOperationWithCacheFileTask
 	 * The data store for instances that implements {@link net.sf.uadetector.internal.data.Data}
 	 */
 	private final AbstractRefreshableDataStore store;
+	/**
+	 * Canonical path of the lock file, which is set as long as this data store is elected to update the cache file
+	 */
+	private String lockPath;
+	/**
+	 * Lock on the lock file, which is held as long as this data store is elected to update the cache file
+	 */
+	private FileLock lock;
+	/**
+	 * Time of the last modification of the cache file whose content has been read in
+	 */
+	private long cacheFileModified;
 
 	public UpdateOperationWithCacheFileTask(@javax.validation.constraints.NotNull AbstractRefreshableDataStore dataStore, @javax.validation.constraints.NotNull File cacheFile)
 	{
@@ -62,6 +112,7 @@ final class UpdateOperationWithCacheFileTask
 		Check.notNull(cacheFile, "cacheFile");
 		store = dataStore;
 		this.cacheFile = cacheFile;
+		cacheFileModified = cacheFile.lastModified();
 	}
 
 	/**
@@ -144,23 +195,44 @@ final class UpdateOperationWithCacheFileTask
 	}
 
 	/**
-	 * Reads the content from the given {@link URL} and saves it to the passed file.
+	 * Reads the content from the given {@link URL} and saves it to the passed file. The content will be streamed into a
+	 * temporary file next to the passed one, which replaces it after its content has been read in successfully.
+	 * Compressed content will be decompressed while reading, and written GZIP compressed if the name of the passed file
+	 * ends with {@value CompressionUtil#GZIP_SUFFIX}.<br>
+	 * <br>
+	 * The content is read in only once and the read in data will be returned, reusing the unchanged patterns and
+	 * entries of the given previous data.<br>
+	 * <br>
+	 * The content will be requested with the given fetcher, so the request has timeouts, is conditional and respects
+	 * the backoff after previous failures. If the content has not been modified since the last confirmed request, the
+	 * passed file will not be touched and the given previous data will be returned.
 	 *
 	 * @param file
 	 * 		file in which the entire contents from the given URL can be saved
 	 * @param store
 	 * 		a data store for <em>UAS data</em>
+	 * @param previous
+	 * 		previously read <em>UAS data</em> or {@link Data#EMPTY}
+	 * @param fetcher
+	 * 		fetcher to request the data URL of the given store
 	 * 		<p>
 	 * 		<p>
 	 * 		if any of the passed arguments is {@code null}
 	 *
+	 * @return read in <em>UAS data</em> of the saved file or the given previous data if the content has not been
+	 * 		modified
+	 *
 	 * @throws IOException
 	 * 		if an I/O error occurs
 	 */
-	protected static void readAndSave(@javax.validation.constraints.NotNull File file, @javax.validation.constraints.NotNull DataStore store) throws IOException
+	@javax.validation.constraints.NotNull
+	protected static Data readAndSave(@javax.validation.constraints.NotNull File file, @javax.validation.constraints.NotNull DataStore store,
+	                                  @javax.validation.constraints.NotNull Data previous, @javax.validation.constraints.NotNull UrlFetcher fetcher) throws IOException
 	{
 		Check.notNull(file, "file");
 		Check.notNull(store, "store");
+		Check.notNull(previous, "previous");
+		Check.notNull(fetcher, "fetcher");
 
 		URL url = store.getDataUrl();
 		Charset charset = store.getCharset();
@@ -171,29 +243,43 @@ final class UpdateOperationWithCacheFileTask
 		if (!isEqual)
 		{
 
-			// check if the data can be read in successfully
-			String data = UrlUtil.read(url, charset);
-			if (Data.EMPTY.equals(store.getDataReader()
-			                           .read(data)))
+			// a response which will be closed without confirmation counts as failed request
+			try (UrlFetcher.Response response = fetcher.fetch(url))
 			{
-				throw new IllegalStateException("The read in content can not be transformed to an instance of 'Data'.");
-			}
+				if (!response.isModified())
+				{
+					return previous;
+				}
 
-			File tempFile = createTemporaryFile(file);
-			try (FileOutputStream outputStream = new FileOutputStream(tempFile))
-			{
 				// write data to temporary file
-				outputStream.write(data.getBytes(charset));
+				File tempFile = createTemporaryFile(file);
+				try (InputStream inputStream = CompressionUtil.decompressIfNecessary(response.getInputStream());
+				     OutputStream outputStream = CompressionUtil.newOutputStream(tempFile, CompressionUtil.isCompressed(file)))
+				{
+					CompressionUtil.copy(inputStream, outputStream);
+				}
+
+				// check if the data can be read in successfully
+				Data data = store.getDataReader()
+				                 .read(UrlUtil.toUrl(tempFile), charset, previous);
+				if (Data.EMPTY.equals(data))
+				{
+					deleteFile(tempFile);
+					throw new IllegalStateException("The read in content can not be transformed to an instance of 'Data'.");
+				}
+
 				// delete the original file
 				deleteFile(file);
+				// rename the new file to the original one
+				renameFile(tempFile, file);
+				fetcher.confirm(response);
+				return data;
 			}
-			// rename the new file to the original one
-			renameFile(tempFile, file);
-		}
-		else
-		{
-			LOG.finer(MSG_SAME_RESOURCES);
 		}
+
+		LOG.finer(MSG_SAME_RESOURCES);
+		return store.getDataReader()
+		            .read(UrlUtil.toUrl(file), charset, previous);
 	}
 
 	/**
@@ -219,9 +305,157 @@ final class UpdateOperationWithCacheFileTask
 	}
 
 	@Override
-	public void call()
+	public synchronized void call()
 	{
-		readDataIfNewerAvailable();
+		if (isElected())
+		{
+			// the cache file may have been updated by the previously elected process
+			reloadCacheFile();
+			readDataIfNewerAvailable();
+		}
+		else
+		{
+			LOG.finer(String.format(MSG_NOT_ELECTED, cacheFile.getPath()));
+			reloadCacheFile();
+		}
+	}
+
+	/**
+	 * Checks whether this process is elected to update the cache file by trying to lock the lock file. Once acquired,
+	 * the lock will be held until {@link #shutdown()}. Within this virtual machine only the data store which acquired
+	 * the lock is elected.
+	 *
+	 * @return {@code true} if this data store should update the cache file, otherwise {@code false}
+	 */
+	private boolean isElected()
+	{
+		if (lock != null && lock.isValid())
+		{
+			return true;
+		}
+
+		File file = new File(cacheFile.getParentFile(), cacheFile.getName() + LOCK_FILE_SUFFIX);
+		synchronized (LOCK_FILES)
+		{
+			String path = null;
+			try
+			{
+				path = file.getCanonicalPath();
+				LockFile lockFile = LOCK_FILES.get(path);
+				if (lockFile == null)
+				{
+					lockFile = new LockFile(FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE));
+					LOCK_FILES.put(path, lockFile);
+				}
+				if (lockFile.lock != null && lockFile.lock.isValid())
+				{
+					// the lock is held by another data store within this virtual machine
+					return false;
+				}
+				FileLock acquired = lockFile.channel.tryLock();
+				if (acquired != null)
+				{
+					lockFile.lock = acquired;
+					lockPath = path;
+					lock = acquired;
+					return true;
+				}
+				return false;
+			}
+			catch (IOException e)
+			{
+				LOG.log(Level.WARNING, String.format(MSG_LOCK_FILE_ISSUES, file.getPath(), e.getLocalizedMessage()), e);
+				LockFile lockFile = path != null ? LOCK_FILES.get(path) : null;
+				if (lockFile != null && !lockFile.channel.isOpen())
+				{
+					LOCK_FILES.remove(path);
+				}
+				return true;
+			}
+		}
+	}
+
+	private static void closeQuietly(@javax.validation.constraints.NotNull FileChannel channel)
+	{
+		try
+		{
+			channel.close();
+		}
+		catch (IOException e)
+		{
+			LOG.log(Level.FINE, e.getLocalizedMessage(), e);
+		}
+	}
+
+	/**
+	 * Reads the cache file, which has been updated by another process, if it has been modified since it was read
+	 * last. The binary snapshot will be preferred if it is up to date.
+	 */
+	private void reloadCacheFile()
+	{
+		setFailed(false);
+		long modified = cacheFile.lastModified();
+		if (modified == 0 || modified == cacheFileModified)
+		{
+			return;
+		}
+
+		try
+		{
+			Data data = CachingXmlDataStore.readSnapshot(cacheFile);
+			if (Data.EMPTY.equals(data))
+			{
+				data = store.getDataReader()
+				            .read(UrlUtil.toUrl(cacheFile), store.getCharset(), store.getData());
+			}
+			if (!Data.EMPTY.equals(data))
+			{
+				cacheFileModified = modified;
+				if (isNewerData(store.getData(), data))
+				{
+					store.setData(data);
+				}
+			}
+		}
+		catch (RuntimeException e)
+		{
+			setFailed(true);
+			LOG.log(Level.WARNING, RefreshableDataStore.MSG_FAULTY_CONTENT, e);
+		}
+	}
+
+	/**
+	 * Releases the election to update the cache file and shuts down the corresponding background executor.
+	 */
+	@Override
+	public void shutdown()
+	{
+		synchronized (this)
+		{
+			if (lock != null)
+			{
+				synchronized (LOCK_FILES)
+				{
+					// no other data store of this virtual machine holds a lock on this channel
+					LockFile lockFile = LOCK_FILES.remove(lockPath);
+					try
+					{
+						lock.release();
+					}
+					catch (IOException e)
+					{
+						LOG.log(Level.FINE, e.getLocalizedMessage(), e);
+					}
+					if (lockFile != null)
+					{
+						closeQuietly(lockFile.channel);
+					}
+				}
+				lock = null;
+				lockPath = null;
+			}
+		}
+		super.shutdown();
 	}
 
 	private boolean isCacheFileEmpty()
@@ -235,24 +469,30 @@ final class UpdateOperationWithCacheFileTask
 		{
 			if (isUpdateAvailable() || isCacheFileEmpty())
 			{
-				readAndSave(cacheFile, store);
-				store.setData(store.getDataReader()
-				                   .read(cacheFile.toURI()
-				                                  .toURL(), store.getCharset()));
+				Data data = readAndSave(cacheFile, store, store.getData(), getFetcher());
+				if (data != store.getData())
+				{
+					store.setData(data);
+					cacheFileModified = cacheFile.lastModified();
+					CachingXmlDataStore.writeSnapshot(data, cacheFile);
+				}
 			}
 		}
 		catch (CanNotOpenStreamException e)
 		{
+			setFailed(true);
 			LOG.log(Level.WARNING, String.format(RefreshableDataStore.MSG_URL_NOT_READABLE, e.getLocalizedMessage()), e);
 			readFallbackData();
 		}
 		catch (RuntimeException e)
 		{
+			setFailed(true);
 			LOG.log(Level.WARNING, RefreshableDataStore.MSG_FAULTY_CONTENT, e);
 			readFallbackData();
 		}
 		catch (IOException e)
 		{
+			setFailed(true);
 			LOG.log(Level.WARNING, String.format(MSG_CACHE_FILE_ISSUES, e.getLocalizedMessage()), e);
 			readFallbackData();
 		}
@@ -265,14 +505,14 @@ final class UpdateOperationWithCacheFileTask
 		{
 			if (isCacheFileEmpty())
 			{
-				readAndSave(cacheFile, store.getFallback());
-				Data data = store.getDataReader()
-				                 .read(cacheFile.toURI()
-				                                .toURL(), store.getCharset());
+				// the fallback resource will be read regardless of the backoff after failed updates
+				Data data = readAndSave(cacheFile, store.getFallback(), store.getData(), new UrlFetcher());
 				if (isNewerData(store.getData(), data))
 				{
 					store.setData(data);
 				}
+				cacheFileModified = cacheFile.lastModified();
+				CachingXmlDataStore.writeSnapshot(data, cacheFile);
 			}
 		}
 		catch (CanNotOpenStreamException e)
@@ -289,4 +529,25 @@ final class UpdateOperationWithCacheFileTask
 		}
 	}
 
+	/**
+	 * A lock file which is opened only once within this virtual machine
+	 */
+	private static final class LockFile
+	{
+
+		@javax.validation.constraints.NotNull
+		private final FileChannel channel;
+
+		/**
+		 * Lock of the elected data store of this virtual machine or {@code null}
+		 */
+		private FileLock lock;
+
+		private LockFile(@javax.validation.constraints.NotNull FileChannel channel)
+		{
+			this.channel = channel;
+		}
+
+	}
+
 }
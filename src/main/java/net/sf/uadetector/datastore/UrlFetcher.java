@@ -0,0 +1,403 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.datastore;
+
+import net.sf.uadetector.internal.Check;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Fetches resources for update operations, with conditional requests, timeouts and an exponential backoff after
+ * failures.<br>
+ * <br>
+ * For HTTP resources the validators ({@code ETag} and {@code Last-Modified}) of the last confirmed response will be sent
+ * with the next request ({@code If-None-Match} and {@code If-Modified-Since}), so that an unchanged resource will not be
+ * downloaded again. The validators of a response will only be remembered when the caller has processed its content
+ * successfully and calls {@link #confirm(Response)}. Responses will be requested GZIP compressed and streamed to the
+ * caller, they will never be buffered completely.<br>
+ * <br>
+ * After a failed request no further request will be sent before the backoff time has elapsed. A request fails if the
+ * connection can not be established, the server responds with an error status or the response is closed without having
+ * been confirmed, for example because the transfer of the content stalled or broke off or the content was invalid. The
+ * backoff time starts with the initial backoff and doubles with every consecutive failure up to the maximum backoff. A
+ * confirmed or not modified response resets it.<br>
+ * <br>
+ * Resources of other protocols (like {@code file} or {@code jar}) will be read unconditionally.<br>
+ * <br>
+ * This class is thread-safe.
+ *
+ * @author André Rouél
+ */
+public final class UrlFetcher
+{
+
+	/**
+	 * Default timeout in milliseconds to establish a connection
+	 */
+	public static final int DEFAULT_CONNECT_TIMEOUT = 10 * 1000;
+
+	/**
+	 * Default initial backoff in milliseconds after a failed request
+	 */
+	public static final long DEFAULT_INITIAL_BACKOFF = 60 * 1000L;
+
+	/**
+	 * Default maximum backoff in milliseconds after consecutive failed requests
+	 */
+	public static final long DEFAULT_MAX_BACKOFF = 1000 * 60 * 60 * 6L;
+
+	/**
+	 * Default timeout in milliseconds to wait for data while reading
+	 */
+	public static final int DEFAULT_READ_TIMEOUT = 30 * 1000;
+
+	/**
+	 * Corresponding default logger of this class
+	 */
+	private static final java.util.logging.Logger LOG = java.util.logging.Logger.getLogger(UrlFetcher.class.toString());
+
+	/**
+	 * Message for the log when a request will not be sent because of a previous failure
+	 */
+	private static final String MSG_BACKING_OFF = "A request to '%s' will not be sent before %tc because of previous failures.";
+
+	/**
+	 * Message for the log when a resource has not been modified
+	 */
+	private static final String MSG_NOT_MODIFIED = "The resource '%s' has not been modified since the last request.";
+
+	private final int connectTimeout;
+
+	private final long initialBackoff;
+
+	private final long maxBackoff;
+
+	private final int readTimeout;
+
+	/**
+	 * Validators of the last confirmed responses by URL
+	 */
+	private final Map<String, Validators> validators = new ConcurrentHashMap<>();
+
+	/**
+	 * Number of consecutive failed requests
+	 */
+	private int failures;
+
+	/**
+	 * Time in milliseconds before which no request will be sent
+	 */
+	private long retryTime;
+
+	/**
+	 * Constructs an {@code UrlFetcher} with default timeouts and backoff.
+	 */
+	public UrlFetcher()
+	{
+		this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT, DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF);
+	}
+
+	/**
+	 * Constructs an {@code UrlFetcher}.
+	 *
+	 * @param connectTimeout
+	 * 		timeout in milliseconds to establish a connection, {@code 0} means infinite
+	 * @param readTimeout
+	 * 		timeout in milliseconds to wait for data while reading, {@code 0} means infinite
+	 * @param initialBackoff
+	 * 		backoff in milliseconds after the first failed request
+	 * @param maxBackoff
+	 * 		maximum backoff in milliseconds after consecutive failed requests
+	 *
+	 * @throws net.sf.uadetector.exception.IllegalNegativeArgumentException
+	 * 		if one of the given arguments is negative
+	 * @throws net.sf.uadetector.exception.IllegalStateOfArgumentException
+	 * 		if the maximum backoff is smaller than the initial backoff
+	 */
+	public UrlFetcher(int connectTimeout, int readTimeout, long initialBackoff, long maxBackoff)
+	{
+		this.connectTimeout = Check.notNegative(connectTimeout, "connectTimeout");
+		this.readTimeout = Check.notNegative(readTimeout, "readTimeout");
+		this.initialBackoff = Check.notNegative(initialBackoff, "initialBackoff");
+		this.maxBackoff = Check.notNegative(maxBackoff, "maxBackoff");
+		Check.stateIsTrue(maxBackoff >= initialBackoff, "Argument 'maxBackoff' must not be smaller than 'initialBackoff'.");
+	}
+
+	/**
+	 * Remembers the validators of the given response, so that the next request to the same URL will be conditional,
+	 * and resets the backoff time. This should be called only after the content of the response has been processed
+	 * successfully, otherwise closing the response counts as a failed request.
+	 *
+	 * @param response
+	 * 		response whose content has been processed
+	 */
+	public void confirm(@javax.validation.constraints.NotNull Response response)
+	{
+		Check.notNull(response, "response");
+
+		if (response.isModified() && (response.eTag != null || response.lastModified != null))
+		{
+			validators.put(response.url.toExternalForm(), new Validators(response.eTag, response.lastModified));
+		}
+		if (!response.settled)
+		{
+			response.settled = true;
+			recordSuccess();
+		}
+	}
+
+	/**
+	 * Requests the given resource. For HTTP resources the request will be conditional, if a previous response for the
+	 * same URL has been confirmed.
+	 *
+	 * @param url
+	 * 		URL of the resource
+	 *
+	 * @return response which must be closed by the caller, after its content has been confirmed (see
+	 * 		{@link #confirm(Response)}) if it has been modified
+	 *
+	 * @throws IOException
+	 * 		if the backoff time after a previous failure has not elapsed yet, if no connection can be established or if
+	 * 		the server responds with an error status
+	 */
+	@javax.validation.constraints.NotNull
+	public Response fetch(@javax.validation.constraints.NotNull URL url) throws IOException
+	{
+		Check.notNull(url, "url");
+
+		long retry = getRetryTime();
+		if (retry > System.currentTimeMillis())
+		{
+			throw new IOException(String.format(MSG_BACKING_OFF, url, retry));
+		}
+
+		Response response;
+		try
+		{
+			response = request(url);
+		}
+		catch (IOException e)
+		{
+			recordFailure();
+			throw e;
+		}
+		if (!response.isModified())
+		{
+			// there is no content which could fail
+			recordSuccess();
+		}
+		return response;
+	}
+
+	/**
+	 * Gets the number of consecutive failed requests.
+	 *
+	 * @return number of failures since the last successful request
+	 */
+	public synchronized int getFailures()
+	{
+		return failures;
+	}
+
+	/**
+	 * Gets the time before which no request will be sent because of previous failures.
+	 *
+	 * @return time in milliseconds since midnight, January 1, 1970 UTC or {@code 0} if there was no failure
+	 */
+	public synchronized long getRetryTime()
+	{
+		return retryTime;
+	}
+
+	private synchronized void recordFailure()
+	{
+		long backoff = initialBackoff;
+		for (int i = 0; i < failures && backoff < maxBackoff; i++)
+		{
+			backoff *= 2;
+		}
+		failures++;
+		retryTime = System.currentTimeMillis() + Math.min(backoff, maxBackoff);
+	}
+
+	private synchronized void recordSuccess()
+	{
+		failures = 0;
+		retryTime = 0;
+	}
+
+	@javax.validation.constraints.NotNull
+	private Response request(@javax.validation.constraints.NotNull URL url) throws IOException
+	{
+		URLConnection connection = url.openConnection();
+		connection.setConnectTimeout(connectTimeout);
+		connection.setReadTimeout(readTimeout);
+		if (!(connection instanceof HttpURLConnection))
+		{
+			return new Response(this, url, connection.getInputStream(), null, null);
+		}
+
+		HttpURLConnection http = (HttpURLConnection) connection;
+		http.setRequestProperty("Accept-Encoding", "gzip");
+		Validators last = validators.get(url.toExternalForm());
+		if (last != null)
+		{
+			if (last.eTag != null)
+			{
+				http.setRequestProperty("If-None-Match", last.eTag);
+			}
+			if (last.lastModified != null)
+			{
+				http.setRequestProperty("If-Modified-Since", last.lastModified);
+			}
+		}
+
+		int status = http.getResponseCode();
+		if (status == HttpURLConnection.HTTP_NOT_MODIFIED)
+		{
+			http.disconnect();
+			LOG.finer(String.format(MSG_NOT_MODIFIED, url));
+			return new Response(this, url, null, null, null);
+		}
+		if (status < HttpURLConnection.HTTP_OK || status >= HttpURLConnection.HTTP_MULT_CHOICE)
+		{
+			http.disconnect();
+			throw new IOException("Unexpected response status " + status + " from '" + url + "'.");
+		}
+
+		InputStream stream = http.getInputStream();
+		if ("gzip".equalsIgnoreCase(http.getContentEncoding()))
+		{
+			stream = new GZIPInputStream(stream);
+		}
+		return new Response(this, url, stream, http.getHeaderField("ETag"), http.getHeaderField("Last-Modified"));
+	}
+
+	/**
+	 * Response of a request, whose content must be read from {@link #getInputStream()} if it has been modified. Closing
+	 * a modified response which has not been confirmed (see {@link UrlFetcher#confirm(Response)}) counts as a failed
+	 * request.
+	 */
+	public static final class Response
+			implements Closeable
+	{
+
+		private final String eTag;
+
+		@javax.validation.constraints.NotNull
+		private final UrlFetcher fetcher;
+
+		private final InputStream inputStream;
+
+		private final String lastModified;
+
+		@javax.validation.constraints.NotNull
+		private final URL url;
+
+		/**
+		 * Whether the outcome of the request has already been recorded
+		 */
+		private volatile boolean settled;
+
+		private Response(@javax.validation.constraints.NotNull UrlFetcher fetcher, @javax.validation.constraints.NotNull URL url, InputStream inputStream, String eTag,
+		                 String lastModified)
+		{
+			this.fetcher = fetcher;
+			this.url = url;
+			this.inputStream = inputStream;
+			this.eTag = eTag;
+			this.lastModified = lastModified;
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			if (inputStream != null)
+			{
+				if (!settled)
+				{
+					settled = true;
+					fetcher.recordFailure();
+				}
+				inputStream.close();
+			}
+		}
+
+		/**
+		 * Gets the stream of the content, which is only available if the resource has been modified.
+		 *
+		 * @return stream of the content
+		 *
+		 * @throws net.sf.uadetector.exception.IllegalStateOfArgumentException
+		 * 		if the resource has not been modified
+		 */
+		@javax.validation.constraints.NotNull
+		public InputStream getInputStream()
+		{
+			Check.stateIsTrue(inputStream != null, "The resource '%s' has not been modified.", url.toExternalForm());
+			return inputStream;
+		}
+
+		/**
+		 * Gets the URL of the requested resource.
+		 *
+		 * @return requested URL
+		 */
+		@javax.validation.constraints.NotNull
+		public URL getUrl()
+		{
+			return url;
+		}
+
+		/**
+		 * Checks whether the resource has been modified since the last confirmed response and has content.
+		 *
+		 * @return {@code false} if the server responded that the resource has not been modified, otherwise {@code true}
+		 */
+		public boolean isModified()
+		{
+			return inputStream != null;
+		}
+
+	}
+
+	/**
+	 * Validators of a response to send with a conditional request.
+	 */
+	private static final class Validators
+	{
+
+		private final String eTag;
+
+		private final String lastModified;
+
+		Validators(String eTag, String lastModified)
+		{
+			this.eTag = eTag;
+			this.lastModified = lastModified;
+		}
+
+	}
+
+}
@@ -15,13 +15,21 @@
  ******************************************************************************/
 package net.sf.uadetector.internal.data;
 
+import net.sf.uadetector.DeviceCategory;
+import net.sf.uadetector.UserAgent;
+import net.sf.uadetector.VersionNumber;
+import net.sf.uadetector.ReadableDeviceCategory.Category;
 import net.sf.uadetector.internal.Check;
 import net.sf.uadetector.internal.data.domain.*;
+import net.sf.uadetector.internal.util.StringPool;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class represents the detection information of <i>UADetector</i>.
@@ -35,6 +43,11 @@ public class Data
 		implements Serializable
 {
 
+	/**
+	 * Counter to assign a generation to every created instance, must be initialized before {@link #EMPTY}
+	 */
+	private static final AtomicLong GENERATIONS = new AtomicLong();
+
 	/**
 	 * An <i>immutable</i> empty {@code Data} object.
 	 */
@@ -44,7 +57,7 @@ public class Data
 	                                          new TreeMap<>(), new ArrayList<>(0), new HashSet<>(0),
 	                                          new HashMap<>(0), new TreeMap<>(), "");
 
-	private static final long serialVersionUID = 8522012551928801089L;
+	private static final long serialVersionUID = -3140735628120459213L;
 
 	@javax.validation.constraints.NotNull
 	private final Map<Integer, SortedSet<BrowserPattern>> browserPatterns;
@@ -52,15 +65,33 @@ public class Data
 	@javax.validation.constraints.NotNull
 	private final Set<Browser> browsers;
 
+	/**
+	 * Index to narrow down the browser patterns that can be found in an user agent string
+	 */
+	@javax.validation.constraints.NotNull
+	private final OrderedPatternIndex<BrowserPattern, Browser> browserPatternIndex;
+
 	@javax.validation.constraints.NotNull
 	private final Map<Integer, SortedSet<DevicePattern>> devicePatterns;
 
 	@javax.validation.constraints.NotNull
 	private final Set<Device> devices;
 
+	/**
+	 * Shared device category instances by category
+	 */
+	@javax.validation.constraints.NotNull
+	private final Map<Category, DeviceCategory> deviceCategories;
+
 	@javax.validation.constraints.NotNull
 	private final SortedMap<DevicePattern, Device> patternToDeviceMap;
 
+	/**
+	 * Index to narrow down the device patterns that can be found in an user agent string
+	 */
+	@javax.validation.constraints.NotNull
+	private final OrderedPatternIndex<DevicePattern, Device> devicePatternIndex;
+
 	@javax.validation.constraints.NotNull
 	private final Set<BrowserOperatingSystemMapping> browserToOperatingSystemMappings;
 
@@ -79,9 +110,26 @@ public class Data
 	@javax.validation.constraints.NotNull
 	private final SortedMap<OperatingSystemPattern, OperatingSystem> patternToOperatingSystemMap;
 
+	/**
+	 * Index to narrow down the operating system patterns that can be found in an user agent string
+	 */
+	@javax.validation.constraints.NotNull
+	private final OrderedPatternIndex<OperatingSystemPattern, OperatingSystem> operatingSystemPatternIndex;
+
 	@javax.validation.constraints.NotNull
 	private final List<Robot> robots;
 
+	/**
+	 * Shared detection results of the robots indexed by their user agent string
+	 */
+	@javax.validation.constraints.NotNull
+	private final Map<String, UserAgent> robotUserAgentsByUserAgentString;
+
+	/**
+	 * Generation of this instance, which increases with every created or deserialized instance within this JVM
+	 */
+	private transient long generation = GENERATIONS.getAndIncrement();
+
 	/**
 	 * Version information of the UAS data
 	 */
@@ -97,6 +145,30 @@ public class Data
 	            @javax.validation.constraints.NotNull List<Robot> robots, @javax.validation.constraints.NotNull Set<Device> devices,
 	            @javax.validation.constraints.NotNull Map<Integer, SortedSet<DevicePattern>> devicePatterns,
 	            @javax.validation.constraints.NotNull SortedMap<DevicePattern, Device> patternToDeviceMap, @javax.validation.constraints.NotNull String version)
+	{
+		this(browsers, browserPatterns, browserTypes, patternToBrowserMap, browserToOperatingSystemMappings, operatingSystems, operatingSystemPatterns,
+		     patternToOperatingSystemMap, robots, devices, devicePatterns, patternToDeviceMap, version,
+		     new OrderedPatternIndex<>(Check.notNull(patternToBrowserMap, "patternToBrowserMap")),
+		     new OrderedPatternIndex<>(Check.notNull(patternToOperatingSystemMap, "patternToOperatingSystemMap")),
+		     new OrderedPatternIndex<>(Check.notNull(patternToDeviceMap, "patternToDeviceMap")));
+	}
+
+	/**
+	 * Constructs a {@code Data} with pattern indexes which have already been built, for example concurrently by the
+	 * {@link DataBuilder}. Each index must have been created over the corresponding sorted map of patterns.
+	 */
+	Data(@javax.validation.constraints.NotNull Set<Browser> browsers, @javax.validation.constraints.NotNull Map<Integer, SortedSet<BrowserPattern>> browserPatterns,
+	     @javax.validation.constraints.NotNull Map<Integer, BrowserType> browserTypes, @javax.validation.constraints.NotNull SortedMap<BrowserPattern, Browser> patternToBrowserMap,
+	     @javax.validation.constraints.NotNull Set<BrowserOperatingSystemMapping> browserToOperatingSystemMappings,
+	     @javax.validation.constraints.NotNull Set<OperatingSystem> operatingSystems,
+	     @javax.validation.constraints.NotNull Map<Integer, SortedSet<OperatingSystemPattern>> operatingSystemPatterns,
+	     @javax.validation.constraints.NotNull SortedMap<OperatingSystemPattern, OperatingSystem> patternToOperatingSystemMap,
+	     @javax.validation.constraints.NotNull List<Robot> robots, @javax.validation.constraints.NotNull Set<Device> devices,
+	     @javax.validation.constraints.NotNull Map<Integer, SortedSet<DevicePattern>> devicePatterns,
+	     @javax.validation.constraints.NotNull SortedMap<DevicePattern, Device> patternToDeviceMap, @javax.validation.constraints.NotNull String version,
+	     @javax.validation.constraints.NotNull OrderedPatternIndex<BrowserPattern, Browser> browserPatternIndex,
+	     @javax.validation.constraints.NotNull OrderedPatternIndex<OperatingSystemPattern, OperatingSystem> operatingSystemPatternIndex,
+	     @javax.validation.constraints.NotNull OrderedPatternIndex<DevicePattern, Device> devicePatternIndex)
 	{
 		Check.notNull(browsers, "browsers");
 		Check.notNull(browserPatterns, "browserPatterns");
@@ -111,11 +183,15 @@ public class Data
 		Check.notNull(devicePatterns, "devicePatterns");
 		Check.notNull(patternToDeviceMap, "patternToDeviceMap");
 		Check.notNull(version, "version");
+		Check.notNull(browserPatternIndex, "browserPatternIndex");
+		Check.notNull(operatingSystemPatternIndex, "operatingSystemPatternIndex");
+		Check.notNull(devicePatternIndex, "devicePatternIndex");
 
 		this.browsers = Collections.unmodifiableSet(new HashSet<>(browsers));
 		this.browserPatterns = Collections.unmodifiableMap(new HashMap<>(browserPatterns));
 		this.browserTypes = Collections.unmodifiableMap(new HashMap<>(Check.notNull(browserTypes, "browserTypes")));
 		this.patternToBrowserMap = Collections.unmodifiableSortedMap(new TreeMap<>(patternToBrowserMap));
+		this.browserPatternIndex = browserPatternIndex;
 		this.browserToOperatingSystemMappings = Collections.unmodifiableSet(new HashSet<>(
 				browserToOperatingSystemMappings));
 		this.operatingSystems = Collections.unmodifiableSet(new HashSet<>(operatingSystems));
@@ -123,19 +199,111 @@ public class Data
 				operatingSystemPatterns));
 		this.patternToOperatingSystemMap = Collections.unmodifiableSortedMap(new TreeMap<>(
 				patternToOperatingSystemMap));
+		this.operatingSystemPatternIndex = operatingSystemPatternIndex;
 		this.robots = Collections.unmodifiableList(new ArrayList<>(robots));
 		this.devices = Collections.unmodifiableSet(new HashSet<>(devices));
+		this.deviceCategories = Collections.unmodifiableMap(buildDeviceCategories(this.devices));
+		this.robotUserAgentsByUserAgentString = Collections.unmodifiableMap(buildRobotUserAgents(buildRobotIndex(this.robots),
+		                                                                                         getDeviceCategory(Category.OTHER)));
 		this.devicePatterns = Collections.unmodifiableMap(new HashMap<>(devicePatterns));
 		this.patternToDeviceMap = Collections.unmodifiableSortedMap(new TreeMap<>(patternToDeviceMap));
+		this.devicePatternIndex = devicePatternIndex;
 		this.version = Check.notNull(version, "version");
 	}
 
+	/**
+	 * Creates one immutable {@code DeviceCategory} per category which is described by the given devices. If multiple
+	 * devices belong to the same category, the first one in iteration order wins. Devices without a name cannot be
+	 * represented as {@code DeviceCategory} and will be skipped.
+	 *
+	 * @param devices
+	 * 		set of devices
+	 *
+	 * @return map of categories to device categories
+	 */
+	@javax.validation.constraints.NotNull
+	private static Map<Category, DeviceCategory> buildDeviceCategories(@javax.validation.constraints.NotNull Set<Device> devices)
+	{
+		Map<Category, DeviceCategory> categories = new EnumMap<>(Category.class);
+		for (Device device : devices)
+		{
+			if (!device.getName()
+			           .isEmpty() && !categories.containsKey(device.getCategory()))
+			{
+				categories.put(device.getCategory(), new DeviceCategory(device.getCategory(), device.getIcon(), device.getInfoUrl(),
+				                                                        device.getName()));
+			}
+		}
+		return categories;
+	}
+
+	/**
+	 * Indexes the given robots by their user agent string. If multiple robots share the same user agent string, the
+	 * first one in the list wins, which is the same entry a sequential search would find.
+	 *
+	 * @param robots
+	 * 		list of robots
+	 *
+	 * @return map of user agent strings to robots
+	 */
+	@javax.validation.constraints.NotNull
+	private static Map<String, Robot> buildRobotIndex(@javax.validation.constraints.NotNull List<Robot> robots)
+	{
+		Map<String, Robot> index = new HashMap<>(robots.size() * 4 / 3 + 1);
+		for (Robot robot : robots)
+		{
+			index.putIfAbsent(robot.getUserAgentString(), robot);
+		}
+		return index;
+	}
+
+	/**
+	 * Creates the detection result of every indexed robot. Because the result of a robot does not depend on anything
+	 * but the entry itself, it can be shared by all detections of the same robot.
+	 *
+	 * @param robotIndex
+	 * 		robots indexed by their user agent string
+	 * @param deviceCategory
+	 * 		device category of robots
+	 *
+	 * @return map of user agent strings to detection results
+	 */
+	@javax.validation.constraints.NotNull
+	private static Map<String, UserAgent> buildRobotUserAgents(@javax.validation.constraints.NotNull Map<String, Robot> robotIndex,
+	                                                           @javax.validation.constraints.NotNull DeviceCategory deviceCategory)
+	{
+		Map<String, UserAgent> userAgents = new HashMap<>(robotIndex.size() * 4 / 3 + 1);
+		for (Entry<String, Robot> entry : robotIndex.entrySet())
+		{
+			Robot robot = entry.getValue();
+			UserAgent.Builder builder = new UserAgent.Builder(entry.getKey());
+			robot.copyTo(builder);
+
+			// try to get the version from the last found group
+			builder.setVersionNumber(VersionNumber.parseLastVersionNumber(robot.getName()));
+			builder.setDeviceCategory(deviceCategory);
+			userAgents.put(entry.getKey(), builder.build());
+		}
+		return userAgents;
+	}
+
 	@javax.validation.constraints.NotNull
 	public Map<Integer, SortedSet<BrowserPattern>> getBrowserPatterns()
 	{
 		return browserPatterns;
 	}
 
+	/**
+	 * Gets the index over {@link #getPatternToBrowserMap()} to find the first matching browser pattern quickly.
+	 *
+	 * @return index over all browser patterns
+	 */
+	@javax.validation.constraints.NotNull
+	public OrderedPatternIndex<BrowserPattern, Browser> getBrowserPatternIndex()
+	{
+		return browserPatternIndex;
+	}
+
 	@javax.validation.constraints.NotNull
 	public Set<Browser> getBrowsers()
 	{
@@ -154,6 +322,17 @@ public class Data
 		return browserTypes;
 	}
 
+	/**
+	 * Gets the index over {@link #getPatternToDeviceMap()} to find the first matching device pattern quickly.
+	 *
+	 * @return index over all device patterns
+	 */
+	@javax.validation.constraints.NotNull
+	public OrderedPatternIndex<DevicePattern, Device> getDevicePatternIndex()
+	{
+		return devicePatternIndex;
+	}
+
 	@javax.validation.constraints.NotNull
 	public Map<Integer, SortedSet<DevicePattern>> getDevicePatterns()
 	{
@@ -166,6 +345,33 @@ public class Data
 		return devices;
 	}
 
+	/**
+	 * Gets the shared device category instance of the given category.
+	 *
+	 * @param category
+	 * 		category of a device
+	 *
+	 * @return the device category or {@link DeviceCategory#EMPTY} if no device of the given category is known
+	 */
+	@javax.validation.constraints.NotNull
+	public DeviceCategory getDeviceCategory(@javax.validation.constraints.NotNull Category category)
+	{
+		DeviceCategory deviceCategory = deviceCategories.get(category);
+		return deviceCategory != null ? deviceCategory : DeviceCategory.EMPTY;
+	}
+
+	/**
+	 * Gets the index over {@link #getPatternToOperatingSystemMap()} to find the first matching operating system pattern
+	 * quickly.
+	 *
+	 * @return index over all operating system patterns
+	 */
+	@javax.validation.constraints.NotNull
+	public OrderedPatternIndex<OperatingSystemPattern, OperatingSystem> getOperatingSystemPatternIndex()
+	{
+		return operatingSystemPatternIndex;
+	}
+
 	@javax.validation.constraints.NotNull
 	public Map<Integer, SortedSet<OperatingSystemPattern>> getOperatingSystemPatterns()
 	{
@@ -202,6 +408,112 @@ public class Data
 		return robots;
 	}
 
+	/**
+	 * Gets the shared detection result of the robot whose user agent string is exactly equal to the given one. The
+	 * result is immutable and will be returned for every detection of the same robot.
+	 *
+	 * @param userAgentString
+	 * 		user agent string
+	 *
+	 * @return the detection result of the matching robot or {@code null} if no robot is known for the given user agent
+	 * 		string
+	 */
+	public UserAgent getRobotUserAgent(@javax.validation.constraints.NotNull String userAgentString)
+	{
+		return robotUserAgentsByUserAgentString.get(userAgentString);
+	}
+
+	/**
+	 * Compiles the regular expressions of all browser, operating system and device patterns which have not been
+	 * compiled yet. This can be used to warm up lazily compiled patterns in background, so that no request has to wait
+	 * for compiling. Patterns which are already compiled are not affected.
+	 */
+	public void compilePatterns()
+	{
+		for (BrowserPattern pattern : patternToBrowserMap.keySet())
+		{
+			pattern.getPattern();
+		}
+		for (OperatingSystemPattern pattern : patternToOperatingSystemMap.keySet())
+		{
+			pattern.getPattern();
+		}
+		for (DevicePattern pattern : patternToDeviceMap.keySet())
+		{
+			pattern.getPattern();
+		}
+	}
+
+	/**
+	 * Warms up this {@code Data} before it will be used for detections. The given user agent strings will be matched
+	 * against the browser, operating system and device patterns in the same order as a detection does. This should be
+	 * called before publishing a new instance, so that the first requests do not pay for warming up the pattern indexes.
+	 * Lazily compiled regular expressions will only be compiled if they are needed for the given user agent strings, so
+	 * the lazy pattern mode stays effective (use {@link #compilePatterns()} to compile all of them).
+	 *
+	 * @param userAgentStrings
+	 * 		sample of user agent strings to replay, {@code null} elements will be skipped
+	 */
+	public void warmUp(@javax.validation.constraints.NotNull Iterable<String> userAgentStrings)
+	{
+		Check.notNull(userAgentStrings, "userAgentStrings");
+
+		for (String userAgentString : userAgentStrings)
+		{
+			if (userAgentString != null)
+			{
+				findFirstMatch(browserPatternIndex, userAgentString);
+				findFirstMatch(operatingSystemPatternIndex, userAgentString);
+				findFirstMatch(devicePatternIndex, userAgentString);
+			}
+		}
+	}
+
+	/**
+	 * Searches the first pattern of the given index which can be found in the given user agent string.
+	 *
+	 * @return position of the first matching pattern or {@code -1} if no pattern matches
+	 */
+	private static int findFirstMatch(@javax.validation.constraints.NotNull OrderedPatternIndex<?, ?> index,
+	                                  @javax.validation.constraints.NotNull String userAgentString)
+	{
+		BitSet candidates = index.findCandidates(userAgentString);
+		for (int position = candidates.nextSetBit(0); position >= 0; position = candidates.nextSetBit(position + 1))
+		{
+			if (index.getPattern(position)
+			         .getPattern()
+			         .matcher(userAgentString)
+			         .find())
+			{
+				return position;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Assigns a generation of this JVM to a deserialized instance, because the generation of another JVM could collide
+	 * with local ones.
+	 */
+	private void readObject(@javax.validation.constraints.NotNull ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		generation = GENERATIONS.getAndIncrement();
+	}
+
+	/**
+	 * Gets the generation of this instance. Every created or deserialized instance gets a higher generation than all
+	 * instances created before in the same JVM, {@link #EMPTY} has the generation {@code 0}. In contrast to the version it is cheap to
+	 * compare and distinguishes instances which have been built from the same version of the UAS data, so that caches
+	 * built on top of a {@code Data} can detect a replacement easily.
+	 *
+	 * @return generation of this instance
+	 */
+	public long getGeneration()
+	{
+		return generation;
+	}
+
 	/**
 	 * Gets the version of the UAS data which are available within this instance.
 	 *
@@ -376,12 +688,18 @@ public class Data
 		}
 		builder.append("browser patterns:\t");
 		builder.append(patternToBrowserMap.size());
+		builder.append(" (without literals: ");
+		builder.append(browserPatternIndex.getUnconditionalCount());
+		builder.append(")");
 		builder.append('\n');
 		builder.append("operating systems:\t");
 		builder.append(operatingSystems.size());
 		builder.append('\n');
 		builder.append("os patterns:\t\t");
 		builder.append(patternToOperatingSystemMap.size());
+		builder.append(" (without literals: ");
+		builder.append(operatingSystemPatternIndex.getUnconditionalCount());
+		builder.append(")");
 		builder.append('\n');
 		builder.append("robots:\t\t\t");
 		builder.append(robots.size());
@@ -391,9 +709,54 @@ public class Data
 		builder.append('\n');
 		builder.append("device patterns:\t");
 		builder.append(patternToDeviceMap.size());
+		builder.append(" (without literals: ");
+		builder.append(devicePatternIndex.getUnconditionalCount());
+		builder.append(")");
+		builder.append('\n');
+		long[] stringSizes = StringPool.estimateRetainedSize(collectStrings());
+		builder.append("string memory:\t\t~");
+		builder.append(stringSizes[1] / 1024);
+		builder.append(" KiB (without deduplication: ~");
+		builder.append(stringSizes[0] / 1024);
+		builder.append(" KiB)");
 		builder.append('\n');
 		builder.append("----------------------------------------------------------------");
 		return builder.toString();
 	}
 
+	/**
+	 * Collects the references to all descriptive strings of the entries of this {@code Data}.
+	 *
+	 * @return all string references, including multiple references to the same instance
+	 */
+	@javax.validation.constraints.NotNull
+	private List<String> collectStrings()
+	{
+		List<String> strings = new ArrayList<>();
+		for (Browser browser : browsers)
+		{
+			Collections.addAll(strings, browser.getFamilyName(), browser.getUrl(), browser.getProducer(), browser.getProducerUrl(), browser.getIcon(),
+			                   browser.getInfoUrl());
+		}
+		for (BrowserType browserType : browserTypes.values())
+		{
+			strings.add(browserType.getName());
+		}
+		for (OperatingSystem operatingSystem : operatingSystems)
+		{
+			Collections.addAll(strings, operatingSystem.getFamily(), operatingSystem.getName(), operatingSystem.getUrl(), operatingSystem.getProducer(),
+			                   operatingSystem.getProducerUrl(), operatingSystem.getIcon(), operatingSystem.getInfoUrl());
+		}
+		for (Robot robot : robots)
+		{
+			Collections.addAll(strings, robot.getUserAgentString(), robot.getFamilyName(), robot.getName(), robot.getProducer(), robot.getProducerUrl(),
+			                   robot.getIcon(), robot.getInfoUrl());
+		}
+		for (Device device : devices)
+		{
+			Collections.addAll(strings, device.getName(), device.getIcon(), device.getInfoUrl());
+		}
+		return strings;
+	}
+
 }
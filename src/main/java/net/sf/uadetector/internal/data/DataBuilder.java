@@ -18,10 +18,15 @@ package net.sf.uadetector.internal.data;
 import net.sf.uadetector.exception.IllegalStateOfArgumentException;
 import net.sf.uadetector.internal.Check;
 import net.sf.uadetector.internal.data.domain.*;
+import net.sf.uadetector.internal.util.StringPool;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import java.util.logging.Level;
+import java.util.stream.Collectors;
 
 /**
  * This class is intended to create instances of {@code Data}.
@@ -41,8 +46,12 @@ public class DataBuilder
 	@javax.validation.constraints.NotNull
 	private final Map<Integer, SortedSet<BrowserPattern>> browserPatterns = new HashMap<>();
 	@javax.validation.constraints.NotNull
+	private final List<BrowserPattern.Builder> browserPatternBuilders = new ArrayList<>();
+	@javax.validation.constraints.NotNull
 	private final Map<Integer, SortedSet<OperatingSystemPattern>> operatingSystemPatterns = new HashMap<>();
 	@javax.validation.constraints.NotNull
+	private final List<OperatingSystemPattern.Builder> operatingSystemPatternBuilders = new ArrayList<>();
+	@javax.validation.constraints.NotNull
 	private final Map<Integer, Browser.Builder> browserBuilders = new HashMap<>();
 	@javax.validation.constraints.NotNull
 	private final Set<Browser> browsers = new HashSet<>();
@@ -53,6 +62,8 @@ public class DataBuilder
 	@javax.validation.constraints.NotNull
 	private final Map<Integer, SortedSet<DevicePattern>> devicePatterns = new HashMap<>();
 	@javax.validation.constraints.NotNull
+	private final List<DevicePattern.Builder> devicePatternBuilders = new ArrayList<>();
+	@javax.validation.constraints.NotNull
 	private final Map<Integer, OperatingSystem.Builder> operatingSystemBuilders = new HashMap<>();
 	@javax.validation.constraints.NotNull
 	private final Set<OperatingSystem> operatingSystems = new HashSet<>();
@@ -60,7 +71,18 @@ public class DataBuilder
 	private final List<Robot> robots = new ArrayList<>();
 	@javax.validation.constraints.NotNull
 	private final Set<BrowserOperatingSystemMapping> browserToOperatingSystemMap = new HashSet<>();
+	/**
+	 * Pool to canonicalize the read in strings of all entries
+	 */
+	@javax.validation.constraints.NotNull
+	private final StringPool stringPool = new StringPool();
 	private String version;
+	private boolean lazyPatterns;
+	/**
+	 * Previous <em>UAS data</em> whose unchanged patterns and entries will be reused
+	 */
+	@javax.validation.constraints.NotNull
+	private Data previous = Data.EMPTY;
 
 	public DataBuilder appendBrowser(@javax.validation.constraints.NotNull Browser browser)
 	{
@@ -140,6 +162,28 @@ public class DataBuilder
 		return this;
 	}
 
+	/**
+	 * Appends a builder of a browser pattern whose regular expression will be compiled concurrently with all others
+	 * when building. A pattern that cannot be built will be logged and skipped. The given builder must not be modified
+	 * afterwards.
+	 *
+	 * @param patternBuilder
+	 * 		builder of a pattern for a browser
+	 *
+	 * @return itself
+	 * 		<p>
+	 * 		<p>
+	 * 		if the given argument is {@code null}
+	 */
+	@javax.validation.constraints.NotNull
+	public DataBuilder appendBrowserPatternBuilder(@javax.validation.constraints.NotNull BrowserPattern.Builder patternBuilder)
+	{
+		Check.notNull(patternBuilder, "patternBuilder");
+
+		browserPatternBuilders.add(patternBuilder);
+		return this;
+	}
+
 	@javax.validation.constraints.NotNull
 	public DataBuilder appendBrowserType(@javax.validation.constraints.NotNull BrowserType type)
 	{
@@ -213,6 +257,28 @@ public class DataBuilder
 		return this;
 	}
 
+	/**
+	 * Appends a builder of a device pattern whose regular expression will be compiled concurrently with all others
+	 * when building. A pattern that cannot be built will be logged and skipped. The given builder must not be modified
+	 * afterwards.
+	 *
+	 * @param patternBuilder
+	 * 		builder of a pattern for a device
+	 *
+	 * @return itself
+	 * 		<p>
+	 * 		<p>
+	 * 		if the given argument is {@code null}
+	 */
+	@javax.validation.constraints.NotNull
+	public DataBuilder appendDevicePatternBuilder(@javax.validation.constraints.NotNull DevicePattern.Builder patternBuilder)
+	{
+		Check.notNull(patternBuilder, "patternBuilder");
+
+		devicePatternBuilders.add(patternBuilder);
+		return this;
+	}
+
 	@javax.validation.constraints.NotNull
 	public DataBuilder appendOperatingSystem(@javax.validation.constraints.NotNull OperatingSystem operatingSystem)
 	{
@@ -277,6 +343,28 @@ public class DataBuilder
 		return this;
 	}
 
+	/**
+	 * Appends a builder of an operating system pattern whose regular expression will be compiled concurrently with
+	 * all others when building. A pattern that cannot be built will be logged and skipped. The given builder must not
+	 * be modified afterwards.
+	 *
+	 * @param patternBuilder
+	 * 		builder of a pattern for an operating system
+	 *
+	 * @return itself
+	 * 		<p>
+	 * 		<p>
+	 * 		if the given argument is {@code null}
+	 */
+	@javax.validation.constraints.NotNull
+	public DataBuilder appendOperatingSystemPatternBuilder(@javax.validation.constraints.NotNull OperatingSystemPattern.Builder patternBuilder)
+	{
+		Check.notNull(patternBuilder, "patternBuilder");
+
+		operatingSystemPatternBuilders.add(patternBuilder);
+		return this;
+	}
+
 	@javax.validation.constraints.NotNull
 	public DataBuilder appendRobot(@javax.validation.constraints.NotNull Robot robot)
 	{
@@ -286,32 +374,221 @@ public class DataBuilder
 		return this;
 	}
 
+	/**
+	 * Builds a new instance of {@code Data}.<br>
+	 * <br>
+	 * The regular expressions of all appended pattern builders will be compiled in parallel, unless they should be
+	 * compiled lazily. Afterwards browsers, operating systems and devices as well as their pattern indexes will be built
+	 * as independent stages in the common {@code ForkJoinPool}, only browsers have to wait for the operating systems
+	 * they refer to.<br>
+	 * <br>
+	 * If previous data are set, patterns and entries which are equal to previous ones will be replaced by the previous
+	 * instances. Regular expressions will then only be compiled for new or modified patterns.
+	 *
+	 * @return a new instance of {@code Data}
+	 */
 	@javax.validation.constraints.NotNull
 	public Data build()
 	{
-		addTypeToBrowser(browserBuilders, browserTypes);
-		addPatternToBrowser(browserBuilders, browserPatterns);
-		addPatternToOperatingSystem(operatingSystemBuilders, operatingSystemPatterns);
-		addPatternToDevice(deviceBuilders, devicePatterns);
+		for (BrowserPattern pattern : buildPatterns(browserPatternBuilders,
+		                                            reusing(BrowserPattern.Builder::buildLazily, BrowserPattern.Builder::build,
+		                                                    indexPatterns(previous.getBrowserPatterns())), "browser"))
+		{
+			appendBrowserPattern(pattern);
+		}
+		for (OperatingSystemPattern pattern : buildPatterns(operatingSystemPatternBuilders,
+		                                                    reusing(OperatingSystemPattern.Builder::buildLazily, OperatingSystemPattern.Builder::build,
+		                                                            indexPatterns(previous.getOperatingSystemPatterns())), "OS"))
+		{
+			appendOperatingSystemPattern(pattern);
+		}
+		for (DevicePattern pattern : buildPatterns(devicePatternBuilders, reusing(DevicePattern.Builder::buildLazily, DevicePattern.Builder::build,
+		                                                                          indexPatterns(previous.getDevicePatterns())), "device"))
+		{
+			appendDevicePattern(pattern);
+		}
+		browserPatternBuilders.clear();
+		operatingSystemPatternBuilders.clear();
+		devicePatternBuilders.clear();
+
+		Data reusable = previous;
+		Map<BrowserType, BrowserType> previousTypes = indexEntries(reusable.getBrowserTypes()
+		                                                                   .values());
+		browserTypes.replaceAll((id, type) -> reuse(type, previousTypes));
+		CompletableFuture<Void> browserBuildersFuture = CompletableFuture.runAsync(() -> {
+			addTypeToBrowser(browserBuilders, browserTypes);
+			addPatternToBrowser(browserBuilders, browserPatterns);
+		});
+		CompletableFuture<Map<Integer, OperatingSystem>> systemsFuture = CompletableFuture.supplyAsync(() -> {
+			addPatternToOperatingSystem(operatingSystemBuilders, operatingSystemPatterns);
+			Map<Integer, OperatingSystem> systems = buildOperatingSystems(operatingSystemBuilders);
+			Map<OperatingSystem, OperatingSystem> previousSystems = indexEntries(reusable.getOperatingSystems());
+			systems.replaceAll((id, operatingSystem) -> reuse(operatingSystem, previousSystems));
+			return systems;
+		});
+		CompletableFuture<Set<Device>> deviceSetFuture = CompletableFuture.supplyAsync(() -> {
+			addPatternToDevice(deviceBuilders, devicePatterns);
+			Set<Device> deviceSet = reuseAll(buildDevices(deviceBuilders), indexEntries(reusable.getDevices()));
+			deviceSet.addAll(devices);
+			return deviceSet;
+		});
+
+		CompletableFuture<Set<OperatingSystem>> osSetFuture = systemsFuture.thenApply(systems -> {
+			Set<OperatingSystem> osSet = convertOperatingSystems(systems);
+			osSet.addAll(operatingSystems);
+			return osSet;
+		});
+		CompletableFuture<Set<Browser>> browserSetFuture = browserBuildersFuture.thenCombine(systemsFuture, (ignored, systems) -> {
+			addOperatingSystemToBrowser(browserBuilders, systems, convertBrowserOsMapping(browserToOperatingSystemMap));
+			Set<Browser> browserSet = reuseAll(buildBrowsers(browserBuilders), indexEntries(reusable.getBrowsers()));
+			browserSet.addAll(browsers);
+			return browserSet;
+		});
+
+		CompletableFuture<SortedMap<BrowserPattern, Browser>> patternToBrowserMapFuture = browserSetFuture.thenApplyAsync(
+				DataBuilder::buildPatternToBrowserMap);
+		CompletableFuture<SortedMap<OperatingSystemPattern, OperatingSystem>> patternToOperatingSystemMapFuture = osSetFuture.thenApplyAsync(
+				DataBuilder::buildPatternToOperatingSystemMap);
+		CompletableFuture<SortedMap<DevicePattern, Device>> patternToDeviceMapFuture = deviceSetFuture.thenApplyAsync(
+				DataBuilder::buildPatternToDeviceMap);
+
+		CompletableFuture<OrderedPatternIndex<BrowserPattern, Browser>> browserIndexFuture = patternToBrowserMapFuture.thenApplyAsync(
+				OrderedPatternIndex::new);
+		CompletableFuture<OrderedPatternIndex<OperatingSystemPattern, OperatingSystem>> operatingSystemIndexFuture =
+				patternToOperatingSystemMapFuture.thenApplyAsync(OrderedPatternIndex::new);
+		CompletableFuture<OrderedPatternIndex<DevicePattern, Device>> deviceIndexFuture = patternToDeviceMapFuture.thenApplyAsync(
+				OrderedPatternIndex::new);
+
+		Map<Robot, Robot> previousRobots = indexEntries(reusable.getRobots());
+		robots.replaceAll(robot -> reuse(robot, previousRobots));
+
+		return new Data(join(browserSetFuture), browserPatterns, browserTypes, join(patternToBrowserMapFuture), browserToOperatingSystemMap,
+		                join(osSetFuture), operatingSystemPatterns, join(patternToOperatingSystemMapFuture), robots, join(deviceSetFuture),
+		                devicePatterns, join(patternToDeviceMapFuture), version, join(browserIndexFuture), join(operatingSystemIndexFuture),
+		                join(deviceIndexFuture));
+	}
+
+	/**
+	 * Builds the given pattern builders in parallel, which compiles their regular expressions. Patterns that cannot be
+	 * built will be logged and skipped.
+	 *
+	 * @return built patterns in the order of the given builders
+	 */
+	private static <B, P> List<P> buildPatterns(List<B> builders, Function<B, P> build, String kind)
+	{
+		return builders.parallelStream()
+		               .map(builder -> {
+			               try
+			               {
+				               return build.apply(builder);
+			               }
+			               catch (IllegalArgumentException e)
+			               {
+				               LOG.log(Level.WARNING, "Can not append " + kind + " pattern: " + e.getLocalizedMessage(), e);
+				               return null;
+			               }
+		               })
+		               .filter(Objects::nonNull)
+		               .collect(Collectors.toList());
+	}
 
-		Map<Integer, OperatingSystem> systems = buildOperatingSystems(operatingSystemBuilders);
-		addOperatingSystemToBrowser(browserBuilders, systems, convertBrowserOsMapping(browserToOperatingSystemMap));
+	/**
+	 * Creates the function to build a pattern, which returns an equal previous pattern instead of a new one if there is
+	 * any. To find it, the pattern will be built lazily first, which does not compile its regular expression.
+	 *
+	 * @param buildLazily
+	 * 		function to build a pattern without compiling its regular expression
+	 * @param build
+	 * 		function to build a pattern with a compiled regular expression
+	 * @param previousPatterns
+	 * 		previous patterns to reuse
+	 *
+	 * @return function to build or reuse a pattern
+	 */
+	private <B, P> Function<B, P> reusing(Function<B, P> buildLazily, Function<B, P> build, Map<P, P> previousPatterns)
+	{
+		if (previousPatterns.isEmpty())
+		{
+			return lazyPatterns ? buildLazily : build;
+		}
+		return builder -> {
+			P pattern = buildLazily.apply(builder);
+			P previousPattern = previousPatterns.get(pattern);
+			if (previousPattern != null)
+			{
+				return previousPattern;
+			}
+			return lazyPatterns ? pattern : build.apply(builder);
+		};
+	}
 
-		Set<OperatingSystem> osSet = convertOperatingSystems(systems);
-		osSet.addAll(operatingSystems);
+	private static <P> Map<P, P> indexPatterns(Map<Integer, ? extends Set<P>> patterns)
+	{
+		Map<P, P> index = new HashMap<>();
+		for (Set<P> patternSet : patterns.values())
+		{
+			for (P pattern : patternSet)
+			{
+				index.put(pattern, pattern);
+			}
+		}
+		return index;
+	}
 
-		Set<Browser> browserSet = buildBrowsers(browserBuilders);
-		browserSet.addAll(browsers);
+	private static <T> Map<T, T> indexEntries(Collection<T> entries)
+	{
+		Map<T, T> index = new HashMap<>(entries.size() * 4 / 3 + 1);
+		for (T entry : entries)
+		{
+			index.putIfAbsent(entry, entry);
+		}
+		return index;
+	}
 
-		Set<Device> deviceSet = buildDevices(deviceBuilders);
-		deviceSet.addAll(devices);
+	/**
+	 * Returns the equal previous instance of the given entry if there is any, otherwise the given entry.
+	 */
+	private static <T> T reuse(T entry, Map<T, T> previousEntries)
+	{
+		T previousEntry = previousEntries.get(entry);
+		return previousEntry != null ? previousEntry : entry;
+	}
 
-		SortedMap<BrowserPattern, Browser> patternToBrowserMap = buildPatternToBrowserMap(browserSet);
-		SortedMap<OperatingSystemPattern, OperatingSystem> patternToOperatingSystemMap = buildPatternToOperatingSystemMap(osSet);
-		SortedMap<DevicePattern, Device> patternToDeviceMap = buildPatternToDeviceMap(deviceSet);
+	private static <T> Set<T> reuseAll(Set<T> entries, Map<T, T> previousEntries)
+	{
+		if (previousEntries.isEmpty())
+		{
+			return entries;
+		}
+		Set<T> result = new HashSet<>(entries.size() * 4 / 3 + 1);
+		for (T entry : entries)
+		{
+			result.add(reuse(entry, previousEntries));
+		}
+		return result;
+	}
 
-		return new Data(browserSet, browserPatterns, browserTypes, patternToBrowserMap, browserToOperatingSystemMap, osSet,
-		                operatingSystemPatterns, patternToOperatingSystemMap, robots, deviceSet, devicePatterns, patternToDeviceMap, version);
+	/**
+	 * Waits for the result of a stage. An exception which was thrown within the stage will be rethrown unwrapped.
+	 */
+	private static <T> T join(CompletableFuture<T> future)
+	{
+		try
+		{
+			return future.join();
+		}
+		catch (CompletionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error)
+			{
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
 	}
 
 	private static void addTypeToBrowser(Map<Integer, Browser.Builder> builders, Map<Integer, BrowserType> types)
@@ -531,6 +808,56 @@ public class DataBuilder
 		return patternDevice;
 	}
 
+	/**
+	 * Returns the canonical instance of the given string. Readers should pass values which repeat in many entries
+	 * (producer names and URLs, icons, info URLs, family and type names) through this method before setting them on a
+	 * builder, so that equal values share a single instance in the built {@code Data}. Mostly unique values like IDs,
+	 * positions or regular expressions should not be pooled.
+	 *
+	 * @param value
+	 * 		a read in string or {@code null}
+	 *
+	 * @return the canonical instance of an equal string or {@code null} if {@code null} was passed
+	 */
+	public String intern(String value)
+	{
+		return stringPool.intern(value);
+	}
+
+	/**
+	 * Sets whether the regular expressions of appended pattern builders will be compiled on first use instead of
+	 * while building. Lazily compiled patterns with an invalid regular expression will never match.
+	 *
+	 * @param lazyPatterns
+	 * 		{@code true} to compile regular expressions on first use, otherwise {@code false}
+	 *
+	 * @return this {@code Builder}, for chaining
+	 */
+	@javax.validation.constraints.NotNull
+	public DataBuilder setLazyPatterns(boolean lazyPatterns)
+	{
+		this.lazyPatterns = lazyPatterns;
+		return this;
+	}
+
+	/**
+	 * Sets the previous <em>UAS data</em>, whose patterns and entries will be reused where they are equal to the built
+	 * ones. This keeps the costs of a refresh, which compiles regular expressions and allocates new entries,
+	 * proportional to the changes since the previous data. Reused patterns keep their state of compilation, so they may
+	 * be compiled on first use even if lazy patterns are disabled.
+	 *
+	 * @param previous
+	 * 		previous <em>UAS data</em> or {@link Data#EMPTY} to build all patterns and entries anew
+	 *
+	 * @return this {@code Builder}, for chaining
+	 */
+	@javax.validation.constraints.NotNull
+	public DataBuilder setPrevious(@javax.validation.constraints.NotNull Data previous)
+	{
+		this.previous = Check.notNull(previous, "previous");
+		return this;
+	}
+
 	@javax.validation.constraints.NotNull
 	public DataBuilder setVersion(@javax.validation.constraints.NotNull String version)
 	{
@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.internal.data;
+
+import net.sf.uadetector.internal.Check;
+import net.sf.uadetector.internal.data.domain.Identifiable;
+
+import java.util.*;
+
+/**
+ * This class represents the differences between two versions of {@link Data}, as sets of added, removed and changed
+ * entries keyed by their identifier (see {@link Identifiable#getId()}).<br>
+ * <br>
+ * Patterns are compared as the set of all patterns belonging to the same ID, so a pattern ID is listed as changed if
+ * any pattern of its entry has been added, removed or modified.<br>
+ * <br>
+ * An instance of {@code DataDiff} is immutable, their values cannot be changed after creation.
+ *
+ * @author André Rouél
+ */
+public final class DataDiff
+{
+
+	@javax.validation.constraints.NotNull
+	private final Changes browserPatterns;
+
+	@javax.validation.constraints.NotNull
+	private final Changes browsers;
+
+	@javax.validation.constraints.NotNull
+	private final Changes browserTypes;
+
+	@javax.validation.constraints.NotNull
+	private final Changes devicePatterns;
+
+	@javax.validation.constraints.NotNull
+	private final Changes devices;
+
+	@javax.validation.constraints.NotNull
+	private final Changes operatingSystemPatterns;
+
+	@javax.validation.constraints.NotNull
+	private final Changes operatingSystems;
+
+	@javax.validation.constraints.NotNull
+	private final Changes robots;
+
+	private DataDiff(@javax.validation.constraints.NotNull Data previous, @javax.validation.constraints.NotNull Data current)
+	{
+		robots = compare(previous.getRobots(), current.getRobots());
+		browserTypes = compare(previous.getBrowserTypes()
+		                               .values(), current.getBrowserTypes()
+		                                                 .values());
+		browsers = compare(previous.getBrowsers(), current.getBrowsers());
+		browserPatterns = compare(previous.getBrowserPatterns(), current.getBrowserPatterns());
+		operatingSystems = compare(previous.getOperatingSystems(), current.getOperatingSystems());
+		operatingSystemPatterns = compare(previous.getOperatingSystemPatterns(), current.getOperatingSystemPatterns());
+		devices = compare(previous.getDevices(), current.getDevices());
+		devicePatterns = compare(previous.getDevicePatterns(), current.getDevicePatterns());
+	}
+
+	/**
+	 * Computes the differences between two versions of <em>UAS data</em>.
+	 *
+	 * @param previous
+	 * 		previous version of <em>UAS data</em>
+	 * @param current
+	 * 		current version of <em>UAS data</em>
+	 *
+	 * @return differences from the previous to the current version
+	 */
+	@javax.validation.constraints.NotNull
+	public static DataDiff compute(@javax.validation.constraints.NotNull Data previous, @javax.validation.constraints.NotNull Data current)
+	{
+		Check.notNull(previous, "previous");
+		Check.notNull(current, "current");
+
+		return new DataDiff(previous, current);
+	}
+
+	@javax.validation.constraints.NotNull
+	private static <T extends Identifiable> Changes compare(@javax.validation.constraints.NotNull Collection<T> previous,
+	                                                       @javax.validation.constraints.NotNull Collection<T> current)
+	{
+		return compare(indexById(previous), indexById(current));
+	}
+
+	@javax.validation.constraints.NotNull
+	private static Changes compare(@javax.validation.constraints.NotNull Map<Integer, ?> previous, @javax.validation.constraints.NotNull Map<Integer, ?> current)
+	{
+		SortedSet<Integer> added = new TreeSet<>();
+		SortedSet<Integer> removed = new TreeSet<>();
+		SortedSet<Integer> changed = new TreeSet<>();
+		for (Map.Entry<Integer, ?> entry : current.entrySet())
+		{
+			Object old = previous.get(entry.getKey());
+			if (old == null)
+			{
+				added.add(entry.getKey());
+			}
+			else if (!old.equals(entry.getValue()))
+			{
+				changed.add(entry.getKey());
+			}
+		}
+		for (Integer id : previous.keySet())
+		{
+			if (!current.containsKey(id))
+			{
+				removed.add(id);
+			}
+		}
+		return new Changes(added, removed, changed);
+	}
+
+	/**
+	 * Indexes the given entries by their ID. If multiple entries share the same ID, the first one wins.
+	 */
+	@javax.validation.constraints.NotNull
+	private static <T extends Identifiable> Map<Integer, T> indexById(@javax.validation.constraints.NotNull Collection<T> entries)
+	{
+		Map<Integer, T> index = new HashMap<>(entries.size() * 4 / 3 + 1);
+		for (T entry : entries)
+		{
+			index.putIfAbsent(entry.getId(), entry);
+		}
+		return index;
+	}
+
+	@javax.validation.constraints.NotNull
+	public Changes getBrowserPatterns()
+	{
+		return browserPatterns;
+	}
+
+	@javax.validation.constraints.NotNull
+	public Changes getBrowsers()
+	{
+		return browsers;
+	}
+
+	@javax.validation.constraints.NotNull
+	public Changes getBrowserTypes()
+	{
+		return browserTypes;
+	}
+
+	@javax.validation.constraints.NotNull
+	public Changes getDevicePatterns()
+	{
+		return devicePatterns;
+	}
+
+	@javax.validation.constraints.NotNull
+	public Changes getDevices()
+	{
+		return devices;
+	}
+
+	@javax.validation.constraints.NotNull
+	public Changes getOperatingSystemPatterns()
+	{
+		return operatingSystemPatterns;
+	}
+
+	@javax.validation.constraints.NotNull
+	public Changes getOperatingSystems()
+	{
+		return operatingSystems;
+	}
+
+	@javax.validation.constraints.NotNull
+	public Changes getRobots()
+	{
+		return robots;
+	}
+
+	/**
+	 * Checks whether both versions contain the same entries and patterns. The version strings are not compared.
+	 *
+	 * @return {@code true} if there are no differences, otherwise {@code false}
+	 */
+	public boolean isEmpty()
+	{
+		return robots.isEmpty() && browserTypes.isEmpty() && browsers.isEmpty() && browserPatterns.isEmpty() && operatingSystems.isEmpty()
+		       && operatingSystemPatterns.isEmpty() && devices.isEmpty() && devicePatterns.isEmpty();
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder();
+		builder.append("DataDiff [robots=");
+		builder.append(robots);
+		builder.append(", browserTypes=");
+		builder.append(browserTypes);
+		builder.append(", browsers=");
+		builder.append(browsers);
+		builder.append(", browserPatterns=");
+		builder.append(browserPatterns);
+		builder.append(", operatingSystems=");
+		builder.append(operatingSystems);
+		builder.append(", operatingSystemPatterns=");
+		builder.append(operatingSystemPatterns);
+		builder.append(", devices=");
+		builder.append(devices);
+		builder.append(", devicePatterns=");
+		builder.append(devicePatterns);
+		builder.append("]");
+		return builder.toString();
+	}
+
+	/**
+	 * IDs of the added, removed and changed entries of one kind.
+	 */
+	public static final class Changes
+	{
+
+		@javax.validation.constraints.NotNull
+		private final SortedSet<Integer> added;
+
+		@javax.validation.constraints.NotNull
+		private final SortedSet<Integer> changed;
+
+		@javax.validation.constraints.NotNull
+		private final SortedSet<Integer> removed;
+
+		private Changes(@javax.validation.constraints.NotNull SortedSet<Integer> added, @javax.validation.constraints.NotNull SortedSet<Integer> removed,
+		                @javax.validation.constraints.NotNull SortedSet<Integer> changed)
+		{
+			this.added = Collections.unmodifiableSortedSet(added);
+			this.removed = Collections.unmodifiableSortedSet(removed);
+			this.changed = Collections.unmodifiableSortedSet(changed);
+		}
+
+		@javax.validation.constraints.NotNull
+		public SortedSet<Integer> getAdded()
+		{
+			return added;
+		}
+
+		@javax.validation.constraints.NotNull
+		public SortedSet<Integer> getChanged()
+		{
+			return changed;
+		}
+
+		@javax.validation.constraints.NotNull
+		public SortedSet<Integer> getRemoved()
+		{
+			return removed;
+		}
+
+		public boolean isEmpty()
+		{
+			return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+		}
+
+		/**
+		 * Gets the number of added, removed and changed entries.
+		 *
+		 * @return number of differences
+		 */
+		public int size()
+		{
+			return added.size() + removed.size() + changed.size();
+		}
+
+		@Override
+		public String toString()
+		{
+			StringBuilder builder = new StringBuilder();
+			builder.append("Changes [added=");
+			builder.append(added);
+			builder.append(", removed=");
+			builder.append(removed);
+			builder.append(", changed=");
+			builder.append(changed);
+			builder.append("]");
+			return builder.toString();
+		}
+
+	}
+
+}
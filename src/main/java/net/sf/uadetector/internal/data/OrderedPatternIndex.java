@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.internal.data;
+
+import net.sf.uadetector.internal.Check;
+import net.sf.uadetector.internal.data.domain.OrderedPattern;
+import net.sf.uadetector.internal.util.PatternPrefilter;
+import net.sf.uadetector.internal.util.RegularExpressionLiteralExtractor;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.Map.Entry;
+
+/**
+ * An index over an ordered map of patterns which narrows down the patterns that can be found in a user agent string
+ * before any regular expression is applied.<br>
+ * <br>
+ * The literal substrings that are required by each pattern will be extracted and searched in a single pass over the
+ * user agent string with a {@link PatternPrefilter}. Patterns whose required literals are missing cannot match and will
+ * be skipped. Patterns without any determinable literal are always candidates.
+ * <p>
+ * Each pattern is addressed by its position in the iteration order of the indexed map, so candidates are returned in
+ * the same order as the map would be traversed and the first matching candidate is also the first matching entry of
+ * the map.
+ * <p>
+ * The literals are extracted from the source of the regular expressions, so building the index does not compile
+ * patterns which are compiled lazily.
+ * <p>
+ * An instance of {@code OrderedPatternIndex} is immutable and can be shared between threads.
+ *
+ * @param <P>
+ * 		type of the patterns
+ * @param <V>
+ * 		type of the values which are associated with the patterns
+ *
+ * @author André Rouél
+ */
+public final class OrderedPatternIndex<P extends OrderedPattern<P>, V>
+		implements Serializable
+{
+
+	private static final long serialVersionUID = -6530316473129735604L;
+
+	/**
+	 * Patterns in the iteration order of the indexed map
+	 */
+	@javax.validation.constraints.NotNull
+	private final List<P> patterns;
+
+	/**
+	 * Filter to find the candidates among all patterns
+	 */
+	@javax.validation.constraints.NotNull
+	private final PatternPrefilter prefilter;
+
+	/**
+	 * Values in the iteration order of the indexed map
+	 */
+	@javax.validation.constraints.NotNull
+	private final List<V> values;
+
+	/**
+	 * Constructs an {@code OrderedPatternIndex} over the given ordered map of patterns.
+	 *
+	 * @param map
+	 * 		ordered map of patterns to values
+	 */
+	public OrderedPatternIndex(@javax.validation.constraints.NotNull SortedMap<P, V> map)
+	{
+		Check.notNull(map, "map");
+
+		List<P> patternList = new ArrayList<>(map.size());
+		List<V> valueList = new ArrayList<>(map.size());
+		for (Entry<P, V> entry : map.entrySet())
+		{
+			patternList.add(entry.getKey());
+			valueList.add(entry.getValue());
+		}
+
+		prefilter = new PatternPrefilter(patternList.size(), position -> {
+			P pattern = patternList.get(position);
+			return RegularExpressionLiteralExtractor.extract(pattern.getPatternSource(), pattern.getPatternFlags());
+		});
+		patterns = Collections.unmodifiableList(patternList);
+		values = Collections.unmodifiableList(valueList);
+	}
+
+	/**
+	 * Determines the positions of all patterns which can possibly be found in the given user agent string. A pattern
+	 * which is not part of the result can definitely not be found in it.
+	 *
+	 * @param userAgent
+	 * 		user agent string
+	 *
+	 * @return positions of candidate patterns in ascending order
+	 */
+	@javax.validation.constraints.NotNull
+	public BitSet findCandidates(@javax.validation.constraints.NotNull CharSequence userAgent)
+	{
+		return findCandidates(userAgent, new BitSet(patterns.size()));
+	}
+
+	/**
+	 * Determines the positions of all patterns which can possibly be found in the given user agent string and stores
+	 * them into the passed set, which will be cleared before. This allows to reuse a set for many user agent strings.
+	 *
+	 * @param userAgent
+	 * 		user agent string
+	 * @param candidates
+	 * 		set to store the positions of candidate patterns into
+	 *
+	 * @return the passed set with the positions of candidate patterns
+	 */
+	@javax.validation.constraints.NotNull
+	public BitSet findCandidates(@javax.validation.constraints.NotNull CharSequence userAgent,
+	                             @javax.validation.constraints.NotNull BitSet candidates)
+	{
+		Check.notNull(userAgent, "userAgent");
+		Check.notNull(candidates, "candidates");
+
+		return prefilter.findCandidates(userAgent, candidates);
+	}
+
+	/**
+	 * Gets the pattern at the given position.
+	 *
+	 * @param position
+	 * 		position in the iteration order of the indexed map
+	 *
+	 * @return pattern at the given position
+	 */
+	@javax.validation.constraints.NotNull
+	public P getPattern(int position)
+	{
+		return patterns.get(position);
+	}
+
+	/**
+	 * Gets the value which is associated with the pattern at the given position.
+	 *
+	 * @param position
+	 * 		position in the iteration order of the indexed map
+	 *
+	 * @return value at the given position
+	 */
+	@javax.validation.constraints.NotNull
+	public V getValue(int position)
+	{
+		return values.get(position);
+	}
+
+	/**
+	 * Gets the number of patterns which are always candidates because no required literal could be determined.
+	 *
+	 * @return number of unconditional patterns
+	 */
+	public int getUnconditionalCount()
+	{
+		return prefilter.getUnconditionalCount();
+	}
+
+	/**
+	 * Gets the number of indexed patterns.
+	 *
+	 * @return number of patterns
+	 */
+	public int size()
+	{
+		return patterns.size();
+	}
+
+}
@@ -27,7 +27,6 @@ import org.xml.sax.helpers.DefaultHandler;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.logging.Level;
 
 public final class XmlDataHandler
 		extends DefaultHandler
@@ -275,6 +274,29 @@ public final class XmlDataHandler
 		LOG.warning(buffer.toString());
 	}
 
+	/**
+	 * Gets the characters of the current tag.
+	 *
+	 * @return buffered characters
+	 */
+	@javax.validation.constraints.NotNull
+	private String bufferedValue()
+	{
+		return buffer.toString();
+	}
+
+	/**
+	 * Gets the characters of the current tag as canonical string of the data builder, so that equal values of different
+	 * entries share the same instance. This should be used only for values which repeat in many entries.
+	 *
+	 * @return buffered characters
+	 */
+	@javax.validation.constraints.NotNull
+	private String pooledValue()
+	{
+		return dataBuilder.intern(buffer.toString());
+	}
+
 	/**
 	 * Transfers all characters of a specific tag to the corresponding builder and resets the string buffer.
 	 */
@@ -284,7 +306,7 @@ public final class XmlDataHandler
 		// version
 		if (currentTag == Tag.VERSION)
 		{
-			dataBuilder.setVersion(buffer.toString());
+			dataBuilder.setVersion(bufferedValue());
 		}
 
 		// robot browser
@@ -343,14 +365,7 @@ public final class XmlDataHandler
 
 	private void saveAndResetBrowserPatternBuilder()
 	{
-		try
-		{
-			dataBuilder.appendBrowserPattern(browserPatternBuilder.build());
-		}
-		catch (IllegalArgumentException e)
-		{
-			LOG.log(Level.WARNING, "Can not append browser pattern: " + e.getLocalizedMessage(), e);
-		}
+		dataBuilder.appendBrowserPatternBuilder(browserPatternBuilder);
 		browserPatternBuilder = new BrowserPattern.Builder();
 	}
 
@@ -362,14 +377,7 @@ public final class XmlDataHandler
 
 	private void saveAndResetOperatingSystemPatternBuilder()
 	{
-		try
-		{
-			dataBuilder.appendOperatingSystemPattern(operatingSystemPatternBuilder.build());
-		}
-		catch (IllegalArgumentException e)
-		{
-			LOG.log(Level.WARNING, "Can not append OS pattern: " + e.getLocalizedMessage(), e);
-		}
+		dataBuilder.appendOperatingSystemPatternBuilder(operatingSystemPatternBuilder);
 		operatingSystemPatternBuilder = new OperatingSystemPattern.Builder();
 	}
 
@@ -381,14 +389,7 @@ public final class XmlDataHandler
 
 	private void saveAndResetDevicePatternBuilder()
 	{
-		try
-		{
-			dataBuilder.appendDevicePattern(devicePatternBuilder.build());
-		}
-		catch (IllegalArgumentException e)
-		{
-			LOG.log(Level.WARNING, "Can not append device pattern: " + e.getLocalizedMessage(), e);
-		}
+		dataBuilder.appendDevicePatternBuilder(devicePatternBuilder);
 		devicePatternBuilder = new DevicePattern.Builder();
 	}
 
@@ -398,35 +399,35 @@ public final class XmlDataHandler
 		{
 			if (currentTag == Tag.ID)
 			{
-				robotBuilder.setId(buffer.toString());
+				robotBuilder.setId(bufferedValue());
 			}
 			else if (currentTag == Tag.USERAGENT)
 			{
-				robotBuilder.setUserAgentString(buffer.toString());
+				robotBuilder.setUserAgentString(bufferedValue());
 			}
 			else if (currentTag == Tag.FAMILY)
 			{
-				robotBuilder.setFamilyName(buffer.toString());
+				robotBuilder.setFamilyName(pooledValue());
 			}
 			else if (currentTag == Tag.NAME)
 			{
-				robotBuilder.setName(buffer.toString());
+				robotBuilder.setName(bufferedValue());
 			}
 			else if (currentTag == Tag.COMPANY)
 			{
-				robotBuilder.setProducer(buffer.toString());
+				robotBuilder.setProducer(pooledValue());
 			}
 			else if (currentTag == Tag.COMPANY_URL)
 			{
-				robotBuilder.setProducerUrl(buffer.toString());
+				robotBuilder.setProducerUrl(pooledValue());
 			}
 			else if (currentTag == Tag.ICON)
 			{
-				robotBuilder.setIcon(buffer.toString());
+				robotBuilder.setIcon(pooledValue());
 			}
 			else if (currentTag == Tag.ROBOT_INFO_URL)
 			{
-				robotBuilder.setInfoUrl(buffer.toString());
+				robotBuilder.setInfoUrl(pooledValue());
 			}
 		}
 	}
@@ -437,35 +438,35 @@ public final class XmlDataHandler
 		{
 			if (currentTag == Tag.ID)
 			{
-				browserBuilder.setId(buffer.toString());
+				browserBuilder.setId(bufferedValue());
 			}
 			else if (currentTag == Tag.BROWSER_TYPE_ID)
 			{
-				browserBuilder.setTypeId(buffer.toString());
+				browserBuilder.setTypeId(bufferedValue());
 			}
 			else if (currentTag == Tag.NAME)
 			{
-				browserBuilder.setFamilyName(buffer.toString());
+				browserBuilder.setFamilyName(pooledValue());
 			}
 			else if (currentTag == Tag.URL)
 			{
-				browserBuilder.setUrl(buffer.toString());
+				browserBuilder.setUrl(bufferedValue());
 			}
 			else if (currentTag == Tag.COMPANY)
 			{
-				browserBuilder.setProducer(buffer.toString());
+				browserBuilder.setProducer(pooledValue());
 			}
 			else if (currentTag == Tag.COMPANY_URL)
 			{
-				browserBuilder.setProducerUrl(buffer.toString());
+				browserBuilder.setProducerUrl(pooledValue());
 			}
 			else if (currentTag == Tag.ICON)
 			{
-				browserBuilder.setIcon(buffer.toString());
+				browserBuilder.setIcon(pooledValue());
 			}
 			else if (currentTag == Tag.BROWSER_INFO_URL)
 			{
-				browserBuilder.setInfoUrl(buffer.toString());
+				browserBuilder.setInfoUrl(pooledValue());
 			}
 		}
 	}
@@ -476,35 +477,35 @@ public final class XmlDataHandler
 		{
 			if (currentTag == Tag.ID)
 			{
-				operatingSystemBuilder.setId(buffer.toString());
+				operatingSystemBuilder.setId(bufferedValue());
 			}
 			else if (currentTag == Tag.FAMILY)
 			{
-				operatingSystemBuilder.setFamily(buffer.toString());
+				operatingSystemBuilder.setFamily(pooledValue());
 			}
 			else if (currentTag == Tag.NAME)
 			{
-				operatingSystemBuilder.setName(buffer.toString());
+				operatingSystemBuilder.setName(bufferedValue());
 			}
 			else if (currentTag == Tag.URL)
 			{
-				operatingSystemBuilder.setUrl(buffer.toString());
+				operatingSystemBuilder.setUrl(bufferedValue());
 			}
 			else if (currentTag == Tag.COMPANY)
 			{
-				operatingSystemBuilder.setProducer(buffer.toString());
+				operatingSystemBuilder.setProducer(pooledValue());
 			}
 			else if (currentTag == Tag.COMPANY_URL)
 			{
-				operatingSystemBuilder.setProducerUrl(buffer.toString());
+				operatingSystemBuilder.setProducerUrl(pooledValue());
 			}
 			else if (currentTag == Tag.ICON)
 			{
-				operatingSystemBuilder.setIcon(buffer.toString());
+				operatingSystemBuilder.setIcon(pooledValue());
 			}
 			else if (currentTag == Tag.OPERATING_SYSTEM_INFO_URL)
 			{
-				operatingSystemBuilder.setInfoUrl(buffer.toString());
+				operatingSystemBuilder.setInfoUrl(pooledValue());
 			}
 		}
 	}
@@ -513,15 +514,15 @@ public final class XmlDataHandler
 	{
 		if (isBrowserPattern && currentTag == Tag.PATTERN_ORDER)
 		{
-			browserPatternBuilder.setPosition(buffer.toString());
+			browserPatternBuilder.setPosition(bufferedValue());
 		}
 		else if (isBrowserPattern && currentTag == Tag.BROWSER_ID)
 		{
-			browserPatternBuilder.setId(buffer.toString());
+			browserPatternBuilder.setId(bufferedValue());
 		}
 		else if (isBrowserPattern && currentTag == Tag.PATTERN_REGEX)
 		{
-			browserPatternBuilder.setPerlRegularExpression(buffer.toString());
+			browserPatternBuilder.setPerlRegularExpression(bufferedValue());
 		}
 	}
 
@@ -529,11 +530,11 @@ public final class XmlDataHandler
 	{
 		if (isBrowserType && currentTag == Tag.ID)
 		{
-			browserTypeBuilder.setId(buffer.toString());
+			browserTypeBuilder.setId(bufferedValue());
 		}
 		else if (isBrowserType && currentTag == Tag.BROWSER_TYPE_ID)
 		{
-			browserTypeBuilder.setName(buffer.toString());
+			browserTypeBuilder.setName(pooledValue());
 		}
 	}
 
@@ -541,11 +542,11 @@ public final class XmlDataHandler
 	{
 		if (isBrowserOsMapping && currentTag == Tag.BROWSER_ID)
 		{
-			browserOsMappingBuilder.setBrowserId(buffer.toString());
+			browserOsMappingBuilder.setBrowserId(bufferedValue());
 		}
 		else if (isBrowserOsMapping && currentTag == Tag.OPERATING_SYSTEM_ID)
 		{
-			browserOsMappingBuilder.setOperatingSystemId(buffer.toString());
+			browserOsMappingBuilder.setOperatingSystemId(bufferedValue());
 		}
 	}
 
@@ -555,15 +556,15 @@ public final class XmlDataHandler
 		{
 			if (currentTag == Tag.PATTERN_ORDER)
 			{
-				operatingSystemPatternBuilder.setPosition(buffer.toString());
+				operatingSystemPatternBuilder.setPosition(bufferedValue());
 			}
 			else if (currentTag == Tag.OPERATING_SYSTEM_ID)
 			{
-				operatingSystemPatternBuilder.setId(buffer.toString());
+				operatingSystemPatternBuilder.setId(bufferedValue());
 			}
 			else if (currentTag == Tag.PATTERN_REGEX)
 			{
-				operatingSystemPatternBuilder.setPerlRegularExpression(buffer.toString());
+				operatingSystemPatternBuilder.setPerlRegularExpression(bufferedValue());
 			}
 		}
 	}
@@ -574,19 +575,19 @@ public final class XmlDataHandler
 		{
 			if (currentTag == Tag.ID)
 			{
-				deviceBuilder.setId(buffer.toString());
+				deviceBuilder.setId(bufferedValue());
 			}
 			else if (currentTag == Tag.NAME)
 			{
-				deviceBuilder.setName(buffer.toString());
+				deviceBuilder.setName(bufferedValue());
 			}
 			else if (currentTag == Tag.ICON)
 			{
-				deviceBuilder.setIcon(buffer.toString());
+				deviceBuilder.setIcon(pooledValue());
 			}
 			else if (currentTag == Tag.DEVICE_INFO_URL)
 			{
-				deviceBuilder.setInfoUrl(buffer.toString());
+				deviceBuilder.setInfoUrl(pooledValue());
 			}
 		}
 	}
@@ -595,15 +596,15 @@ public final class XmlDataHandler
 	{
 		if (isDevicePattern && currentTag == Tag.PATTERN_ORDER)
 		{
-			devicePatternBuilder.setPosition(buffer.toString());
+			devicePatternBuilder.setPosition(bufferedValue());
 		}
 		else if (isDevicePattern && currentTag == Tag.DEVICE_ID)
 		{
-			devicePatternBuilder.setId(buffer.toString());
+			devicePatternBuilder.setId(bufferedValue());
 		}
 		else if (isDevicePattern && currentTag == Tag.PATTERN_REGEX)
 		{
-			devicePatternBuilder.setPerlRegularExpression(buffer.toString());
+			devicePatternBuilder.setPerlRegularExpression(bufferedValue());
 		}
 	}
 
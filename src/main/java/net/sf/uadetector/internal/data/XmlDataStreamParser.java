@@ -0,0 +1,569 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.internal.data;
+
+import net.sf.uadetector.internal.Check;
+import net.sf.uadetector.internal.data.XmlDataHandler.Tag;
+import net.sf.uadetector.internal.data.domain.*;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Non-validating streaming reader for <em>UAS data</em> in XML format, built on StAX.<br>
+ * <br>
+ * In contrast to the {@link XmlDataHandler} the Document Type Definition (DTD) will not be loaded and the document
+ * will not be validated by the XML parser. Instead, every element is looked up in a table of the elements and their
+ * permitted children as declared in the DTD, and the text of each field is passed directly to the builder of the
+ * enclosing entry. After building, an integrity check makes sure that no robot, browser type, browser, operating system
+ * or device entry got lost. A document which passes these checks results in the same {@code Data} as reading it with
+ * the validating {@link XmlDataHandler}.<br>
+ * <br>
+ * An instance reads exactly one document and is not thread-safe.
+ *
+ * @author André Rouél
+ */
+public final class XmlDataStreamParser
+{
+
+	/**
+	 * Permitted child elements of every declared element, leaf elements have no children
+	 */
+	private static final Map<String, Set<String>> CHILDREN = new HashMap<>();
+
+	private static final String MSG_NOT_PARSED_AS_EXPECTED = "The UAS data has not been parsed as expected: %s";
+
+	/**
+	 * Name of the root element
+	 */
+	private static final String ROOT = "uasdata";
+
+	/**
+	 * Tags by their exact names
+	 */
+	private static final Map<String, Tag> TAGS = new HashMap<>();
+
+	static
+	{
+		declare(ROOT, "data", "description");
+		declare("description", "checksum", "version", "label");
+		declare("data", "devices_reg", "devices", "operating_systems_reg", "browsers_os", "browsers_reg", "browser_types", "browsers",
+		        "operating_systems", "robots");
+		declare("robots", "robot");
+		declare("robot", "bot_info_url", "icon", "url_company", "company", "name", "family", "useragent", "id");
+		declare("operating_systems", "os");
+		declare("os", "os_info_url", "icon", "url_company", "company", "url", "name", "family", "id");
+		declare("browsers", "browser");
+		declare("browser", "browser_info_url", "icon", "url_company", "company", "url", "name", "type", "id");
+		declare("browser_types", "browser_type");
+		declare("browser_type", "type", "id");
+		declare("browsers_reg", "browser_reg");
+		declare("browser_reg", "regstring", "browser_id", "order");
+		declare("browsers_os", "browser_os");
+		declare("browser_os", "os_id", "browser_id");
+		declare("operating_systems_reg", "operating_system_reg");
+		declare("operating_system_reg", "regstring", "os_id", "order");
+		declare("devices", "device");
+		declare("device", "device_info_url", "icon", "name", "id");
+		declare("devices_reg", "device_reg");
+		declare("device_reg", "regstring", "device_id", "order");
+		for (Tag tag : Tag.values())
+		{
+			TAGS.put(tag.getTagName(), tag);
+		}
+	}
+
+	@javax.validation.constraints.NotNull
+	private final DataBuilder dataBuilder;
+
+	/**
+	 * Names of the currently opened elements which have children
+	 */
+	@javax.validation.constraints.NotNull
+	private final Deque<String> openElements = new ArrayDeque<>();
+
+	@javax.validation.constraints.NotNull
+	private final XMLStreamReader reader;
+
+	private Browser.Builder browserBuilder = new Browser.Builder();
+	private int browserCount;
+	private BrowserOperatingSystemMapping.Builder browserOsMappingBuilder = new BrowserOperatingSystemMapping.Builder();
+	private BrowserPattern.Builder browserPatternBuilder = new BrowserPattern.Builder();
+	private BrowserType.Builder browserTypeBuilder = new BrowserType.Builder();
+	private int browserTypeCount;
+	private Device.Builder deviceBuilder = new Device.Builder();
+	private int deviceCount;
+	private DevicePattern.Builder devicePatternBuilder = new DevicePattern.Builder();
+
+	/**
+	 * Tag of the entry which is currently read or {@code null}
+	 */
+	private Tag entry;
+
+	private OperatingSystem.Builder operatingSystemBuilder = new OperatingSystem.Builder();
+	private int operatingSystemCount;
+	private OperatingSystemPattern.Builder operatingSystemPatternBuilder = new OperatingSystemPattern.Builder();
+	private Robot.Builder robotBuilder = new Robot.Builder();
+	private int robotCount;
+
+	private XmlDataStreamParser(@javax.validation.constraints.NotNull XMLStreamReader reader, @javax.validation.constraints.NotNull DataBuilder builder)
+	{
+		this.reader = reader;
+		dataBuilder = builder;
+	}
+
+	private static void declare(@javax.validation.constraints.NotNull String element, @javax.validation.constraints.NotNull String... children)
+	{
+		CHILDREN.put(element, new HashSet<>(Arrays.asList(children)));
+		for (String child : children)
+		{
+			CHILDREN.putIfAbsent(child, Collections.emptySet());
+		}
+	}
+
+	/**
+	 * Reads <em>UAS data</em> in XML format from the given stream into the given builder and builds it.
+	 *
+	 * @param stream
+	 * 		an input stream for reading <em>UAS data</em>, which will not be closed
+	 * @param builder
+	 * 		builder to pass the read in entries to
+	 *
+	 * @return read in <em>UAS data</em>
+	 *
+	 * @throws XMLStreamException
+	 * 		if the document is not well-formed or does not conform to the declared elements
+	 * @throws IllegalStateException
+	 * 		if the built {@code Data} does not contain all read in entries
+	 */
+	@javax.validation.constraints.NotNull
+	public static Data parse(@javax.validation.constraints.NotNull InputStream stream, @javax.validation.constraints.NotNull DataBuilder builder)
+			throws XMLStreamException
+	{
+		Check.notNull(stream, "stream");
+		Check.notNull(builder, "builder");
+
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+		XMLStreamReader reader = factory.createXMLStreamReader(stream);
+		try
+		{
+			XmlDataStreamParser parser = new XmlDataStreamParser(reader, builder);
+			parser.read();
+			Data data = builder.build();
+			parser.checkIntegrity(data);
+			return data;
+		}
+		finally
+		{
+			reader.close();
+		}
+	}
+
+	private void checkIntegrity(@javax.validation.constraints.NotNull Data data)
+	{
+		checkCount("robots", robotCount, data.getRobots()
+		                                     .size());
+		checkCount("browser types", browserTypeCount, data.getBrowserTypes()
+		                                                  .size());
+		checkCount("browsers", browserCount, data.getBrowsers()
+		                                         .size());
+		checkCount("operating systems", operatingSystemCount, data.getOperatingSystems()
+		                                                          .size());
+		checkCount("devices", deviceCount, data.getDevices()
+		                                       .size());
+	}
+
+	private static void checkCount(@javax.validation.constraints.NotNull String entries, int read, int built)
+	{
+		if (read != built)
+		{
+			throw new IllegalStateException(String.format(MSG_NOT_PARSED_AS_EXPECTED,
+			                                              read + " " + entries + " have been read, but " + built + " have been built."));
+		}
+	}
+
+	private void endElement()
+	{
+		String name = openElements.pop();
+		if (entry != null && entry.getTagName()
+		                          .equals(name))
+		{
+			saveAndResetEntry();
+			entry = null;
+		}
+	}
+
+	@javax.validation.constraints.NotNull
+	private XMLStreamException newException(@javax.validation.constraints.NotNull String message)
+	{
+		Location location = reader.getLocation();
+		return new XMLStreamException(String.format(MSG_NOT_PARSED_AS_EXPECTED, message) + " (line: " + location.getLineNumber() + ")", location);
+	}
+
+	private void read() throws XMLStreamException
+	{
+		while (reader.hasNext())
+		{
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				startElement(reader.getLocalName());
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT)
+			{
+				endElement();
+			}
+			else if ((event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) && !reader.isWhiteSpace())
+			{
+				throw newException("Text is not allowed in element '" + openElements.peek() + "'");
+			}
+		}
+	}
+
+	private void saveAndResetEntry()
+	{
+		if (entry == Tag.ROBOT)
+		{
+			dataBuilder.appendRobot(robotBuilder.build());
+			robotBuilder = new Robot.Builder();
+			robotCount++;
+		}
+		else if (entry == Tag.BROWSER)
+		{
+			dataBuilder.appendBrowserBuilder(browserBuilder);
+			browserBuilder = new Browser.Builder();
+			browserCount++;
+		}
+		else if (entry == Tag.OPERATING_SYSTEM)
+		{
+			dataBuilder.appendOperatingSystemBuilder(operatingSystemBuilder);
+			operatingSystemBuilder = new OperatingSystem.Builder();
+			operatingSystemCount++;
+		}
+		else if (entry == Tag.BROWSER_TYPE)
+		{
+			dataBuilder.appendBrowserType(browserTypeBuilder.build());
+			browserTypeBuilder = new BrowserType.Builder();
+			browserTypeCount++;
+		}
+		else if (entry == Tag.BROWSER_PATTERN)
+		{
+			dataBuilder.appendBrowserPatternBuilder(browserPatternBuilder);
+			browserPatternBuilder = new BrowserPattern.Builder();
+		}
+		else if (entry == Tag.BROWSER_OS_MAPPING)
+		{
+			dataBuilder.appendBrowserOperatingSystemMapping(browserOsMappingBuilder.build());
+			browserOsMappingBuilder = new BrowserOperatingSystemMapping.Builder();
+		}
+		else if (entry == Tag.OPERATING_SYSTEM_PATTERN)
+		{
+			dataBuilder.appendOperatingSystemPatternBuilder(operatingSystemPatternBuilder);
+			operatingSystemPatternBuilder = new OperatingSystemPattern.Builder();
+		}
+		else if (entry == Tag.DEVICE)
+		{
+			dataBuilder.appendDeviceBuilder(deviceBuilder);
+			deviceBuilder = new Device.Builder();
+			deviceCount++;
+		}
+		else if (entry == Tag.DEVICE_PATTERN)
+		{
+			dataBuilder.appendDevicePatternBuilder(devicePatternBuilder);
+			devicePatternBuilder = new DevicePattern.Builder();
+		}
+	}
+
+	private void setBrowserField(@javax.validation.constraints.NotNull Tag tag, @javax.validation.constraints.NotNull String value)
+	{
+		if (tag == Tag.ID)
+		{
+			browserBuilder.setId(value);
+		}
+		else if (tag == Tag.BROWSER_TYPE_ID)
+		{
+			browserBuilder.setTypeId(value);
+		}
+		else if (tag == Tag.NAME)
+		{
+			browserBuilder.setFamilyName(dataBuilder.intern(value));
+		}
+		else if (tag == Tag.URL)
+		{
+			browserBuilder.setUrl(value);
+		}
+		else if (tag == Tag.COMPANY)
+		{
+			browserBuilder.setProducer(dataBuilder.intern(value));
+		}
+		else if (tag == Tag.COMPANY_URL)
+		{
+			browserBuilder.setProducerUrl(dataBuilder.intern(value));
+		}
+		else if (tag == Tag.ICON)
+		{
+			browserBuilder.setIcon(dataBuilder.intern(value));
+		}
+		else if (tag == Tag.BROWSER_INFO_URL)
+		{
+			browserBuilder.setInfoUrl(dataBuilder.intern(value));
+		}
+	}
+
+	private void setDeviceField(@javax.validation.constraints.NotNull Tag tag, @javax.validation.constraints.NotNull String value)
+	{
+		if (tag == Tag.ID)
+		{
+			deviceBuilder.setId(value);
+		}
+		else if (tag == Tag.NAME)
+		{
+			deviceBuilder.setName(value);
+		}
+		else if (tag == Tag.ICON)
+		{
+			deviceBuilder.setIcon(dataBuilder.intern(value));
+		}
+		else if (tag == Tag.DEVICE_INFO_URL)
+		{
+			deviceBuilder.setInfoUrl(dataBuilder.intern(value));
+		}
+	}
+
+	/**
+	 * Passes the text of a field to the builder of the current entry.
+	 */
+	private void setField(@javax.validation.constraints.NotNull Tag tag, @javax.validation.constraints.NotNull String value)
+	{
+		if (tag == Tag.VERSION)
+		{
+			dataBuilder.setVersion(value);
+		}
+		else if (entry == Tag.ROBOT)
+		{
+			setRobotField(tag, value);
+		}
+		else if (entry == Tag.BROWSER)
+		{
+			setBrowserField(tag, value);
+		}
+		else if (entry == Tag.OPERATING_SYSTEM)
+		{
+			setOperatingSystemField(tag, value);
+		}
+		else if (entry == Tag.BROWSER_TYPE)
+		{
+			if (tag == Tag.ID)
+			{
+				browserTypeBuilder.setId(value);
+			}
+			else if (tag == Tag.BROWSER_TYPE_ID)
+			{
+				browserTypeBuilder.setName(dataBuilder.intern(value));
+			}
+		}
+		else if (entry == Tag.BROWSER_PATTERN)
+		{
+			if (tag == Tag.PATTERN_ORDER)
+			{
+				browserPatternBuilder.setPosition(value);
+			}
+			else if (tag == Tag.BROWSER_ID)
+			{
+				browserPatternBuilder.setId(value);
+			}
+			else if (tag == Tag.PATTERN_REGEX)
+			{
+				browserPatternBuilder.setPerlRegularExpression(value);
+			}
+		}
+		else if (entry == Tag.BROWSER_OS_MAPPING)
+		{
+			if (tag == Tag.BROWSER_ID)
+			{
+				browserOsMappingBuilder.setBrowserId(value);
+			}
+			else if (tag == Tag.OPERATING_SYSTEM_ID)
+			{
+				browserOsMappingBuilder.setOperatingSystemId(value);
+			}
+		}
+		else if (entry == Tag.OPERATING_SYSTEM_PATTERN)
+		{
+			if (tag == Tag.PATTERN_ORDER)
+			{
+				operatingSystemPatternBuilder.setPosition(value);
+			}
+			else if (tag == Tag.OPERATING_SYSTEM_ID)
+			{
+				operatingSystemPatternBuilder.setId(value);
+			}
+			else if (tag == Tag.PATTERN_REGEX)
+			{
+				operatingSystemPatternBuilder.setPerlRegularExpression(value);
+			}
+		}
+		else if (entry == Tag.DEVICE)
+		{
+			setDeviceField(tag, value);
+		}
+		else if (entry == Tag.DEVICE_PATTERN)
+		{
+			if (tag == Tag.PATTERN_ORDER)
+			{
+				devicePatternBuilder.setPosition(value);
+			}
+			else if (tag == Tag.DEVICE_ID)
+			{
+				devicePatternBuilder.setId(value);
+			}
+			else if (tag == Tag.PATTERN_REGEX)
+			{
+				devicePatternBuilder.setPerlRegularExpression(value);
+			}
+		}
+	}
+
+	private void setOperatingSystemField(@javax.validation.constraints.NotNull Tag tag, @javax.validation.constraints.NotNull String value)
+	{
+		if (tag == Tag.ID)
+		{
+			operatingSystemBuilder.setId(value);
+		}
+		else if (tag == Tag.FAMILY)
+		{
+			operatingSystemBuilder.setFamily(dataBuilder.intern(value));
+		}
+		else if (tag == Tag.NAME)
+		{
+			operatingSystemBuilder.setName(value);
+		}
+		else if (tag == Tag.URL)
+		{
+			operatingSystemBuilder.setUrl(value);
+		}
+		else if (tag == Tag.COMPANY)
+		{
+			operatingSystemBuilder.setProducer(dataBuilder.intern(value));
+		}
+		else if (tag == Tag.COMPANY_URL)
+		{
+			operatingSystemBuilder.setProducerUrl(dataBuilder.intern(value));
+		}
+		else if (tag == Tag.ICON)
+		{
+			operatingSystemBuilder.setIcon(dataBuilder.intern(value));
+		}
+		else if (tag == Tag.OPERATING_SYSTEM_INFO_URL)
+		{
+			operatingSystemBuilder.setInfoUrl(dataBuilder.intern(value));
+		}
+	}
+
+	private void setRobotField(@javax.validation.constraints.NotNull Tag tag, @javax.validation.constraints.NotNull String value)
+	{
+		if (tag == Tag.ID)
+		{
+			robotBuilder.setId(value);
+		}
+		else if (tag == Tag.USERAGENT)
+		{
+			robotBuilder.setUserAgentString(value);
+		}
+		else if (tag == Tag.FAMILY)
+		{
+			robotBuilder.setFamilyName(dataBuilder.intern(value));
+		}
+		else if (tag == Tag.NAME)
+		{
+			robotBuilder.setName(value);
+		}
+		else if (tag == Tag.COMPANY)
+		{
+			robotBuilder.setProducer(dataBuilder.intern(value));
+		}
+		else if (tag == Tag.COMPANY_URL)
+		{
+			robotBuilder.setProducerUrl(dataBuilder.intern(value));
+		}
+		else if (tag == Tag.ICON)
+		{
+			robotBuilder.setIcon(dataBuilder.intern(value));
+		}
+		else if (tag == Tag.ROBOT_INFO_URL)
+		{
+			robotBuilder.setInfoUrl(dataBuilder.intern(value));
+		}
+	}
+
+	private void startElement(@javax.validation.constraints.NotNull String name) throws XMLStreamException
+	{
+		String parent = openElements.peek();
+		Set<String> children = CHILDREN.get(name);
+		if (children == null)
+		{
+			throw newException("Element '" + name + "' is not declared");
+		}
+		if (parent == null ? !ROOT.equals(name) : !CHILDREN.get(parent)
+		                                                   .contains(name))
+		{
+			throw newException("Element '" + name + "' is not allowed in " + (parent == null ? "the root" : "element '" + parent + "'"));
+		}
+		for (int i = 0; i < reader.getAttributeCount(); i++)
+		{
+			if (!"checksum".equals(name) || !"type".equals(reader.getAttributeLocalName(i)))
+			{
+				throw newException("Attribute '" + reader.getAttributeLocalName(i) + "' is not declared in element '" + name + "'");
+			}
+		}
+
+		Tag tag = TAGS.get(name);
+		if (children.isEmpty())
+		{
+			// fields contain only text, which ends with the end tag of the field
+			String value = reader.getElementText();
+			if (tag != null)
+			{
+				setField(tag, value);
+			}
+		}
+		else
+		{
+			openElements.push(name);
+			if (tag != null && entry == null && isEntry(tag))
+			{
+				entry = tag;
+			}
+		}
+	}
+
+	private static boolean isEntry(@javax.validation.constraints.NotNull Tag tag)
+	{
+		return tag == Tag.ROBOT || tag == Tag.BROWSER || tag == Tag.OPERATING_SYSTEM || tag == Tag.BROWSER_TYPE || tag == Tag.BROWSER_PATTERN
+		       || tag == Tag.BROWSER_OS_MAPPING || tag == Tag.OPERATING_SYSTEM_PATTERN || tag == Tag.DEVICE || tag == Tag.DEVICE_PATTERN;
+	}
+
+}
@@ -16,6 +16,7 @@
 package net.sf.uadetector.internal.data.domain;
 
 import net.sf.uadetector.internal.Check;
+import net.sf.uadetector.internal.util.LazyPattern;
 import net.sf.uadetector.internal.util.RegularExpressionConverter;
 
 import java.io.Serializable;
@@ -40,10 +41,10 @@ public final class BrowserPattern
 
 	private final int id;
 	/**
-	 * A compiled representation of a regular expression to detect a browser
+	 * A regular expression to detect a browser, which may be compiled on first use
 	 */
 	@javax.validation.constraints.NotNull
-	private final Pattern pattern;
+	private final LazyPattern pattern;
 	/**
 	 * Position of a {@code BrowserPattern} (only relevant if there are multiple patterns for a browser in a
 	 * {@code SortedSet})
@@ -52,6 +53,21 @@ public final class BrowserPattern
 	private final int position;
 
 	public BrowserPattern(int id, @javax.validation.constraints.NotNull Pattern pattern, int position)
+	{
+		this(id, LazyPattern.of(Check.notNull(pattern, "pattern")), position);
+	}
+
+	/**
+	 * Constructs a {@code BrowserPattern} whose regular expression may not be compiled before first use.
+	 *
+	 * @param id
+	 * 		identification number
+	 * @param pattern
+	 * 		regular expression which will be compiled on first use
+	 * @param position
+	 * 		position in a set of patterns
+	 */
+	public BrowserPattern(int id, @javax.validation.constraints.NotNull LazyPattern pattern, int position)
 	{
 		Check.notNegative(id, "id");
 		Check.notNull(pattern, "pattern");
@@ -88,14 +104,11 @@ public final class BrowserPattern
 			}
 			if (result == 0)
 			{
-				result = getPattern().pattern()
-				                     .compareTo(other.getPattern()
-				                                     .pattern());
+				result = getPatternSource().compareTo(other.getPatternSource());
 			}
 			if (result == 0)
 			{
-				result = compareInt(getPattern().flags(), other.getPattern()
-				                                               .flags());
+				result = compareInt(getPatternFlags(), other.getPatternFlags());
 			}
 		}
 		return result;
@@ -139,7 +152,19 @@ public final class BrowserPattern
 	@Override
 	public Pattern getPattern()
 	{
-		return pattern;
+		return pattern.get();
+	}
+
+	@Override
+	public int getPatternFlags()
+	{
+		return pattern.flags();
+	}
+
+	@Override
+	public String getPatternSource()
+	{
+		return pattern.pattern();
 	}
 
 	@Override
@@ -232,6 +257,11 @@ public final class BrowserPattern
 		 */
 		private int position = Integer.MIN_VALUE;
 
+		/**
+		 * PERL style regular expression which will be converted and compiled when building
+		 */
+		private String perlRegularExpression;
+
 		/**
 		 * Builds a new instance of {@code BrowserPattern} and returns it.
 		 *
@@ -241,11 +271,33 @@ public final class BrowserPattern
 		 * 		if one of the needed arguments to build an instance of {@code BrowserPattern} is invalid
 		 * 		<p>
 		 * 		if one of the needed arguments to build an instance of {@code BrowserPattern} is invalid
+		 * @throws java.util.regex.PatternSyntaxException
+		 * 		if the PERL regular expression cannot be compiled
 		 */
 		@javax.validation.constraints.NotNull
 		public BrowserPattern build()
 		{
-			return new BrowserPattern(id, pattern, position);
+			Pattern compiled = perlRegularExpression != null ? RegularExpressionConverter.convertPerlRegexToPattern(perlRegularExpression) : pattern;
+			return new BrowserPattern(id, compiled, position);
+		}
+
+		/**
+		 * Builds a new instance of {@code BrowserPattern} whose PERL regular expression will not be compiled before it is
+		 * used for the first time.
+		 *
+		 * @return a new instance of {@code BrowserPattern}
+		 *
+		 * @throws net.sf.uadetector.exception.IllegalNegativeArgumentException
+		 * 		if one of the needed arguments to build an instance of {@code BrowserPattern} is invalid
+		 * @throws IllegalArgumentException
+		 * 		if the PERL regular expression has unsupported modifiers
+		 */
+		@javax.validation.constraints.NotNull
+		public BrowserPattern buildLazily()
+		{
+			LazyPattern lazyPattern = perlRegularExpression != null ? RegularExpressionConverter.convertPerlRegexToLazyPattern(perlRegularExpression) : LazyPattern.of(
+					Check.notNull(pattern, "pattern"));
+			return new BrowserPattern(id, lazyPattern, position);
 		}
 
 		/**
@@ -295,7 +347,8 @@ public final class BrowserPattern
 		}
 
 		/**
-		 * Converts a PERL regular expression in a Java regular expression and sets it in the {@code Builder}.
+		 * Sets a PERL regular expression in the {@code Builder}, which will be converted in a Java regular expression
+		 * and compiled when building.
 		 *
 		 * @param regex
 		 * 		PERL style regular expression to be converted
@@ -307,7 +360,8 @@ public final class BrowserPattern
 		{
 			Check.notEmpty(regex, "regex");
 
-			setPattern(RegularExpressionConverter.convertPerlRegexToPattern(regex));
+			perlRegularExpression = regex;
+			pattern = null;
 			return this;
 		}
 
@@ -325,6 +379,7 @@ public final class BrowserPattern
 			Check.notNull(pattern, "pattern");
 
 			this.pattern = pattern;
+			perlRegularExpression = null;
 			return this;
 		}
 
@@ -16,6 +16,7 @@
 package net.sf.uadetector.internal.data.domain;
 
 import net.sf.uadetector.internal.Check;
+import net.sf.uadetector.internal.util.LazyPattern;
 import net.sf.uadetector.internal.util.RegularExpressionConverter;
 
 import java.io.Serializable;
@@ -40,10 +41,10 @@ public final class DevicePattern
 
 	private final int id;
 	/**
-	 * A compiled representation of a regular expression to detect a device
+	 * A regular expression to detect a device, which may be compiled on first use
 	 */
 	@javax.validation.constraints.NotNull
-	private final Pattern pattern;
+	private final LazyPattern pattern;
 	/**
 	 * Position of a {@code DevicePattern} (only relevant if there are multiple patterns for a device in a
 	 * {@code SortedSet})
@@ -52,6 +53,21 @@ public final class DevicePattern
 	private final int position;
 
 	public DevicePattern(int id, @javax.validation.constraints.NotNull Pattern pattern, int position)
+	{
+		this(id, LazyPattern.of(Check.notNull(pattern, "pattern")), position);
+	}
+
+	/**
+	 * Constructs a {@code DevicePattern} whose regular expression may not be compiled before first use.
+	 *
+	 * @param id
+	 * 		identification number
+	 * @param pattern
+	 * 		regular expression which will be compiled on first use
+	 * @param position
+	 * 		position in a set of patterns
+	 */
+	public DevicePattern(int id, @javax.validation.constraints.NotNull LazyPattern pattern, int position)
 	{
 		Check.notNegative(id, "id");
 		Check.notNull(pattern, "pattern");
@@ -87,14 +103,11 @@ public final class DevicePattern
 			}
 			if (result == 0)
 			{
-				result = getPattern().pattern()
-				                     .compareTo(other.getPattern()
-				                                     .pattern());
+				result = getPatternSource().compareTo(other.getPatternSource());
 			}
 			if (result == 0)
 			{
-				result = compareInt(getPattern().flags(), other.getPattern()
-				                                               .flags());
+				result = compareInt(getPatternFlags(), other.getPatternFlags());
 			}
 		}
 		return result;
@@ -138,7 +151,19 @@ public final class DevicePattern
 	@Override
 	public Pattern getPattern()
 	{
-		return pattern;
+		return pattern.get();
+	}
+
+	@Override
+	public int getPatternFlags()
+	{
+		return pattern.flags();
+	}
+
+	@Override
+	public String getPatternSource()
+	{
+		return pattern.pattern();
 	}
 
 	@Override
@@ -231,6 +256,11 @@ public final class DevicePattern
 		 */
 		private int position = Integer.MIN_VALUE;
 
+		/**
+		 * PERL style regular expression which will be converted and compiled when building
+		 */
+		private String perlRegularExpression;
+
 		/**
 		 * Builds a new instance of {@code DevicePattern} and returns it.
 		 *
@@ -240,11 +270,33 @@ public final class DevicePattern
 		 * 		if one of the needed arguments to build an instance of {@code DevicePattern} is invalid
 		 * 		<p>
 		 * 		if one of the needed arguments to build an instance of {@code DevicePattern} is invalid
+		 * @throws java.util.regex.PatternSyntaxException
+		 * 		if the PERL regular expression cannot be compiled
 		 */
 		@javax.validation.constraints.NotNull
 		public DevicePattern build()
 		{
-			return new DevicePattern(id, pattern, position);
+			Pattern compiled = perlRegularExpression != null ? RegularExpressionConverter.convertPerlRegexToPattern(perlRegularExpression) : pattern;
+			return new DevicePattern(id, compiled, position);
+		}
+
+		/**
+		 * Builds a new instance of {@code DevicePattern} whose PERL regular expression will not be compiled before it is
+		 * used for the first time.
+		 *
+		 * @return a new instance of {@code DevicePattern}
+		 *
+		 * @throws net.sf.uadetector.exception.IllegalNegativeArgumentException
+		 * 		if one of the needed arguments to build an instance of {@code DevicePattern} is invalid
+		 * @throws IllegalArgumentException
+		 * 		if the PERL regular expression has unsupported modifiers
+		 */
+		@javax.validation.constraints.NotNull
+		public DevicePattern buildLazily()
+		{
+			LazyPattern lazyPattern = perlRegularExpression != null ? RegularExpressionConverter.convertPerlRegexToLazyPattern(perlRegularExpression) : LazyPattern.of(
+					Check.notNull(pattern, "pattern"));
+			return new DevicePattern(id, lazyPattern, position);
 		}
 
 		/**
@@ -294,7 +346,8 @@ public final class DevicePattern
 		}
 
 		/**
-		 * Converts a PERL regular expression in a Java regular expression and sets it in the {@code Builder}.
+		 * Sets a PERL regular expression in the {@code Builder}, which will be converted in a Java regular expression
+		 * and compiled when building.
 		 *
 		 * @param regex
 		 * 		PERL style regular expression to be converted
@@ -306,7 +359,8 @@ public final class DevicePattern
 		{
 			Check.notEmpty(regex, "regex");
 
-			setPattern(RegularExpressionConverter.convertPerlRegexToPattern(regex));
+			perlRegularExpression = regex;
+			pattern = null;
 			return this;
 		}
 
@@ -324,6 +378,7 @@ public final class DevicePattern
 			Check.notNull(pattern, "pattern");
 
 			this.pattern = pattern;
+			perlRegularExpression = null;
 			return this;
 		}
 
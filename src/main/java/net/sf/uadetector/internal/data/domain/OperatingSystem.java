@@ -49,6 +49,11 @@ public final class OperatingSystem
 	private final String producer;
 	@javax.validation.constraints.NotNull
 	private final String producerUrl;
+	/**
+	 * Shared detection result of this entry without version information
+	 */
+	@javax.validation.constraints.NotNull
+	private final net.sf.uadetector.OperatingSystem template;
 	@javax.validation.constraints.NotNull
 	private final String url;
 
@@ -66,6 +71,8 @@ public final class OperatingSystem
 		this.url = Check.notNull(url, "url");
 		this.icon = Check.notNull(icon, "icon");
 		hash = buildHashCode(id, name, family, infoUrl, patterns, producer, producerUrl, url, icon);
+		template = new net.sf.uadetector.OperatingSystem(OperatingSystemFamily.evaluate(family), family, icon, name, producer, producerUrl, url,
+		                                                 VersionNumber.UNKNOWN);
 	}
 
 	private static int buildHashCode(int id, @javax.validation.constraints.NotNull String name, @javax.validation.constraints.NotNull String family,
@@ -87,16 +94,26 @@ public final class OperatingSystem
 	}
 
 	/**
-	 * Copies all information of the current operating system entry to the given user agent builder.
+	 * Copies all information of the current operating system entry to the given user agent builder.<br>
+	 * <br>
+	 * The family and all descriptive information of the entry have been determined at construction. If no version can
+	 * be found in the user agent string, the shared result of this entry will be set instead of creating a new one.
 	 *
 	 * @param builder
 	 * 		user agent builder
 	 */
 	public void copyTo(@javax.validation.constraints.NotNull UserAgent.Builder builder)
 	{
-		OperatingSystemFamily f = OperatingSystemFamily.evaluate(family);
-		VersionNumber version = VersionNumber.parseOperatingSystemVersion(f, builder.getUserAgentString());
-		builder.setOperatingSystem(new net.sf.uadetector.OperatingSystem(f, family, icon, name, producer, producerUrl, url, version));
+		VersionNumber version = VersionNumber.parseOperatingSystemVersion(template.getFamily(), builder.getUserAgentString());
+		if (VersionNumber.UNKNOWN.equals(version))
+		{
+			builder.setOperatingSystem(template);
+		}
+		else
+		{
+			builder.setOperatingSystem(new net.sf.uadetector.OperatingSystem(template.getFamily(), family, icon, name, producer, producerUrl, url,
+			                                                                 version));
+		}
 	}
 
 	@javax.validation.constraints.NotNull
@@ -17,6 +17,7 @@ package net.sf.uadetector.internal.data.domain;
 
 import net.sf.uadetector.internal.Check;
 import net.sf.uadetector.internal.util.CompareNullSafe;
+import net.sf.uadetector.internal.util.LazyPattern;
 import net.sf.uadetector.internal.util.RegularExpressionConverter;
 
 import java.io.Serializable;
@@ -41,10 +42,10 @@ public final class OperatingSystemPattern
 
 	private final int id;
 	/**
-	 * A compiled representation of a regular expression to detect an operating system
+	 * A regular expression to detect an operating system, which may be compiled on first use
 	 */
 	@javax.validation.constraints.NotNull
-	private final Pattern pattern;
+	private final LazyPattern pattern;
 	/**
 	 * Position of a {@code OperatingSystemPattern} (only relevant if there are multiple patterns for an operating
 	 * system in a {@code SortedSet})
@@ -53,6 +54,21 @@ public final class OperatingSystemPattern
 	private final int position;
 
 	public OperatingSystemPattern(int id, @javax.validation.constraints.NotNull Pattern pattern, int position)
+	{
+		this(id, LazyPattern.of(Check.notNull(pattern, "pattern")), position);
+	}
+
+	/**
+	 * Constructs a {@code OperatingSystemPattern} whose regular expression may not be compiled before first use.
+	 *
+	 * @param id
+	 * 		identification number
+	 * @param pattern
+	 * 		regular expression which will be compiled on first use
+	 * @param position
+	 * 		position in a set of patterns
+	 */
+	public OperatingSystemPattern(int id, @javax.validation.constraints.NotNull LazyPattern pattern, int position)
 	{
 		Check.notNegative(id, "id");
 		Check.notNull(pattern, "pattern");
@@ -88,14 +104,11 @@ public final class OperatingSystemPattern
 			}
 			if (result == 0)
 			{
-				result = getPattern().pattern()
-				                     .compareTo(other.getPattern()
-				                                     .pattern());
+				result = getPatternSource().compareTo(other.getPatternSource());
 			}
 			if (result == 0)
 			{
-				result = CompareNullSafe.compareInt(getPattern().flags(), other.getPattern()
-				                                                               .flags());
+				result = CompareNullSafe.compareInt(getPatternFlags(), other.getPatternFlags());
 			}
 		}
 		return result;
@@ -115,7 +128,19 @@ public final class OperatingSystemPattern
 	@Override
 	public Pattern getPattern()
 	{
-		return pattern;
+		return pattern.get();
+	}
+
+	@Override
+	public int getPatternFlags()
+	{
+		return pattern.flags();
+	}
+
+	@Override
+	public String getPatternSource()
+	{
+		return pattern.pattern();
 	}
 
 	@Override
@@ -208,6 +233,11 @@ public final class OperatingSystemPattern
 		 */
 		private int position = Integer.MIN_VALUE;
 
+		/**
+		 * PERL style regular expression which will be converted and compiled when building
+		 */
+		private String perlRegularExpression;
+
 		/**
 		 * Builds a new instance of {@code OperatingSystemPattern} and returns it.
 		 *
@@ -217,10 +247,32 @@ public final class OperatingSystemPattern
 		 * 		if one of the needed arguments to build an instance of {@code OperatingSystemPattern} is invalid
 		 * 		<p>
 		 * 		if one of the needed arguments to build an instance of {@code OperatingSystemPattern} is invalid
+		 * @throws java.util.regex.PatternSyntaxException
+		 * 		if the PERL regular expression cannot be compiled
 		 */
 		public OperatingSystemPattern build()
 		{
-			return new OperatingSystemPattern(id, pattern, position);
+			Pattern compiled = perlRegularExpression != null ? RegularExpressionConverter.convertPerlRegexToPattern(perlRegularExpression) : pattern;
+			return new OperatingSystemPattern(id, compiled, position);
+		}
+
+		/**
+		 * Builds a new instance of {@code OperatingSystemPattern} whose PERL regular expression will not be compiled before it is
+		 * used for the first time.
+		 *
+		 * @return a new instance of {@code OperatingSystemPattern}
+		 *
+		 * @throws net.sf.uadetector.exception.IllegalNegativeArgumentException
+		 * 		if one of the needed arguments to build an instance of {@code OperatingSystemPattern} is invalid
+		 * @throws IllegalArgumentException
+		 * 		if the PERL regular expression has unsupported modifiers
+		 */
+		@javax.validation.constraints.NotNull
+		public OperatingSystemPattern buildLazily()
+		{
+			LazyPattern lazyPattern = perlRegularExpression != null ? RegularExpressionConverter.convertPerlRegexToLazyPattern(perlRegularExpression) : LazyPattern.of(
+					Check.notNull(pattern, "pattern"));
+			return new OperatingSystemPattern(id, lazyPattern, position);
 		}
 
 		/**
@@ -268,7 +320,8 @@ public final class OperatingSystemPattern
 		}
 
 		/**
-		 * Converts a PERL regular expression in a Java regular expression and sets it in the {@code Builder}.
+		 * Sets a PERL regular expression in the {@code Builder}, which will be converted in a Java regular expression
+		 * and compiled when building.
 		 *
 		 * @param regex
 		 * 		PERL style regular expression to be converted
@@ -279,7 +332,8 @@ public final class OperatingSystemPattern
 		{
 			Check.notEmpty(regex, "regex");
 
-			setPattern(RegularExpressionConverter.convertPerlRegexToPattern(regex));
+			perlRegularExpression = regex;
+			pattern = null;
 			return this;
 		}
 
@@ -296,6 +350,7 @@ public final class OperatingSystemPattern
 			Check.notNull(pattern, "pattern");
 
 			this.pattern = pattern;
+			perlRegularExpression = null;
 			return this;
 		}
 
@@ -31,6 +31,21 @@ public interface OrderedPattern<T extends OrderedPattern<?>>
 	@javax.validation.constraints.NotNull
 	Pattern getPattern();
 
+	/**
+	 * Gets the match flags of the regular expression without compiling it.
+	 *
+	 * @return match flags of {@link Pattern}
+	 */
+	int getPatternFlags();
+
+	/**
+	 * Gets the source of the regular expression without compiling it.
+	 *
+	 * @return source of the regular expression
+	 */
+	@javax.validation.constraints.NotNull
+	String getPatternSource();
+
 	/**
 	 * Gets the position of a browser pattern in a set of patterns.
 	 *
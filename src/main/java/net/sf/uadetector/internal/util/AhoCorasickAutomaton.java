@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.internal.util;
+
+import net.sf.uadetector.internal.Check;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * An <a href="http://en.wikipedia.org/wiki/Aho%E2%80%93Corasick_string_matching_algorithm">Aho-Corasick</a> automaton
+ * to find all occurrences of a set of keywords in a text with a single pass over it.<br>
+ * <br>
+ * The automaton is compiled into a deterministic transition table, so each character of a text costs exactly one
+ * table lookup. Keywords and texts are compared case-insensitive with respect to the letters of the US-ASCII charset.
+ * <p>
+ * An instance of {@code AhoCorasickAutomaton} is immutable and can be shared between threads.
+ *
+ * @author André Rouél
+ */
+public final class AhoCorasickAutomaton
+		implements Serializable
+{
+
+	/**
+	 * Character class of all characters which do not occur in any keyword
+	 */
+	private static final int FOREIGN_CLASS = 0;
+
+	/**
+	 * Number of characters which will be classified via a lookup table
+	 */
+	private static final int LOOKUP_TABLE_SIZE = 128;
+
+	/**
+	 * State which marks the absence of an entry
+	 */
+	private static final int NONE = -1;
+
+	/**
+	 * The root state
+	 */
+	private static final int ROOT = 0;
+
+	private static final long serialVersionUID = 1634850342167312805L;
+
+	/**
+	 * Character class of each US-ASCII character
+	 */
+	@javax.validation.constraints.NotNull
+	private final int[] asciiClasses;
+
+	/**
+	 * Number of character classes including {@link #FOREIGN_CLASS}
+	 */
+	private final int classCount;
+
+	/**
+	 * Next state with a keyword on the chain of failure links of each state or {@link #ROOT}
+	 */
+	@javax.validation.constraints.NotNull
+	private final int[] dictionaryLinks;
+
+	/**
+	 * Index of the keyword which ends in each state or {@link #NONE}
+	 */
+	@javax.validation.constraints.NotNull
+	private final int[] keywordIndexes;
+
+	/**
+	 * Character classes of characters beyond the US-ASCII charset
+	 */
+	@javax.validation.constraints.NotNull
+	private final Map<Character, Integer> otherClasses;
+
+	/**
+	 * Deterministic transition table with {@link #classCount} entries per state
+	 */
+	@javax.validation.constraints.NotNull
+	private final int[] transitions;
+
+	/**
+	 * Constructs an {@code AhoCorasickAutomaton} for the given keywords. The index of a keyword corresponds to its
+	 * position in the passed list. Keywords which are contained more than once will be reported with the index of their
+	 * first occurrence.
+	 *
+	 * @param keywords
+	 * 		list of keywords
+	 *
+	 * @throws net.sf.uadetector.exception.IllegalNullArgumentException
+	 * 		if the given list or one of its entries is {@code null}
+	 * @throws net.sf.uadetector.exception.IllegalStateOfArgumentException
+	 * 		if one of the given keywords is empty
+	 */
+	public AhoCorasickAutomaton(@javax.validation.constraints.NotNull List<String> keywords)
+	{
+		Check.notNull(keywords, "keywords");
+
+		// classify all characters which are part of at least one keyword
+		asciiClasses = new int[LOOKUP_TABLE_SIZE];
+		otherClasses = new HashMap<>();
+		int classes = FOREIGN_CLASS + 1;
+		for (String keyword : keywords)
+		{
+			Check.notNull(keyword, "keyword");
+			Check.stateIsTrue(!keyword.isEmpty(), "A keyword must not be empty.");
+			for (int i = 0; i < keyword.length(); i++)
+			{
+				char c = toLowerCase(keyword.charAt(i));
+				if (c < LOOKUP_TABLE_SIZE)
+				{
+					if (asciiClasses[c] == FOREIGN_CLASS)
+					{
+						asciiClasses[c] = classes++;
+					}
+				}
+				else if (!otherClasses.containsKey(c))
+				{
+					otherClasses.put(c, classes++);
+				}
+			}
+		}
+		for (char c = 'A'; c <= 'Z'; c++)
+		{
+			asciiClasses[c] = asciiClasses[toLowerCase(c)];
+		}
+		classCount = classes;
+
+		// build the trie
+		int[] trie = new int[classCount * 16];
+		Arrays.fill(trie, NONE);
+		int[] keywordOfState = new int[16];
+		Arrays.fill(keywordOfState, NONE);
+		int stateCount = 1;
+		for (int index = 0; index < keywords.size(); index++)
+		{
+			String keyword = keywords.get(index);
+			int state = ROOT;
+			for (int i = 0; i < keyword.length(); i++)
+			{
+				int offset = state * classCount + classify(keyword.charAt(i));
+				if (trie[offset] == NONE)
+				{
+					if ((stateCount + 1) * classCount > trie.length)
+					{
+						int oldLength = trie.length;
+						trie = Arrays.copyOf(trie, oldLength * 2);
+						Arrays.fill(trie, oldLength, trie.length, NONE);
+						int oldStates = keywordOfState.length;
+						keywordOfState = Arrays.copyOf(keywordOfState, trie.length / classCount);
+						Arrays.fill(keywordOfState, oldStates, keywordOfState.length, NONE);
+					}
+					trie[offset] = stateCount++;
+				}
+				state = trie[offset];
+			}
+			if (keywordOfState[state] == NONE)
+			{
+				keywordOfState[state] = index;
+			}
+		}
+
+		// compute failure links in breadth-first order and complete the transition table
+		transitions = Arrays.copyOf(trie, stateCount * classCount);
+		keywordIndexes = Arrays.copyOf(keywordOfState, stateCount);
+		dictionaryLinks = new int[stateCount];
+		int[] failureLinks = new int[stateCount];
+		Deque<Integer> queue = new ArrayDeque<>();
+		for (int c = 0; c < classCount; c++)
+		{
+			int child = transitions[c];
+			if (child == NONE)
+			{
+				transitions[c] = ROOT;
+			}
+			else
+			{
+				failureLinks[child] = ROOT;
+				queue.add(child);
+			}
+		}
+		while (!queue.isEmpty())
+		{
+			int state = queue.poll();
+			int failure = failureLinks[state];
+			dictionaryLinks[state] = keywordIndexes[failure] != NONE ? failure : dictionaryLinks[failure];
+			for (int c = 0; c < classCount; c++)
+			{
+				int offset = state * classCount + c;
+				int child = transitions[offset];
+				if (child == NONE)
+				{
+					transitions[offset] = transitions[failure * classCount + c];
+				}
+				else
+				{
+					failureLinks[child] = transitions[failure * classCount + c];
+					queue.add(child);
+				}
+			}
+		}
+	}
+
+	private static char toLowerCase(char c)
+	{
+		return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+	}
+
+	private int classify(char c)
+	{
+		if (c < LOOKUP_TABLE_SIZE)
+		{
+			return asciiClasses[c];
+		}
+		Integer characterClass = otherClasses.get(c);
+		return characterClass != null ? characterClass : FOREIGN_CLASS;
+	}
+
+	/**
+	 * Finds all keywords which occur in the given text and reports their indexes to the given consumer. A keyword
+	 * which occurs multiple times will be reported multiple times.
+	 *
+	 * @param text
+	 * 		text to search in
+	 * @param consumer
+	 * 		receiver of the indexes of found keywords
+	 */
+	public void find(@javax.validation.constraints.NotNull CharSequence text, @javax.validation.constraints.NotNull IntConsumer consumer)
+	{
+		Check.notNull(text, "text");
+		Check.notNull(consumer, "consumer");
+
+		int state = ROOT;
+		for (int i = 0; i < text.length(); i++)
+		{
+			state = transitions[state * classCount + classify(text.charAt(i))];
+			for (int match = state; match != ROOT; match = dictionaryLinks[match])
+			{
+				if (keywordIndexes[match] != NONE)
+				{
+					consumer.accept(keywordIndexes[match]);
+				}
+			}
+		}
+	}
+
+}
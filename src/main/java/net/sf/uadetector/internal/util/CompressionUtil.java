@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.internal.util;
+
+import net.sf.uadetector.internal.Check;
+
+import java.io.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class is intended to provide utility functions to read and write GZIP compressed content transparently.<br>
+ * <br>
+ * Compressed content will be detected when reading by its leading magic bytes, regardless of the name of the source.
+ * Whether a file will be written compressed is determined by the suffix {@value #GZIP_SUFFIX} of its name.
+ *
+ * @author André Rouél
+ */
+public final class CompressionUtil
+{
+
+	/**
+	 * Suffix of the names of files which should be written GZIP compressed
+	 */
+	public static final String GZIP_SUFFIX = ".gz";
+
+	/**
+	 * Size of the buffers to copy and compress content
+	 */
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * First byte of the magic number of the GZIP format
+	 */
+	private static final int GZIP_MAGIC_1 = 0x1f;
+
+	/**
+	 * Second byte of the magic number of the GZIP format
+	 */
+	private static final int GZIP_MAGIC_2 = 0x8b;
+
+	/**
+	 * <strong>Attention:</strong> This class is not intended to create objects from it.
+	 */
+	private CompressionUtil()
+	{
+		// This class is not intended to create objects from it.
+	}
+
+	/**
+	 * Copies the entire content of the given input stream to the given output stream. None of the streams will be
+	 * closed.
+	 *
+	 * @param inputStream
+	 * 		stream to read from
+	 * @param outputStream
+	 * 		stream to write to
+	 *
+	 * @return number of copied bytes
+	 *
+	 * @throws IOException
+	 * 		if an I/O error occurs
+	 */
+	public static long copy(@javax.validation.constraints.NotNull InputStream inputStream, @javax.validation.constraints.NotNull OutputStream outputStream)
+			throws IOException
+	{
+		Check.notNull(inputStream, "inputStream");
+		Check.notNull(outputStream, "outputStream");
+
+		byte[] buffer = new byte[BUFFER_SIZE];
+		long count = 0;
+		int read;
+		while ((read = inputStream.read(buffer)) != -1)
+		{
+			outputStream.write(buffer, 0, read);
+			count += read;
+		}
+		return count;
+	}
+
+	/**
+	 * Wraps the given stream into a decompressing stream if its content starts with the magic number of the GZIP
+	 * format, otherwise the content will be passed through unchanged. Closing the returned stream closes the given
+	 * one.
+	 *
+	 * @param inputStream
+	 * 		stream with possibly compressed content
+	 *
+	 * @return stream of the uncompressed content
+	 *
+	 * @throws IOException
+	 * 		if an I/O error occurs
+	 */
+	@javax.validation.constraints.NotNull
+	public static InputStream decompressIfNecessary(@javax.validation.constraints.NotNull InputStream inputStream) throws IOException
+	{
+		Check.notNull(inputStream, "inputStream");
+
+		InputStream stream = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream, BUFFER_SIZE);
+		stream.mark(2);
+		int first = stream.read();
+		int second = stream.read();
+		stream.reset();
+		return first == GZIP_MAGIC_1 && second == GZIP_MAGIC_2 ? new GZIPInputStream(stream, BUFFER_SIZE) : stream;
+	}
+
+	/**
+	 * Checks whether the given file should be written compressed, what is the case if its name ends with
+	 * {@value #GZIP_SUFFIX}.
+	 *
+	 * @param file
+	 * 		file to check
+	 *
+	 * @return {@code true} if the file should contain compressed content, otherwise {@code false}
+	 */
+	public static boolean isCompressed(@javax.validation.constraints.NotNull File file)
+	{
+		Check.notNull(file, "file");
+		return file.getName()
+		           .endsWith(GZIP_SUFFIX);
+	}
+
+	/**
+	 * Opens a buffered stream to write the given file, which optionally compresses the written content.
+	 *
+	 * @param file
+	 * 		file to write
+	 * @param compressed
+	 * 		{@code true} to write the content GZIP compressed, otherwise {@code false}
+	 *
+	 * @return opened stream
+	 *
+	 * @throws IOException
+	 * 		if the file can not be opened for writing
+	 */
+	@javax.validation.constraints.NotNull
+	public static OutputStream newOutputStream(@javax.validation.constraints.NotNull File file, boolean compressed) throws IOException
+	{
+		Check.notNull(file, "file");
+
+		OutputStream outputStream = new FileOutputStream(file);
+		if (compressed)
+		{
+			try
+			{
+				return new GZIPOutputStream(outputStream, BUFFER_SIZE);
+			}
+			catch (IOException e)
+			{
+				outputStream.close();
+				throw e;
+			}
+		}
+		return new BufferedOutputStream(outputStream, BUFFER_SIZE);
+	}
+
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.internal.util;
+
+/**
+ * A probabilistic estimate of the access frequency of keys (a <em>Count-Min Sketch</em> with four 4-bit counters per
+ * key).<br>
+ * <br>
+ * To keep the estimates related to recent accesses, all counters will be halved after a certain number of increments.
+ * <p>
+ * This class is not thread-safe, the caller must synchronize accesses.
+ *
+ * @author André Rouél
+ */
+final class FrequencySketch
+{
+
+	/**
+	 * Maximum value of a 4-bit counter
+	 */
+	private static final int MAX_FREQUENCY = 15;
+
+	/**
+	 * Mask to halve all sixteen 4-bit counters of a {@code long} at once
+	 */
+	private static final long RESET_MASK = 0x7777777777777777L;
+
+	/**
+	 * Seeds to derive four independent hashes of a key
+	 */
+	private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+	                                      0xcbf29ce484222325L };
+
+	/**
+	 * Number of increments after which all counters will be halved
+	 */
+	private final int sampleSize;
+
+	/**
+	 * Sixteen 4-bit counters per element
+	 */
+	private final long[] table;
+
+	/**
+	 * Number of increments since the last aging
+	 */
+	private int additions;
+
+	/**
+	 * Constructs a {@code FrequencySketch} which estimates the frequencies of about the given number of keys.
+	 *
+	 * @param expectedSize
+	 * 		expected number of distinct keys
+	 */
+	FrequencySketch(long expectedSize)
+	{
+		int size = (int) Math.min(Math.max(expectedSize, 16), 1 << 24);
+		table = new long[Integer.highestOneBit(size - 1) << 1];
+		sampleSize = (int) Math.min(10L * table.length, Integer.MAX_VALUE);
+	}
+
+	private static int spread(int hashCode)
+	{
+		int hash = hashCode * 0x31848bab;
+		return hash ^ hash >>> 14;
+	}
+
+	/**
+	 * Estimates the frequency of the given hash code.
+	 *
+	 * @param hashCode
+	 * 		hash code of a key
+	 *
+	 * @return estimated frequency between 0 and 15
+	 */
+	int frequency(int hashCode)
+	{
+		int hash = spread(hashCode);
+		int frequency = MAX_FREQUENCY;
+		for (int i = 0; i < SEEDS.length; i++)
+		{
+			int index = indexOf(hash, i);
+			int offset = counterOffset(hash, i);
+			frequency = Math.min(frequency, (int) (table[index] >>> offset & 0xfL));
+		}
+		return frequency;
+	}
+
+	/**
+	 * Increments the estimated frequency of the given hash code.
+	 *
+	 * @param hashCode
+	 * 		hash code of a key
+	 */
+	void increment(int hashCode)
+	{
+		int hash = spread(hashCode);
+		boolean added = false;
+		for (int i = 0; i < SEEDS.length; i++)
+		{
+			int index = indexOf(hash, i);
+			int offset = counterOffset(hash, i);
+			if ((table[index] >>> offset & 0xfL) != MAX_FREQUENCY)
+			{
+				table[index] += 1L << offset;
+				added = true;
+			}
+		}
+		if (added && ++additions == sampleSize)
+		{
+			reset();
+		}
+	}
+
+	private int indexOf(int hash, int depth)
+	{
+		long value = (hash + SEEDS[depth]) * SEEDS[depth];
+		value += value >>> 32;
+		return (int) value & table.length - 1;
+	}
+
+	private static int counterOffset(int hash, int depth)
+	{
+		// each depth uses its own quarter of the sixteen counters of an element
+		return ((hash >>> (depth << 3) & 3) + (depth << 2)) << 2;
+	}
+
+	/**
+	 * Halves all counters, so that older accesses lose their weight
+	 */
+	private void reset()
+	{
+		for (int i = 0; i < table.length; i++)
+		{
+			table[i] = table[i] >>> 1 & RESET_MASK;
+		}
+		additions /= 2;
+	}
+
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.internal.util;
+
+import net.sf.uadetector.internal.Check;
+
+import java.io.Serializable;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A regular expression which will be compiled on first use.<br>
+ * <br>
+ * The source and the flags of the expression are available without compiling it, so that large sets of rarely used
+ * patterns can be held, compared and indexed at low cost. Compiling is thread-safe: concurrent first uses may compile
+ * the same expression more than once, but all of them see an equivalent {@code Pattern} and only one will be retained.
+ * <p>
+ * An expression which turns out to be invalid on compiling will be logged once and replaced by a pattern that never
+ * matches, because at that time there is no caller which could handle the failure.
+ *
+ * @author André Rouél
+ */
+public final class LazyPattern
+		implements Serializable
+{
+
+	/**
+	 * Corresponding logger for this class
+	 */
+	private static final java.util.logging.Logger LOG = java.util.logging.Logger.getLogger(LazyPattern.class.toString());
+
+	/**
+	 * Pattern which never matches any input
+	 */
+	private static final Pattern NEVER_MATCHING = Pattern.compile("(?!)");
+
+	private static final long serialVersionUID = 6281354950813763614L;
+
+	/**
+	 * Match flags of the regular expression
+	 */
+	private final int flags;
+
+	/**
+	 * Source of the regular expression
+	 */
+	@javax.validation.constraints.NotNull
+	private final String regex;
+
+	/**
+	 * Compiled representation, which is {@code null} until first use
+	 */
+	private transient volatile Pattern compiled;
+
+	/**
+	 * Constructs a {@code LazyPattern} which will compile the given regular expression on first use.
+	 *
+	 * @param regex
+	 * 		source of the regular expression
+	 * @param flags
+	 * 		match flags of {@link Pattern}
+	 */
+	public LazyPattern(@javax.validation.constraints.NotNull String regex, int flags)
+	{
+		this.regex = Check.notNull(regex, "regex");
+		this.flags = flags;
+	}
+
+	/**
+	 * Constructs a {@code LazyPattern} of an already compiled pattern.
+	 *
+	 * @param pattern
+	 * 		compiled pattern
+	 *
+	 * @return a {@code LazyPattern} which will never compile again
+	 */
+	@javax.validation.constraints.NotNull
+	public static LazyPattern of(@javax.validation.constraints.NotNull Pattern pattern)
+	{
+		Check.notNull(pattern, "pattern");
+
+		LazyPattern lazyPattern = new LazyPattern(pattern.pattern(), pattern.flags());
+		lazyPattern.compiled = pattern;
+		return lazyPattern;
+	}
+
+	/**
+	 * Gets the match flags without compiling the regular expression.
+	 *
+	 * @return match flags of {@link Pattern}
+	 */
+	public int flags()
+	{
+		return flags;
+	}
+
+	/**
+	 * Gets the compiled pattern and compiles it if this has not been done yet.
+	 *
+	 * @return compiled pattern
+	 */
+	@javax.validation.constraints.NotNull
+	public Pattern get()
+	{
+		Pattern pattern = compiled;
+		if (pattern == null)
+		{
+			try
+			{
+				pattern = Pattern.compile(regex, flags);
+			}
+			catch (PatternSyntaxException e)
+			{
+				LOG.log(Level.WARNING, "Can not compile pattern, it will never match: " + e.getLocalizedMessage(), e);
+				pattern = NEVER_MATCHING;
+			}
+			compiled = pattern;
+		}
+		return pattern;
+	}
+
+	/**
+	 * Returns whether the regular expression has already been compiled.
+	 *
+	 * @return {@code true} if the pattern is compiled, otherwise {@code false}
+	 */
+	public boolean isCompiled()
+	{
+		return compiled != null;
+	}
+
+	/**
+	 * Gets the source of the regular expression without compiling it.
+	 *
+	 * @return source of the regular expression
+	 */
+	@javax.validation.constraints.NotNull
+	public String pattern()
+	{
+		return regex;
+	}
+
+	/**
+	 * Returns the source of the regular expression, like {@link Pattern#toString()}.
+	 */
+	@Override
+	public String toString()
+	{
+		return regex;
+	}
+
+}
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.internal.util;
+
+import net.sf.uadetector.internal.Check;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Narrows down a list of regular expressions to those that can possibly be found in a text before any of them is
+ * applied.<br>
+ * <br>
+ * The literal substrings that are required by each pattern will be extracted with the
+ * {@link RegularExpressionLiteralExtractor} and searched in a single pass over the text with an
+ * {@link AhoCorasickAutomaton}. Patterns whose required literals are missing cannot be found and will be skipped.
+ * Patterns without any determinable literal are always candidates.
+ * <p>
+ * Each pattern is addressed by its position in the list which was passed on construction. An instance of
+ * {@code PatternPrefilter} is immutable and can be shared between threads.
+ *
+ * @author André Rouél
+ */
+public final class PatternPrefilter
+		implements Serializable
+{
+
+	private static final long serialVersionUID = 2861904527135389521L;
+
+	/**
+	 * Automaton to find the required literals of all patterns
+	 */
+	@javax.validation.constraints.NotNull
+	private final AhoCorasickAutomaton automaton;
+
+	/**
+	 * Positions of the patterns which require a literal, indexed by the keyword index of the literal
+	 */
+	@javax.validation.constraints.NotNull
+	private final int[][] positionsByLiteral;
+
+	/**
+	 * Number of filtered patterns
+	 */
+	private final int size;
+
+	/**
+	 * Positions of the patterns without any determinable literal
+	 */
+	@javax.validation.constraints.NotNull
+	private final BitSet unconditional;
+
+	/**
+	 * Constructs a {@code PatternPrefilter} for the given patterns.
+	 *
+	 * @param patterns
+	 * 		patterns to filter
+	 *
+	 * @throws net.sf.uadetector.exception.IllegalNullArgumentException
+	 * 		if the given list is {@code null}
+	 */
+	public PatternPrefilter(@javax.validation.constraints.NotNull List<Pattern> patterns)
+	{
+		this(Check.notNull(patterns, "patterns").size(), position -> RegularExpressionLiteralExtractor.extract(patterns.get(position)));
+	}
+
+	/**
+	 * Constructs a {@code PatternPrefilter} for patterns whose required literals have already been determined, for
+	 * example with {@link RegularExpressionLiteralExtractor#extract(String, int)} without compiling the patterns.
+	 *
+	 * @param size
+	 * 		number of patterns to filter
+	 * @param literals
+	 * 		function which returns the required literals of the pattern at a position, or {@code null} if the pattern is
+	 * 		always a candidate
+	 *
+	 * @throws net.sf.uadetector.exception.IllegalNegativeArgumentException
+	 * 		if the given size is negative
+	 * @throws net.sf.uadetector.exception.IllegalNullArgumentException
+	 * 		if the given function is {@code null}
+	 */
+	public PatternPrefilter(int size, @javax.validation.constraints.NotNull IntFunction<Set<String>> literals)
+	{
+		Check.notNegative(size, "size");
+		Check.notNull(literals, "literals");
+
+		this.size = size;
+		unconditional = new BitSet(size);
+		Map<String, List<Integer>> literalToPositions = new LinkedHashMap<>();
+		for (int position = 0; position < size; position++)
+		{
+			Set<String> required = literals.apply(position);
+			if (required == null || required.isEmpty())
+			{
+				unconditional.set(position);
+			}
+			else
+			{
+				for (String literal : required)
+				{
+					literalToPositions.computeIfAbsent(literal, k -> new ArrayList<>(1))
+					                  .add(position);
+				}
+			}
+		}
+
+		positionsByLiteral = new int[literalToPositions.size()][];
+		int index = 0;
+		for (List<Integer> positions : literalToPositions.values())
+		{
+			int[] array = new int[positions.size()];
+			for (int i = 0; i < array.length; i++)
+			{
+				array[i] = positions.get(i);
+			}
+			positionsByLiteral[index++] = array;
+		}
+		automaton = new AhoCorasickAutomaton(new ArrayList<>(literalToPositions.keySet()));
+	}
+
+	/**
+	 * Determines the positions of all patterns which can possibly be found in the given text. A pattern which is not
+	 * part of the result can definitely not be found in it.
+	 *
+	 * @param text
+	 * 		text to search in
+	 *
+	 * @return positions of candidate patterns in ascending order
+	 */
+	@javax.validation.constraints.NotNull
+	public BitSet findCandidates(@javax.validation.constraints.NotNull CharSequence text)
+	{
+		return findCandidates(text, new BitSet(size));
+	}
+
+	/**
+	 * Determines the positions of all patterns which can possibly be found in the given text and stores them into the
+	 * passed set, which will be cleared before. This allows to reuse a set for many texts.
+	 *
+	 * @param text
+	 * 		text to search in
+	 * @param candidates
+	 * 		set to store the positions of candidate patterns into
+	 *
+	 * @return the passed set with the positions of candidate patterns
+	 */
+	@javax.validation.constraints.NotNull
+	public BitSet findCandidates(@javax.validation.constraints.NotNull CharSequence text, @javax.validation.constraints.NotNull BitSet candidates)
+	{
+		Check.notNull(text, "text");
+		Check.notNull(candidates, "candidates");
+
+		candidates.clear();
+		candidates.or(unconditional);
+		automaton.find(text, literal -> {
+			for (int position : positionsByLiteral[literal])
+			{
+				candidates.set(position);
+			}
+		});
+		return candidates;
+	}
+
+	/**
+	 * Gets the number of patterns which are always candidates because no required literal could be determined.
+	 *
+	 * @return number of unconditional patterns
+	 */
+	public int getUnconditionalCount()
+	{
+		return unconditional.cardinality();
+	}
+
+	/**
+	 * Gets the number of filtered patterns.
+	 *
+	 * @return number of patterns
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+}
@@ -89,6 +89,29 @@ public final class RegularExpressionConverter
 	 * @return Pattern
 	 */
 	public static Pattern convertPerlRegexToPattern(@javax.validation.constraints.NotNull String regex, @javax.validation.constraints.NotNull boolean faultTolerant)
+	{
+		LazyPattern pattern = convertPerlRegexToLazyPattern(regex, faultTolerant);
+		return Pattern.compile(pattern.pattern(), pattern.flags());
+	}
+
+	/**
+	 * Converts a PERL style regular expression into a Java style expression which will be compiled on first use.<br>
+	 * <br>
+	 * The leading and ending slash and the modifiers will be removed. The modifiers will be translated into equivalents
+	 * flags of <code>java.util.Pattern</code>. If there are modifiers that are not valid an exception will be thrown,
+	 * but the syntax of the expression itself will not be checked before compiling it.
+	 *
+	 * @param regex
+	 * 		A PERL style regular expression
+	 *
+	 * @return LazyPattern
+	 */
+	public static LazyPattern convertPerlRegexToLazyPattern(@javax.validation.constraints.NotNull String regex)
+	{
+		return convertPerlRegexToLazyPattern(regex, false);
+	}
+
+	private static LazyPattern convertPerlRegexToLazyPattern(@javax.validation.constraints.NotNull String regex, boolean faultTolerant)
 	{
 		Check.notNull(regex, "regex");
 
@@ -105,7 +128,7 @@ public final class RegularExpressionConverter
 		pattern = pattern.substring(0, lastIndex);
 
 		int flags = Flag.convertToBitmask(Flag.parse(matcher.group(1)));
-		return Pattern.compile(pattern, flags);
+		return new LazyPattern(pattern, flags);
 	}
 
 	public enum Flag
@@ -0,0 +1,577 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.internal.util;
+
+import net.sf.uadetector.internal.Check;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * This class is intended to extract literal substrings from a regular expression which must occur in every input that
+ * the expression can be found in.<br>
+ * <br>
+ * The result is a set of lower-cased ASCII strings of which at least one will be contained in the ASCII lower-cased
+ * form of any string that the given {@code Pattern} can be found in. If no such strings can be determined reliably
+ * (e.g. for unsupported constructs or flags) {@code null} will be returned, which means that the pattern must always
+ * be taken into account.
+ *
+ * @author André Rouél
+ */
+public final class RegularExpressionLiteralExtractor
+{
+
+	/**
+	 * Flags which change the way a pattern is interpreted in a manner that is not supported by this extractor
+	 */
+	private static final int UNSUPPORTED_FLAGS = Pattern.CANON_EQ | Pattern.COMMENTS | Pattern.LITERAL
+	                                             | Pattern.UNICODE_CASE | Pattern.UNICODE_CHARACTER_CLASS;
+
+	/**
+	 * The regular expression to analyze
+	 */
+	private final String regex;
+
+	/**
+	 * Current position within the regular expression
+	 */
+	private int pos;
+
+	private RegularExpressionLiteralExtractor(@javax.validation.constraints.NotNull String regex)
+	{
+		this.regex = regex;
+	}
+
+	/**
+	 * Extracts literal substrings of which at least one must be contained in every string the given pattern can be
+	 * found in.
+	 *
+	 * @param pattern
+	 * 		compiled regular expression
+	 *
+	 * @return a set of lower-cased literals or {@code null} if no literals could be determined
+	 */
+	public static Set<String> extract(@javax.validation.constraints.NotNull Pattern pattern)
+	{
+		Check.notNull(pattern, "pattern");
+
+		return extract(pattern.pattern(), pattern.flags());
+	}
+
+	/**
+	 * Extracts literal substrings of which at least one must be contained in every string the given regular expression
+	 * can be found in. The expression will not be compiled, so the result is only meaningful for a valid expression.
+	 *
+	 * @param regex
+	 * 		source of a regular expression
+	 * @param flags
+	 * 		match flags of {@link Pattern}
+	 *
+	 * @return a set of lower-cased literals or {@code null} if no literals could be determined
+	 */
+	public static Set<String> extract(@javax.validation.constraints.NotNull String regex, int flags)
+	{
+		Check.notNull(regex, "regex");
+
+		if ((flags & UNSUPPORTED_FLAGS) != 0)
+		{
+			return null;
+		}
+		RegularExpressionLiteralExtractor extractor = new RegularExpressionLiteralExtractor(regex);
+		try
+		{
+			Set<String> literals = extractor.parseAlternation();
+			return extractor.pos == extractor.regex.length() ? literals : null;
+		}
+		catch (UnsupportedConstructException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Chooses the more selective of two requirements. A requirement is more selective if its shortest literal is longer
+	 * or, on equal length, if it consists of fewer alternatives. On a tie the later requirement wins, because the
+	 * beginning of an user agent pattern is often a common token like <em>Mozilla</em>.
+	 */
+	private static Set<String> choose(Set<String> current, Set<String> candidate)
+	{
+		if (candidate == null)
+		{
+			return current;
+		}
+		if (current == null)
+		{
+			return candidate;
+		}
+		int currentLength = shortestLength(current);
+		int candidateLength = shortestLength(candidate);
+		if (candidateLength > currentLength || candidateLength == currentLength && candidate.size() <= current.size())
+		{
+			return candidate;
+		}
+		return current;
+	}
+
+	private static boolean isLiteral(char c)
+	{
+		return c >= ' ' && c < 0x7F;
+	}
+
+	private static boolean isAsciiAlphanumeric(char c)
+	{
+		return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9';
+	}
+
+	private static char toLowerCase(char c)
+	{
+		return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+	}
+
+	private static int shortestLength(@javax.validation.constraints.NotNull Set<String> literals)
+	{
+		int shortest = Integer.MAX_VALUE;
+		for (String literal : literals)
+		{
+			shortest = Math.min(shortest, literal.length());
+		}
+		return shortest;
+	}
+
+	private static Set<String> flush(@javax.validation.constraints.NotNull StringBuilder run)
+	{
+		if (run.length() == 0)
+		{
+			return null;
+		}
+		Set<String> literals = new HashSet<>(2);
+		literals.add(run.toString());
+		run.setLength(0);
+		return literals;
+	}
+
+	/**
+	 * Parses alternatives until the end of the expression or the end of the enclosing group.
+	 *
+	 * @return the union of the requirements of all alternatives or {@code null} if one alternative has no requirement
+	 */
+	private Set<String> parseAlternation()
+	{
+		Set<String> union = new HashSet<>();
+		boolean unconditional = false;
+		while (true)
+		{
+			Set<String> literals = parseSequence();
+			if (literals == null)
+			{
+				unconditional = true;
+			}
+			else
+			{
+				union.addAll(literals);
+			}
+			if (hasNext() && peek() == '|')
+			{
+				pos++;
+			}
+			else
+			{
+				break;
+			}
+		}
+		return unconditional ? null : union;
+	}
+
+	/**
+	 * Parses a sequence of atoms until the end of the expression, an alternation or the end of the enclosing group.
+	 *
+	 * @return the most selective requirement of this sequence or {@code null} if there is none
+	 */
+	private Set<String> parseSequence()
+	{
+		StringBuilder run = new StringBuilder();
+		Set<String> best = null;
+		while (hasNext() && peek() != '|' && peek() != ')')
+		{
+			char c = peek();
+			if (c == '(')
+			{
+				pos++;
+				Group group = parseGroup();
+				best = choose(best, flush(run));
+				int min = parseQuantifier();
+				if (min > 0 && group.required)
+				{
+					best = choose(best, group.literals);
+				}
+			}
+			else if (c == '[')
+			{
+				pos++;
+				skipCharacterClass();
+				best = choose(best, flush(run));
+				parseQuantifier();
+			}
+			else if (c == '\\')
+			{
+				pos++;
+				if (appendAtom(parseEscape(), run))
+				{
+					best = choose(best, flush(run));
+				}
+			}
+			else if (c == '*' || c == '+' || c == '?' || c == '{')
+			{
+				throw new UnsupportedConstructException();
+			}
+			else
+			{
+				pos++;
+				int literal = c == '.' || c == '^' || c == '$' || !isLiteral(c) ? -1 : c;
+				if (appendAtom(literal, run))
+				{
+					best = choose(best, flush(run));
+				}
+			}
+		}
+		return choose(best, flush(run));
+	}
+
+	/**
+	 * Appends a single character atom to the current run of adjacent literals with respect to its quantifier.
+	 *
+	 * @param literal
+	 * 		the literal character or {@code -1} if the atom is not a literal
+	 * @param run
+	 * 		current run of adjacent literals
+	 *
+	 * @return {@code true} if the run ends with this atom, otherwise {@code false}
+	 */
+	private boolean appendAtom(int literal, @javax.validation.constraints.NotNull StringBuilder run)
+	{
+		int quantifierStart = pos;
+		int min = parseQuantifier();
+		if (literal < 0 || min == 0)
+		{
+			return true;
+		}
+		run.append(toLowerCase((char) literal));
+		return pos != quantifierStart && !isExactQuantifier(quantifierStart);
+	}
+
+	private boolean isExactQuantifier(int quantifierStart)
+	{
+		String quantifier = regex.substring(quantifierStart, pos);
+		return quantifier.equals("{1}") || quantifier.equals("{1}?") || quantifier.equals("{1}+");
+	}
+
+	/**
+	 * Parses a group after its opening parenthesis including the closing one.
+	 */
+	private Group parseGroup()
+	{
+		boolean required = true;
+		if (hasNext() && peek() == '?')
+		{
+			pos++;
+			char kind = next();
+			if (kind == '=' || kind == '!')
+			{
+				required = false;
+			}
+			else if (kind == '<')
+			{
+				char c = next();
+				if (c == '=' || c == '!')
+				{
+					required = false;
+				}
+				else
+				{
+					// named capturing group
+					while (c != '>')
+					{
+						c = next();
+					}
+				}
+			}
+			else if (kind != ':' && kind != '>')
+			{
+				// inline flags like (?i) or (?i:X)
+				pos--;
+				while (true)
+				{
+					char c = next();
+					if (c == ')')
+					{
+						return new Group(null, false);
+					}
+					if (c == ':')
+					{
+						break;
+					}
+					if (c != '-' && c != 'i' && c != 'm' && c != 's' && c != 'd')
+					{
+						throw new UnsupportedConstructException();
+					}
+				}
+			}
+		}
+		Set<String> literals = parseAlternation();
+		if (next() != ')')
+		{
+			throw new UnsupportedConstructException();
+		}
+		return new Group(literals, required);
+	}
+
+	/**
+	 * Parses an escape sequence after its backslash.
+	 *
+	 * @return the escaped literal character or {@code -1} if the escape sequence does not represent a single literal
+	 */
+	private int parseEscape()
+	{
+		char c = next();
+		if (!isAsciiAlphanumeric(c))
+		{
+			return isLiteral(c) ? c : -1;
+		}
+		switch (c)
+		{
+			case 'd':
+			case 'D':
+			case 's':
+			case 'S':
+			case 'w':
+			case 'W':
+			case 'h':
+			case 'H':
+			case 'v':
+			case 'V':
+			case 'R':
+			case 'X':
+			case 'A':
+			case 'G':
+			case 'Z':
+			case 'z':
+			case 't':
+			case 'n':
+			case 'r':
+			case 'f':
+			case 'a':
+			case 'e':
+				return -1;
+			case 'b':
+			case 'B':
+				skipBraces();
+				return -1;
+			case 'p':
+			case 'P':
+				if (!skipBraces())
+				{
+					next();
+				}
+				return -1;
+			case 'Q':
+				int end = regex.indexOf("\\E", pos);
+				pos = end < 0 ? regex.length() : end + 2;
+				return -1;
+			default:
+				// octal, hexadecimal, unicode and control characters as well as back references are not supported
+				throw new UnsupportedConstructException();
+		}
+	}
+
+	/**
+	 * Parses an optional quantifier.
+	 *
+	 * @return the minimum number of repetitions of the preceding atom
+	 */
+	private int parseQuantifier()
+	{
+		if (!hasNext())
+		{
+			return 1;
+		}
+		int min;
+		char c = peek();
+		if (c == '?' || c == '*')
+		{
+			pos++;
+			min = 0;
+		}
+		else if (c == '+')
+		{
+			pos++;
+			min = 1;
+		}
+		else if (c == '{')
+		{
+			pos++;
+			int start = pos;
+			while (hasNext() && Character.isDigit(peek()))
+			{
+				pos++;
+			}
+			if (start == pos)
+			{
+				throw new UnsupportedConstructException();
+			}
+			min = Integer.parseInt(regex.substring(start, pos)) > 0 ? 1 : 0;
+			if (hasNext() && peek() == ',')
+			{
+				pos++;
+				while (hasNext() && Character.isDigit(peek()))
+				{
+					pos++;
+				}
+			}
+			if (next() != '}')
+			{
+				throw new UnsupportedConstructException();
+			}
+		}
+		else
+		{
+			return 1;
+		}
+
+		// lazy or possessive modifier
+		if (hasNext() && (peek() == '?' || peek() == '+'))
+		{
+			pos++;
+		}
+		return min;
+	}
+
+	/**
+	 * Skips a character class after its opening bracket including nested classes and the closing bracket.
+	 */
+	private void skipCharacterClass()
+	{
+		if (hasNext() && peek() == '^')
+		{
+			pos++;
+		}
+		if (hasNext() && peek() == ']')
+		{
+			pos++;
+		}
+		while (true)
+		{
+			char c = next();
+			if (c == ']')
+			{
+				return;
+			}
+			if (c == '[')
+			{
+				skipCharacterClass();
+			}
+			else if (c == '\\')
+			{
+				char escaped = next();
+				if (escaped == 'Q')
+				{
+					int end = regex.indexOf("\\E", pos);
+					pos = end < 0 ? regex.length() : end + 2;
+				}
+				else if (escaped == 'p' || escaped == 'P' || escaped == 'x' || escaped == 'N')
+				{
+					skipBraces();
+				}
+				else if (escaped == 'c')
+				{
+					next();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Skips a block in curly braces if present.
+	 *
+	 * @return {@code true} if a block was skipped, otherwise {@code false}
+	 */
+	private boolean skipBraces()
+	{
+		if (hasNext() && peek() == '{')
+		{
+			int end = regex.indexOf('}', pos);
+			if (end < 0)
+			{
+				throw new UnsupportedConstructException();
+			}
+			pos = end + 1;
+			return true;
+		}
+		return false;
+	}
+
+	private boolean hasNext()
+	{
+		return pos < regex.length();
+	}
+
+	private char next()
+	{
+		if (!hasNext())
+		{
+			throw new UnsupportedConstructException();
+		}
+		return regex.charAt(pos++);
+	}
+
+	private char peek()
+	{
+		return regex.charAt(pos);
+	}
+
+	/**
+	 * Requirement of a group
+	 */
+	private static final class Group
+	{
+
+		private final Set<String> literals;
+
+		/**
+		 * Whether the content of the group must be matched to match the whole expression (lookarounds do not count)
+		 */
+		private final boolean required;
+
+		private Group(Set<String> literals, boolean required)
+		{
+			this.literals = literals;
+			this.required = required;
+		}
+
+	}
+
+	/**
+	 * Signals a construct which cannot be analyzed reliably
+	 */
+	private static final class UnsupportedConstructException
+			extends RuntimeException
+	{
+
+		private static final long serialVersionUID = 1L;
+
+	}
+
+}
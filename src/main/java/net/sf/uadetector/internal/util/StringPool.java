@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.internal.util;
+
+import net.sf.uadetector.internal.Check;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Pool to canonicalize equal strings while building <em>UAS data</em>, so that values which repeat in many entries
+ * (like producer names, URLs or icons) are held only once in memory.<br>
+ * <br>
+ * In contrast to {@link String#intern()} the pool is not global and can be discarded with its builder. It also provides
+ * a rough estimate of the heap memory that a set of strings retains.<br>
+ * <br>
+ * This class is not thread-safe.
+ *
+ * @author André Rouél
+ */
+public final class StringPool
+{
+
+	/**
+	 * Estimated size of the header of an array on a 64-bit JVM with compressed object pointers
+	 */
+	private static final int ARRAY_HEADER_SIZE = 16;
+
+	/**
+	 * Alignment of objects in the heap
+	 */
+	private static final int OBJECT_ALIGNMENT = 8;
+
+	/**
+	 * Estimated size of a {@code String} instance without its character array on a 64-bit JVM with compressed object
+	 * pointers
+	 */
+	private static final int STRING_SIZE = 24;
+
+	@javax.validation.constraints.NotNull
+	private final Map<String, String> strings = new HashMap<>();
+
+	/**
+	 * Estimates the heap memory retained by the given string references, once as if every reference held a separate
+	 * instance and once as they are actually held, where multiple references to the same instance count only once.
+	 * The difference is the memory which is saved by deduplication.
+	 *
+	 * @param strings
+	 * 		all string references to estimate, {@code null} references will be ignored
+	 *
+	 * @return two element array with the estimated size in bytes without deduplication and the actually retained size
+	 */
+	@javax.validation.constraints.NotNull
+	public static long[] estimateRetainedSize(@javax.validation.constraints.NotNull Iterable<String> strings)
+	{
+		Check.notNull(strings, "strings");
+
+		Map<String, Boolean> instances = new IdentityHashMap<>();
+		long separate = 0;
+		long retained = 0;
+		for (String value : strings)
+		{
+			if (value != null)
+			{
+				long size = estimateRetainedSize(value);
+				separate += size;
+				if (instances.put(value, Boolean.TRUE) == null)
+				{
+					retained += size;
+				}
+			}
+		}
+		return new long[] { separate, retained };
+	}
+
+	/**
+	 * Estimates the heap memory retained by a single string on a 64-bit JVM with compressed object pointers and compact
+	 * strings.
+	 *
+	 * @param value
+	 * 		string to estimate
+	 *
+	 * @return estimated size in bytes
+	 */
+	public static long estimateRetainedSize(@javax.validation.constraints.NotNull String value)
+	{
+		int bytesPerChar = 1;
+		for (int i = 0; i < value.length(); i++)
+		{
+			if (value.charAt(i) > 0xFF)
+			{
+				bytesPerChar = 2;
+				break;
+			}
+		}
+		return STRING_SIZE + align(ARRAY_HEADER_SIZE + (long) value.length() * bytesPerChar);
+	}
+
+	private static long align(long size)
+	{
+		return (size + OBJECT_ALIGNMENT - 1) / OBJECT_ALIGNMENT * OBJECT_ALIGNMENT;
+	}
+
+	/**
+	 * Returns the canonical instance of the given string. The first passed instance of equal strings becomes the
+	 * canonical one.
+	 *
+	 * @param value
+	 * 		a string or {@code null}
+	 *
+	 * @return the canonical instance of an equal string or {@code null} if {@code null} was passed
+	 */
+	public String intern(String value)
+	{
+		if (value == null)
+		{
+			return null;
+		}
+		String canonical = strings.putIfAbsent(value, value);
+		return canonical == null ? value : canonical;
+	}
+
+	/**
+	 * Gets the number of distinct strings in this pool.
+	 *
+	 * @return number of distinct strings
+	 */
+	public int size()
+	{
+		return strings.size();
+	}
+
+}
@@ -0,0 +1,458 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.internal.util;
+
+import net.sf.uadetector.internal.Check;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A bounded, thread-safe cache which limits the total weight of its entries and uses the <em>Window TinyLFU</em>
+ * policy to decide which entries are worth to be kept.<br>
+ * <br>
+ * New entries are inserted into a small admission window that is ordered by recency. An entry which is pushed out of
+ * the window replaces the least recently used entry of the main space only if it was accessed more frequently. The
+ * frequencies are estimated by a compact {@link FrequencySketch}, so rarely requested keys cannot displace popular
+ * ones.
+ * <p>
+ * The cache is split into independently locked segments to reduce contention between threads.
+ *
+ * @param <K>
+ * 		type of keys
+ * @param <V>
+ * 		type of values
+ *
+ * @author André Rouél
+ */
+public final class TinyLfuCache<K, V>
+{
+
+	/**
+	 * Number of segments (must be a power of two)
+	 */
+	private static final int SEGMENTS = 16;
+
+	/**
+	 * Percentage of the maximum weight of a segment which is reserved for the admission window
+	 */
+	private static final int WINDOW_PERCENTAGE = 1;
+
+	/**
+	 * Number of entries which were removed to respect the maximum weight
+	 */
+	private final LongAdder evictionCount = new LongAdder();
+
+	/**
+	 * Number of successful lookups
+	 */
+	private final LongAdder hitCount = new LongAdder();
+
+	/**
+	 * Maximum total weight of all entries
+	 */
+	private final long maximumWeight;
+
+	/**
+	 * Number of failed lookups
+	 */
+	private final LongAdder missCount = new LongAdder();
+
+	/**
+	 * Segments of this cache
+	 */
+	private final Segment<K, V>[] segments;
+
+	/**
+	 * Determines the weight of an entry
+	 */
+	private final ToIntBiFunction<? super K, ? super V> weigher;
+
+	/**
+	 * Constructs a {@code TinyLfuCache} with the given maximum weight, whose entries are expected to weigh one unit
+	 * each, so that the frequency sketch will be sized for up to the maximum weight of entries.
+	 *
+	 * @param maximumWeight
+	 * 		maximum total weight of all entries
+	 * @param weigher
+	 * 		function to determine the weight of an entry, which must not be negative (a weight of {@code 0} counts as
+	 * 		{@code 1}, so that every entry can be evicted)
+	 *
+	 * @throws net.sf.uadetector.exception.IllegalNegativeArgumentException
+	 * 		if the given maximum weight is negative
+	 * @throws net.sf.uadetector.exception.IllegalNullArgumentException
+	 * 		if the given weigher is {@code null}
+	 */
+	public TinyLfuCache(long maximumWeight, @javax.validation.constraints.NotNull ToIntBiFunction<? super K, ? super V> weigher)
+	{
+		this(maximumWeight, maximumWeight, weigher);
+	}
+
+	/**
+	 * Constructs a {@code TinyLfuCache} with the given maximum weight and a frequency sketch which is sized for the
+	 * expected number of entries. If entries weigh more than one unit (for example the length of a string), the
+	 * expected number of entries should be the maximum weight divided by the average weight of an entry, otherwise the
+	 * frequency sketch would be much larger than necessary.
+	 *
+	 * @param maximumWeight
+	 * 		maximum total weight of all entries
+	 * @param expectedSize
+	 * 		expected number of entries when the maximum weight has been reached
+	 * @param weigher
+	 * 		function to determine the weight of an entry, which must not be negative (a weight of {@code 0} counts as
+	 * 		{@code 1}, so that every entry can be evicted)
+	 *
+	 * @throws net.sf.uadetector.exception.IllegalNegativeArgumentException
+	 * 		if the given maximum weight or expected size is negative
+	 * @throws net.sf.uadetector.exception.IllegalNullArgumentException
+	 * 		if the given weigher is {@code null}
+	 */
+	public TinyLfuCache(long maximumWeight, long expectedSize, @javax.validation.constraints.NotNull ToIntBiFunction<? super K, ? super V> weigher)
+	{
+		Check.notNegative(maximumWeight, "maximumWeight");
+		Check.notNegative(expectedSize, "expectedSize");
+		Check.notNull(weigher, "weigher");
+
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+		segments = newSegments(SEGMENTS);
+		for (int i = 0; i < SEGMENTS; i++)
+		{
+			segments[i] = new Segment<>(maximumWeight / SEGMENTS + (i < maximumWeight % SEGMENTS ? 1 : 0), expectedSize / SEGMENTS + 1);
+		}
+	}
+
+	private static int hash(Object key)
+	{
+		int hash = key.hashCode();
+		return hash ^ hash >>> 16;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <K, V> Segment<K, V>[] newSegments(int length)
+	{
+		return new Segment[length];
+	}
+
+	/**
+	 * Gets the value which is associated with the given key.
+	 *
+	 * @param key
+	 * 		key to look up
+	 *
+	 * @return the associated value or {@code null} if the key is not present
+	 */
+	public V get(@javax.validation.constraints.NotNull K key)
+	{
+		return get(key, value -> true);
+	}
+
+	/**
+	 * Gets the value which is associated with the given key, if it is still valid. A present value which is not valid
+	 * counts as cache miss.
+	 *
+	 * @param key
+	 * 		key to look up
+	 * @param valid
+	 * 		predicate which checks whether a present value can still be used
+	 *
+	 * @return the associated valid value or {@code null} if the key is not present or its value is not valid
+	 */
+	public V get(@javax.validation.constraints.NotNull K key, @javax.validation.constraints.NotNull Predicate<? super V> valid)
+	{
+		Check.notNull(key, "key");
+		Check.notNull(valid, "valid");
+
+		int hash = hash(key);
+		V value = segmentFor(hash).get(key, hash);
+		if (value == null || !valid.test(value))
+		{
+			missCount.increment();
+			return null;
+		}
+		hitCount.increment();
+		return value;
+	}
+
+	/**
+	 * Gets the number of entries that were removed to respect the maximum weight.
+	 *
+	 * @return number of evictions
+	 */
+	public long getEvictionCount()
+	{
+		return evictionCount.sum();
+	}
+
+	/**
+	 * Gets the number of lookups which have found a value.
+	 *
+	 * @return number of cache hits
+	 */
+	public long getHitCount()
+	{
+		return hitCount.sum();
+	}
+
+	/**
+	 * Gets the maximum total weight of all entries.
+	 *
+	 * @return maximum weight
+	 */
+	public long getMaximumWeight()
+	{
+		return maximumWeight;
+	}
+
+	/**
+	 * Gets the number of lookups which have not found a value.
+	 *
+	 * @return number of cache misses
+	 */
+	public long getMissCount()
+	{
+		return missCount.sum();
+	}
+
+	/**
+	 * Gets the total weight of all entries.
+	 *
+	 * @return current weight
+	 */
+	public long getWeight()
+	{
+		long weight = 0;
+		for (Segment<K, V> segment : segments)
+		{
+			weight += segment.getWeight();
+		}
+		return weight;
+	}
+
+	/**
+	 * Removes all entries of this cache.
+	 */
+	public void invalidateAll()
+	{
+		for (Segment<K, V> segment : segments)
+		{
+			segment.clear();
+		}
+	}
+
+	/**
+	 * Associates the given value with the given key. Whether the entry will be retained depends on its weight and the
+	 * access frequency of its key compared to other entries.
+	 *
+	 * @param key
+	 * 		key of the entry
+	 * @param value
+	 * 		value of the entry
+	 */
+	public void put(@javax.validation.constraints.NotNull K key, @javax.validation.constraints.NotNull V value)
+	{
+		Check.notNull(key, "key");
+		Check.notNull(value, "value");
+
+		// entries without weight would never be evicted
+		int weight = Math.max(1, Check.notNegative(weigher.applyAsInt(key, value), "weight"));
+		int hash = hash(key);
+		int evicted = segmentFor(hash).put(key, hash, value, weight);
+		if (evicted > 0)
+		{
+			evictionCount.add(evicted);
+		}
+	}
+
+	private Segment<K, V> segmentFor(int hash)
+	{
+		return segments[hash & SEGMENTS - 1];
+	}
+
+	/**
+	 * Gets the number of entries of this cache.
+	 *
+	 * @return number of entries
+	 */
+	public int size()
+	{
+		int size = 0;
+		for (Segment<K, V> segment : segments)
+		{
+			size += segment.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Cached value with its weight
+	 */
+	private static final class Node<V>
+	{
+
+		private final V value;
+
+		private final int weight;
+
+		private Node(V value, int weight)
+		{
+			this.value = value;
+			this.weight = weight;
+		}
+
+	}
+
+	/**
+	 * A part of the cache which is guarded by its own lock
+	 */
+	private static final class Segment<K, V>
+	{
+
+		/**
+		 * Entries which have passed the admission window, ordered from the least to the most recently used
+		 */
+		private final LinkedHashMap<K, Node<V>> main = new LinkedHashMap<>(16, 0.75f, true);
+
+		private final long mainMaximumWeight;
+
+		private final FrequencySketch sketch;
+
+		/**
+		 * Recently added entries, ordered from the least to the most recently used
+		 */
+		private final LinkedHashMap<K, Node<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+
+		private final long windowMaximumWeight;
+
+		private long mainWeight;
+
+		private long windowWeight;
+
+		private Segment(long maximumWeight, long expectedSize)
+		{
+			windowMaximumWeight = Math.min(maximumWeight, Math.max(1, maximumWeight * WINDOW_PERCENTAGE / 100));
+			mainMaximumWeight = Math.max(0, maximumWeight - windowMaximumWeight);
+			sketch = new FrequencySketch(expectedSize);
+		}
+
+		private synchronized void clear()
+		{
+			window.clear();
+			main.clear();
+			windowWeight = 0;
+			mainWeight = 0;
+		}
+
+		private synchronized V get(K key, int hash)
+		{
+			sketch.increment(hash);
+			Node<V> node = window.get(key);
+			if (node == null)
+			{
+				node = main.get(key);
+			}
+			return node != null ? node.value : null;
+		}
+
+		private synchronized long getWeight()
+		{
+			return windowWeight + mainWeight;
+		}
+
+		/**
+		 * Inserts an entry into the admission window and moves overflowing entries into the main space.
+		 *
+		 * @return number of evicted entries
+		 */
+		private synchronized int put(K key, int hash, V value, int weight)
+		{
+			Node<V> node = new Node<>(value, weight);
+			Node<V> old = main.remove(key);
+			if (old != null)
+			{
+				mainWeight -= old.weight;
+			}
+			old = window.put(key, node);
+			if (old != null)
+			{
+				windowWeight -= old.weight;
+			}
+			windowWeight += weight;
+
+			int evicted = 0;
+			Iterator<Map.Entry<K, Node<V>>> candidates = window.entrySet()
+			                                                   .iterator();
+			while (windowWeight > windowMaximumWeight && candidates.hasNext())
+			{
+				Map.Entry<K, Node<V>> candidate = candidates.next();
+				candidates.remove();
+				windowWeight -= candidate.getValue().weight;
+				if (!admit(candidate.getKey(), candidate.getValue()))
+				{
+					evicted++;
+				}
+			}
+			Iterator<Map.Entry<K, Node<V>>> victims = main.entrySet()
+			                                              .iterator();
+			while (mainWeight > mainMaximumWeight && victims.hasNext())
+			{
+				Map.Entry<K, Node<V>> victim = victims.next();
+				victims.remove();
+				mainWeight -= victim.getValue().weight;
+				evicted++;
+			}
+			return evicted;
+		}
+
+		/**
+		 * Moves a candidate from the admission window into the main space if it is accessed more frequently than the
+		 * entries which have to be evicted for it.
+		 *
+		 * @return {@code true} if the candidate was admitted, otherwise {@code false}
+		 */
+		private boolean admit(K key, Node<V> candidate)
+		{
+			if (candidate.weight > mainMaximumWeight)
+			{
+				return false;
+			}
+			if (mainWeight + candidate.weight > mainMaximumWeight)
+			{
+				Map.Entry<K, Node<V>> victim = main.entrySet()
+				                                   .iterator()
+				                                   .next();
+				if (sketch.frequency(hash(key)) <= sketch.frequency(hash(victim.getKey())))
+				{
+					return false;
+				}
+			}
+			main.put(key, candidate);
+			mainWeight += candidate.weight;
+			return true;
+		}
+
+		private synchronized int size()
+		{
+			return window.size() + main.size();
+		}
+
+	}
+
+}
@@ -18,12 +18,18 @@ package net.sf.uadetector.parser;
 import net.sf.uadetector.*;
 import net.sf.uadetector.ReadableDeviceCategory.Category;
 import net.sf.uadetector.datastore.DataStore;
+import net.sf.uadetector.internal.Check;
 import net.sf.uadetector.internal.data.Data;
+import net.sf.uadetector.internal.data.OrderedPatternIndex;
 import net.sf.uadetector.internal.data.domain.*;
 import net.sf.uadetector.internal.data.domain.OperatingSystem;
 
-import java.util.Map.Entry;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Matcher;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public abstract class AbstractUserAgentStringParser
 		implements UserAgentStringParser
@@ -34,6 +40,17 @@ public abstract class AbstractUserAgentStringParser
 	 */
 	private static final int ZERO_MATCHING_GROUPS = 0;
 
+	/**
+	 * The minimum number of user agent strings which will be analyzed by one worker of a {@code ForkJoinPool} at once
+	 */
+	private static final int MINIMUM_RANGE_SIZE = 256;
+
+	/**
+	 * The number of ranges per worker of a {@code ForkJoinPool} into which an array of user agent strings will be split
+	 * to balance the load
+	 */
+	private static final int RANGES_PER_WORKER = 8;
+
 	@Override
 	public String getDataVersion()
 	{
@@ -48,51 +65,233 @@ public abstract class AbstractUserAgentStringParser
 	 */
 	protected abstract DataStore getDataStore();
 
+	/**
+	 * Matching contexts of the current thread, which are weakly referenced so that a pooled thread does not keep old
+	 * UAS data (and the class loader of this library) alive after they have been replaced or this parser has been shut
+	 * down
+	 */
+	private final ThreadLocal<WeakReference<MatchingContext>> contexts = new ThreadLocal<>();
+
+	/**
+	 * Strong references to the matching contexts of the current UAS data by thread, which keep the contexts alive as
+	 * long as their thread and data are in use
+	 */
+	private final Map<Thread, MatchingContext> liveContexts = new WeakHashMap<>();
+
 	@Override
 	public UserAgent parse(String userAgent)
 	{
-		UserAgent.Builder builder = new UserAgent.Builder(userAgent);
-
 		// work during the analysis always with the same reference of data
-		Data data = getDataStore().getData();
+		return parse(userAgent, getContext(getDataStore().getData()));
+	}
 
-		if (!examineAsRobot(builder, data))
+	/**
+	 * Gets the matching context of the current thread for the given UAS data. The matchers of a context are bound to
+	 * the patterns of one {@code Data} instance, therefore a new context will be created as soon as data of another
+	 * generation are passed. Contexts of other generations will be released for all threads at that moment, because the
+	 * generations follow the order of creation and a store may also publish an older instance again.
+	 *
+	 * @param data
+	 * 		UAS data snapshot
+	 *
+	 * @return matching context of the current thread
+	 */
+	@javax.validation.constraints.NotNull
+	private MatchingContext getContext(@javax.validation.constraints.NotNull Data data)
+	{
+		WeakReference<MatchingContext> reference = contexts.get();
+		MatchingContext context = reference != null ? reference.get() : null;
+		if (context == null || context.getData()
+		                              .getGeneration() != data.getGeneration())
 		{
-			examineAsBrowser(builder, data);
-			examineOperatingSystem(builder, data);
+			context = new MatchingContext(data);
+			synchronized (liveContexts)
+			{
+				liveContexts.values()
+				            .removeIf(live -> live.getData()
+				                                  .getGeneration() != data.getGeneration());
+				liveContexts.put(Thread.currentThread(), context);
+			}
+			contexts.set(new WeakReference<>(context));
 		}
-		examineDeviceCategory(builder, data);
-		return builder.build();
+		return context;
 	}
 
 	/**
-	 * Examines the user agent string whether it is a robot.
+	 * Detects informations about the given user agent string within the given context.
 	 *
-	 * @param builder
-	 * 		Builder for an user agent information
+	 * @param userAgent
+	 * 		user agent string
+	 * @param context
+	 * 		context with the UAS data snapshot to work with
 	 *
-	 * @return {@code true} if it is a robot, otherwise {@code false}
+	 * @return the detected information of an user agent
 	 */
-	private static boolean examineAsRobot(UserAgent.Builder builder, Data data)
+	@javax.validation.constraints.NotNull
+	UserAgent parse(String userAgent, @javax.validation.constraints.NotNull MatchingContext context)
 	{
-		boolean isRobot = false;
-		VersionNumber version;
-		for (Robot robot : data.getRobots())
+		UserAgent.Builder builder = new UserAgent.Builder(userAgent);
+
+		// the result of a robot is always the same and can be shared
+		UserAgent robot = context.getData()
+		                         .getRobotUserAgent(builder.getUserAgentString());
+		if (robot != null)
 		{
-			if (robot.getUserAgentString()
-			         .equals(builder.getUserAgentString()))
-			{
-				isRobot = true;
-				robot.copyTo(builder);
+			return robot;
+		}
 
-				// try to get the version from the last found group
-				version = VersionNumber.parseLastVersionNumber(robot.getName());
-				builder.setVersionNumber(version);
+		examineAsBrowser(builder, context);
+		examineOperatingSystem(builder, context);
+		examineDeviceCategory(builder, context);
+		return builder.build();
+	}
 
-				break;
+	/**
+	 * Warms up the given UAS data before they will be published, by detecting the given user agent strings in the same
+	 * way as a request does, including the parsing of version numbers. Lazily compiled regular expressions will only be
+	 * compiled if they are needed for the given user agent strings.
+	 *
+	 * @param data
+	 * 		UAS data which will be published afterwards
+	 * @param userAgents
+	 * 		sample of user agent strings, {@code null} elements will be skipped
+	 */
+	void warmUp(@javax.validation.constraints.NotNull Data data, @javax.validation.constraints.NotNull Iterable<String> userAgents)
+	{
+		MatchingContext context = new MatchingContext(data);
+		for (String userAgent : userAgents)
+		{
+			if (userAgent != null)
+			{
+				parse(userAgent, context);
 			}
 		}
-		return isRobot;
+	}
+
+	/**
+	 * Detects informations about all given user agent strings. The UAS data will be taken only once for the whole
+	 * batch, matchers will be reused and identical user agent strings will be analyzed only once.
+	 *
+	 * @param userAgents
+	 * 		collection of user agent strings
+	 *
+	 * @return the detected information of all user agents in the iteration order of the given collection
+	 */
+	@Override
+	public List<ReadableUserAgent> parseAll(@javax.validation.constraints.NotNull Collection<String> userAgents)
+	{
+		Check.notNull(userAgents, "userAgents");
+
+		MatchingContext context = getContext(getDataStore().getData());
+		Map<String, UserAgent> parsed = new HashMap<>();
+		List<ReadableUserAgent> results = new ArrayList<>(userAgents.size());
+		for (String userAgent : userAgents)
+		{
+			results.add(parse(userAgent, context, parsed));
+		}
+		return results;
+	}
+
+	/**
+	 * Detects informations about all given user agent strings and stores them into the passed array at the same index.
+	 * The UAS data will be taken only once for the whole batch, matchers will be reused and identical user agent strings
+	 * will be analyzed only once.
+	 *
+	 * @param userAgents
+	 * 		array of user agent strings
+	 * @param results
+	 * 		array to store the detected information of each user agent into, which must be at least as long as the given
+	 * 		array of user agent strings
+	 */
+	@Override
+	public void parse(@javax.validation.constraints.NotNull String[] userAgents, @javax.validation.constraints.NotNull ReadableUserAgent[] results)
+	{
+		Check.notNull(userAgents, "userAgents");
+		Check.notNull(results, "results");
+		Check.stateIsTrue(results.length >= userAgents.length, "Argument 'results' must not be shorter than 'userAgents'.");
+
+		MatchingContext context = getContext(getDataStore().getData());
+		Map<String, UserAgent> parsed = new HashMap<>();
+		for (int i = 0; i < userAgents.length; i++)
+		{
+			results[i] = parse(userAgents[i], context, parsed);
+		}
+	}
+
+	/**
+	 * Detects informations about all given user agent strings in parallel on the given {@code ForkJoinPool} and stores
+	 * them into the passed array at the same index. This method blocks until all user agent strings have been
+	 * analyzed.<br>
+	 * <br>
+	 * The array will be split into ranges which are analyzed by the workers of the pool. All workers share the same
+	 * UAS data snapshot, but each range is analyzed with its own matchers.
+	 *
+	 * @param userAgents
+	 * 		array of user agent strings
+	 * @param results
+	 * 		array to store the detected information of each user agent into, which must be at least as long as the given
+	 * 		array of user agent strings
+	 * @param pool
+	 * 		pool to run the analysis on
+	 */
+	public void parse(@javax.validation.constraints.NotNull String[] userAgents, @javax.validation.constraints.NotNull ReadableUserAgent[] results,
+	                  @javax.validation.constraints.NotNull ForkJoinPool pool)
+	{
+		Check.notNull(userAgents, "userAgents");
+		Check.notNull(results, "results");
+		Check.notNull(pool, "pool");
+		Check.stateIsTrue(results.length >= userAgents.length, "Argument 'results' must not be shorter than 'userAgents'.");
+
+		int threshold = Math.max(MINIMUM_RANGE_SIZE, userAgents.length / (pool.getParallelism() * RANGES_PER_WORKER));
+		pool.invoke(new ParsingTask(this, getDataStore().getData(), userAgents, results, 0, userAgents.length, threshold));
+	}
+
+	/**
+	 * Detects informations about all user agent strings of the given stream lazily. The UAS data will be taken only
+	 * once for the whole stream.<br>
+	 * <br>
+	 * If the given stream is parallel, the returned one is parallel too and each split of it reuses its own matchers.
+	 * To run a parallel stream on a specific {@code ForkJoinPool}, the terminal operation must be submitted to that
+	 * pool.
+	 *
+	 * @param userAgents
+	 * 		stream of user agent strings
+	 *
+	 * @return stream of the detected information of all user agents in the encounter order of the given stream
+	 */
+	@Override
+	public Stream<ReadableUserAgent> parseAll(@javax.validation.constraints.NotNull Stream<String> userAgents)
+	{
+		Check.notNull(userAgents, "userAgents");
+
+		Spliterator<ReadableUserAgent> spliterator = new ParsingSpliterator(this, getDataStore().getData(), userAgents.spliterator());
+		return StreamSupport.stream(spliterator, userAgents.isParallel())
+		                    .onClose(userAgents::close);
+	}
+
+	/**
+	 * Detects informations about the given user agent string within a batch.
+	 *
+	 * @param userAgent
+	 * 		user agent string
+	 * @param context
+	 * 		context of the batch
+	 * @param parsed
+	 * 		results of the batch so far by user agent string
+	 *
+	 * @return the detected information of an user agent
+	 */
+	@javax.validation.constraints.NotNull
+	UserAgent parse(String userAgent, @javax.validation.constraints.NotNull MatchingContext context,
+	                        @javax.validation.constraints.NotNull Map<String, UserAgent> parsed)
+	{
+		UserAgent result = parsed.get(userAgent);
+		if (result == null)
+		{
+			result = parse(userAgent, context);
+			parsed.put(userAgent, result);
+		}
+		return result;
 	}
 
 	/**
@@ -101,20 +300,22 @@ public abstract class AbstractUserAgentStringParser
 	 * @param builder
 	 * 		Builder for an user agent information
 	 */
-	private static void examineAsBrowser(UserAgent.Builder builder, Data data)
+	private static void examineAsBrowser(UserAgent.Builder builder, MatchingContext context)
 	{
 		Matcher matcher;
 		VersionNumber version = VersionNumber.UNKNOWN;
-		for (Entry<BrowserPattern, Browser> entry : data.getPatternToBrowserMap()
-		                                                .entrySet())
+		OrderedPatternIndex<BrowserPattern, Browser> index = context.getData()
+		                                                            .getBrowserPatternIndex();
+
+		// only patterns whose required literals occur in the user agent string can match
+		BitSet candidates = context.findCandidates(index, builder.getUserAgentString());
+		for (int position = candidates.nextSetBit(0); position >= 0; position = candidates.nextSetBit(position + 1))
 		{
-			matcher = entry.getKey()
-			               .getPattern()
-			               .matcher(builder.getUserAgentString());
+			matcher = context.browserMatcher(position, builder.getUserAgentString());
 			if (matcher.find())
 			{
 
-				entry.getValue()
+				index.getValue(position)
 				     .copyTo(builder);
 
 				// try to get the browser version from the first subgroup
@@ -135,19 +336,19 @@ public abstract class AbstractUserAgentStringParser
 	 * @param builder
 	 * 		Builder for an user agent information
 	 */
-	private static void examineOperatingSystem(UserAgent.Builder builder, Data data)
+	private static void examineOperatingSystem(UserAgent.Builder builder, MatchingContext context)
 	{
 		if (net.sf.uadetector.OperatingSystem.EMPTY.equals(builder.getOperatingSystem()))
 		{
-			for (Entry<OperatingSystemPattern, OperatingSystem> entry : data.getPatternToOperatingSystemMap()
-			                                                                .entrySet())
+			OrderedPatternIndex<OperatingSystemPattern, OperatingSystem> index = context.getData()
+			                                                                            .getOperatingSystemPatternIndex();
+			BitSet candidates = context.findCandidates(index, builder.getUserAgentString());
+			for (int position = candidates.nextSetBit(0); position >= 0; position = candidates.nextSetBit(position + 1))
 			{
-				Matcher matcher = entry.getKey()
-				                       .getPattern()
-				                       .matcher(builder.getUserAgentString());
+				Matcher matcher = context.operatingSystemMatcher(position, builder.getUserAgentString());
 				if (matcher.find())
 				{
-					entry.getValue()
+					index.getValue(position)
 					     .copyTo(builder);
 					break;
 				}
@@ -161,29 +362,29 @@ public abstract class AbstractUserAgentStringParser
 	 * @param builder
 	 * 		Builder for an user agent information
 	 */
-	private static void examineDeviceCategory(UserAgent.Builder builder, Data data)
+	private static void examineDeviceCategory(UserAgent.Builder builder, MatchingContext context)
 	{
+		Data data = context.getData();
 
 		// a robot will be classified as 'Other'
 		if (UserAgentType.ROBOT == builder.getType())
 		{
-			DeviceCategory category = findDeviceCategoryByValue(Category.OTHER, data);
+			DeviceCategory category = data.getDeviceCategory(Category.OTHER);
 			builder.setDeviceCategory(category);
 			return;
 		}
 
 		// classification depends on matching order
-		for (Entry<DevicePattern, Device> entry : data.getPatternToDeviceMap()
-		                                              .entrySet())
+		OrderedPatternIndex<DevicePattern, Device> index = data.getDevicePatternIndex();
+		BitSet candidates = context.findCandidates(index, builder.getUserAgentString());
+		for (int position = candidates.nextSetBit(0); position >= 0; position = candidates.nextSetBit(position + 1))
 		{
-			Matcher matcher = entry.getKey()
-			                       .getPattern()
-			                       .matcher(builder.getUserAgentString());
+			Matcher matcher = context.deviceMatcher(position, builder.getUserAgentString());
 			if (matcher.find())
 			{
-				Category category = Category.evaluate(entry.getValue()
+				Category category = Category.evaluate(index.getValue(position)
 				                                           .getName());
-				DeviceCategory deviceCategory = findDeviceCategoryByValue(category, data);
+				DeviceCategory deviceCategory = data.getDeviceCategory(category);
 				builder.setDeviceCategory(deviceCategory);
 				return;
 			}
@@ -201,7 +402,7 @@ public abstract class AbstractUserAgentStringParser
 		if (UserAgentType.OTHER == builder.getType() || UserAgentType.LIBRARY == builder.getType()
 		    || UserAgentType.VALIDATOR == builder.getType() || UserAgentType.USERAGENT_ANONYMIZER == builder.getType())
 		{
-			DeviceCategory category = findDeviceCategoryByValue(Category.OTHER, data);
+			DeviceCategory category = data.getDeviceCategory(Category.OTHER);
 			builder.setDeviceCategory(category);
 			return;
 		}
@@ -209,31 +410,24 @@ public abstract class AbstractUserAgentStringParser
 		// if no pattern is available but the type is a mobile or WAP browser than classify it as 'Smartphone'
 		if (UserAgentType.MOBILE_BROWSER == builder.getType() || UserAgentType.WAP_BROWSER == builder.getType())
 		{
-			DeviceCategory category = findDeviceCategoryByValue(Category.SMARTPHONE, data);
+			DeviceCategory category = data.getDeviceCategory(Category.SMARTPHONE);
 			builder.setDeviceCategory(category);
 			return;
 		}
 
-		DeviceCategory category = findDeviceCategoryByValue(Category.PERSONAL_COMPUTER, data);
+		DeviceCategory category = data.getDeviceCategory(Category.PERSONAL_COMPUTER);
 		builder.setDeviceCategory(category);
 	}
 
-	private static DeviceCategory findDeviceCategoryByValue(@javax.validation.constraints.NotNull Category category, @javax.validation.constraints.NotNull Data data)
-	{
-		for (Device device : data.getDevices())
-		{
-			if (category == device.getCategory())
-			{
-				return new DeviceCategory(category, device.getIcon(), device.getInfoUrl(), device.getName());
-			}
-		}
-		return DeviceCategory.EMPTY;
-	}
-
 	@Override
 	public void shutdown()
 	{
-		// nothing to shutdown
+		// release the matching contexts of all threads, the references which remain in pooled threads will be cleared
+		synchronized (liveContexts)
+		{
+			liveContexts.clear();
+		}
+		contexts.remove();
 	}
 
 }
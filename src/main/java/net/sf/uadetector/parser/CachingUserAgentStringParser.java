@@ -0,0 +1,317 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.parser;
+
+import net.sf.uadetector.ReadableUserAgent;
+import net.sf.uadetector.UserAgentStringParser;
+import net.sf.uadetector.datastore.DataStore;
+import net.sf.uadetector.internal.Check;
+import net.sf.uadetector.internal.util.TinyLfuCache;
+
+import java.util.function.ToIntBiFunction;
+
+/**
+ * This parser decorates another {@code UserAgentStringParser} and caches the detected informations of frequently
+ * requested user agent strings.<br>
+ * <br>
+ * The cache is bounded by a maximum weight. By default every entry weighs one unit, so the maximum weight is the
+ * maximum number of entries. Which entries are retained depends on how often their user agent strings are requested,
+ * so a small cache can serve the vast majority of requests of real-world traffic.
+ * <p>
+ * Cached results are bound to the <em>UAS data</em> which were used to detect them. When the decorated parser works
+ * with newer data (for example after an update of a {@link net.sf.uadetector.datastore.RefreshableDataStore}), the
+ * whole cache will be invalidated. The data of parsers of this library are recognized by their generation (see
+ * {@link net.sf.uadetector.internal.data.Data#getGeneration()}), for other parsers the version string will be compared.
+ *
+ * @author André Rouél
+ */
+public final class CachingUserAgentStringParser
+		implements UserAgentStringParser
+{
+
+	/**
+	 * Default maximum number of cached user agent strings
+	 */
+	public static final long DEFAULT_MAXIMUM_WEIGHT = 10000L;
+
+	/**
+	 * Weigher which assigns the same weight to every entry
+	 */
+	private static final ToIntBiFunction<String, ReadableUserAgent> SINGLETON_WEIGHER = (userAgent, result) -> 1;
+
+	/**
+	 * Cached results by user agent string
+	 */
+	@javax.validation.constraints.NotNull
+	private final TinyLfuCache<String, CachedResult> cache;
+
+	/**
+	 * The decorated parser
+	 */
+	@javax.validation.constraints.NotNull
+	private final UserAgentStringParser delegate;
+
+	/**
+	 * Data store of the decorated parser, if it is a parser of this library, otherwise {@code null}
+	 */
+	private final DataStore dataStore;
+
+	/**
+	 * Generation of the UAS data whose results are currently cached
+	 */
+	private volatile long generation;
+
+	/**
+	 * Version of the UAS data whose results are currently cached, only used if the data store is unknown
+	 */
+	private volatile String version;
+
+	/**
+	 * Constructs a {@code CachingUserAgentStringParser} which caches up to {@link #DEFAULT_MAXIMUM_WEIGHT} results.
+	 *
+	 * @param delegate
+	 * 		parser to detect informations of user agent strings which are not cached
+	 *
+	 * @throws net.sf.uadetector.exception.IllegalNullArgumentException
+	 * 		if the given argument is {@code null}
+	 */
+	public CachingUserAgentStringParser(@javax.validation.constraints.NotNull UserAgentStringParser delegate)
+	{
+		this(delegate, DEFAULT_MAXIMUM_WEIGHT, DEFAULT_MAXIMUM_WEIGHT, SINGLETON_WEIGHER);
+	}
+
+	/**
+	 * Constructs a {@code CachingUserAgentStringParser} which caches up to the given number of results.
+	 *
+	 * @param delegate
+	 * 		parser to detect informations of user agent strings which are not cached
+	 * @param maximumSize
+	 * 		maximum number of cached results
+	 *
+	 * @throws net.sf.uadetector.exception.IllegalNullArgumentException
+	 * 		if the given parser is {@code null}
+	 * @throws net.sf.uadetector.exception.IllegalNegativeArgumentException
+	 * 		if the given maximum size is negative
+	 */
+	public CachingUserAgentStringParser(@javax.validation.constraints.NotNull UserAgentStringParser delegate, long maximumSize)
+	{
+		this(delegate, maximumSize, maximumSize, SINGLETON_WEIGHER);
+	}
+
+	/**
+	 * Constructs a {@code CachingUserAgentStringParser} whose cached results must not exceed the given maximum weight.
+	 * The cache expects to hold up to {@link #DEFAULT_MAXIMUM_WEIGHT} results, but not more than the maximum weight.
+	 *
+	 * @param delegate
+	 * 		parser to detect informations of user agent strings which are not cached
+	 * @param maximumWeight
+	 * 		maximum total weight of all cached results
+	 * @param weigher
+	 * 		function to determine the weight of a result, for example the length of the user agent string, which must
+	 * 		not be negative (a weight of {@code 0} counts as {@code 1}, so that every result can be evicted)
+	 *
+	 * @throws net.sf.uadetector.exception.IllegalNullArgumentException
+	 * 		if the given parser or weigher is {@code null}
+	 * @throws net.sf.uadetector.exception.IllegalNegativeArgumentException
+	 * 		if the given maximum weight is negative
+	 */
+	public CachingUserAgentStringParser(@javax.validation.constraints.NotNull UserAgentStringParser delegate, long maximumWeight,
+	                                    @javax.validation.constraints.NotNull ToIntBiFunction<String, ReadableUserAgent> weigher)
+	{
+		this(delegate, maximumWeight, Math.min(maximumWeight, DEFAULT_MAXIMUM_WEIGHT), weigher);
+	}
+
+	/**
+	 * Constructs a {@code CachingUserAgentStringParser} whose cached results must not exceed the given maximum weight.
+	 * The expected number of cached results determines the size of the structures which estimate how often user agent
+	 * strings are requested, it should be the maximum weight divided by the average weight of a result.
+	 *
+	 * @param delegate
+	 * 		parser to detect informations of user agent strings which are not cached
+	 * @param maximumWeight
+	 * 		maximum total weight of all cached results
+	 * @param expectedSize
+	 * 		expected number of cached results when the maximum weight has been reached
+	 * @param weigher
+	 * 		function to determine the weight of a result, for example the length of the user agent string, which must
+	 * 		not be negative (a weight of {@code 0} counts as {@code 1}, so that every result can be evicted)
+	 *
+	 * @throws net.sf.uadetector.exception.IllegalNullArgumentException
+	 * 		if the given parser or weigher is {@code null}
+	 * @throws net.sf.uadetector.exception.IllegalNegativeArgumentException
+	 * 		if the given maximum weight or expected size is negative
+	 */
+	public CachingUserAgentStringParser(@javax.validation.constraints.NotNull UserAgentStringParser delegate, long maximumWeight, long expectedSize,
+	                                    @javax.validation.constraints.NotNull ToIntBiFunction<String, ReadableUserAgent> weigher)
+	{
+		Check.notNull(delegate, "delegate");
+		Check.notNull(weigher, "weigher");
+
+		this.delegate = delegate;
+		cache = new TinyLfuCache<>(maximumWeight, expectedSize, (userAgent, cached) -> weigher.applyAsInt(userAgent, cached.result));
+		dataStore = delegate instanceof AbstractUserAgentStringParser ? ((AbstractUserAgentStringParser) delegate).getDataStore() : null;
+		version = delegate.getDataVersion();
+		generation = currentGeneration();
+	}
+
+	/**
+	 * Gets the number of results that were removed from the cache to respect its maximum weight.
+	 *
+	 * @return number of evictions
+	 */
+	public long getEvictionCount()
+	{
+		return cache.getEvictionCount();
+	}
+
+	/**
+	 * Gets the number of user agent strings which were served from the cache.
+	 *
+	 * @return number of cache hits
+	 */
+	public long getHitCount()
+	{
+		return cache.getHitCount();
+	}
+
+	/**
+	 * Gets the number of user agent strings which had to be detected by the decorated parser.
+	 *
+	 * @return number of cache misses
+	 */
+	public long getMissCount()
+	{
+		return cache.getMissCount();
+	}
+
+	/**
+	 * Gets the number of currently cached results.
+	 *
+	 * @return number of cached results
+	 */
+	public int getSize()
+	{
+		return cache.size();
+	}
+
+	@Override
+	public String getDataVersion()
+	{
+		return delegate.getDataVersion();
+	}
+
+	/**
+	 * Removes all cached results.
+	 */
+	public void invalidateAll()
+	{
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Determines the generation of the UAS data which are currently used by the decorated parser. If the data store is
+	 * unknown, the cache will be invalidated and the generation increased as soon as the version of the data changes.
+	 *
+	 * @return generation of the current UAS data
+	 */
+	private long currentGeneration()
+	{
+		if (dataStore != null)
+		{
+			return dataStore.getData()
+			                .getGeneration();
+		}
+
+		String currentVersion = delegate.getDataVersion();
+		if (!currentVersion.equals(version))
+		{
+			synchronized (this)
+			{
+				if (!currentVersion.equals(version))
+				{
+					cache.invalidateAll();
+					version = currentVersion;
+					generation++;
+				}
+			}
+		}
+		return generation;
+	}
+
+	/**
+	 * Invalidates all cached results after the UAS data of the decorated parser have changed.
+	 *
+	 * @param currentGeneration
+	 * 		generation of the UAS data which are currently used by the decorated parser
+	 */
+	private synchronized void invalidate(long currentGeneration)
+	{
+		if (currentGeneration != generation)
+		{
+			cache.invalidateAll();
+			generation = currentGeneration;
+		}
+	}
+
+	@Override
+	public ReadableUserAgent parse(@javax.validation.constraints.NotNull String userAgent)
+	{
+		Check.notNull(userAgent, "userAgent");
+
+		long currentGeneration = currentGeneration();
+		if (currentGeneration != generation)
+		{
+			invalidate(currentGeneration);
+		}
+
+		CachedResult cached = cache.get(userAgent, result -> result.generation == currentGeneration);
+		if (cached != null)
+		{
+			return cached.result;
+		}
+
+		ReadableUserAgent result = delegate.parse(userAgent);
+		cache.put(userAgent, new CachedResult(currentGeneration, result));
+		return result;
+	}
+
+	@Override
+	public void shutdown()
+	{
+		cache.invalidateAll();
+		delegate.shutdown();
+	}
+
+	/**
+	 * A detected result together with the generation of the UAS data it was detected with
+	 */
+	private static final class CachedResult
+	{
+
+		private final long generation;
+
+		@javax.validation.constraints.NotNull
+		private final ReadableUserAgent result;
+
+		private CachedResult(long generation, @javax.validation.constraints.NotNull ReadableUserAgent result)
+		{
+			this.generation = generation;
+			this.result = result;
+		}
+
+	}
+
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.parser;
+
+import net.sf.uadetector.internal.Check;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Scheduling policy which spreads the update checks of many instances over time, so that instances which have been
+ * started together do not request the remote resources at the same time.<br>
+ * <br>
+ * The first check will be done after a fixed startup delay plus a random delay up to the maximum startup jitter. By
+ * default both are {@code 0}, so the first check will be done immediately; instances which are usually started
+ * together can spread their first checks by a maximum startup jitter. Afterwards checks will be done in the update interval, which will be randomly shortened or lengthened by up to the
+ * jitter factor. After a failed check the next one will be done sooner, starting with the initial backoff which
+ * doubles with every consecutive failure, but never later than in the regular interval.
+ *
+ * @author André Rouél
+ */
+public final class JitteredUpdateSchedulingPolicy
+		implements UpdateSchedulingPolicy
+{
+
+	/**
+	 * Default backoff in milliseconds after the first failed update check
+	 */
+	public static final long DEFAULT_INITIAL_BACKOFF = 1000 * 60L;
+
+	/**
+	 * Default factor by which the update interval will be randomly shortened or lengthened
+	 */
+	public static final double DEFAULT_JITTER_FACTOR = 0.1;
+
+	/**
+	 * Default maximum random delay in milliseconds which will be added to the startup delay
+	 */
+	public static final long DEFAULT_MAX_STARTUP_JITTER = 0L;
+
+	/**
+	 * Default fixed delay in milliseconds before the first update check
+	 */
+	public static final long DEFAULT_STARTUP_DELAY = 0L;
+
+	private final long initialBackoff;
+
+	private final double jitterFactor;
+
+	private final long maxStartupJitter;
+
+	private final long startupDelay;
+
+	/**
+	 * Constructs a {@code JitteredUpdateSchedulingPolicy} with default values.
+	 */
+	public JitteredUpdateSchedulingPolicy()
+	{
+		this(DEFAULT_STARTUP_DELAY, DEFAULT_MAX_STARTUP_JITTER, DEFAULT_JITTER_FACTOR, DEFAULT_INITIAL_BACKOFF);
+	}
+
+	/**
+	 * Constructs a {@code JitteredUpdateSchedulingPolicy}.
+	 *
+	 * @param startupDelay
+	 * 		fixed delay in milliseconds before the first update check
+	 * @param maxStartupJitter
+	 * 		maximum random delay in milliseconds which will be added to the startup delay
+	 * @param jitterFactor
+	 * 		factor between {@code 0} and {@code 1} by which the update interval will be randomly shortened or lengthened
+	 * @param initialBackoff
+	 * 		delay in milliseconds after the first failed update check, {@code 0} to retry only in the regular interval
+	 *
+	 * @throws net.sf.uadetector.exception.IllegalNegativeArgumentException
+	 * 		if one of the given arguments is negative
+	 * @throws net.sf.uadetector.exception.IllegalStateOfArgumentException
+	 * 		if the jitter factor is greater than {@code 1}
+	 */
+	public JitteredUpdateSchedulingPolicy(long startupDelay, long maxStartupJitter, double jitterFactor, long initialBackoff)
+	{
+		this.startupDelay = Check.notNegative(startupDelay, "startupDelay");
+		this.maxStartupJitter = Check.notNegative(maxStartupJitter, "maxStartupJitter");
+		this.jitterFactor = Check.notNegative(jitterFactor, "jitterFactor");
+		Check.stateIsTrue(jitterFactor <= 1, "Argument 'jitterFactor' must not be greater than 1.");
+		this.initialBackoff = Check.notNegative(initialBackoff, "initialBackoff");
+	}
+
+	@Override
+	public long getInitialDelay(long updateInterval)
+	{
+		return startupDelay + (maxStartupJitter > 0 ? ThreadLocalRandom.current()
+		                                                               .nextLong(maxStartupJitter + 1) : 0);
+	}
+
+	@Override
+	public long getNextDelay(long updateInterval, int failures)
+	{
+		long delay = updateInterval;
+		if (failures > 0 && initialBackoff > 0)
+		{
+			long backoff = initialBackoff;
+			for (int i = 1; i < failures && backoff < updateInterval; i++)
+			{
+				backoff *= 2;
+			}
+			delay = Math.min(backoff, updateInterval);
+		}
+		long jitter = (long) (delay * jitterFactor);
+		return jitter > 0 ? delay - jitter + ThreadLocalRandom.current()
+		                                                      .nextLong(2 * jitter + 1) : delay;
+	}
+
+}
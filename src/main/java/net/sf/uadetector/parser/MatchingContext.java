@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.parser;
+
+import net.sf.uadetector.internal.Check;
+import net.sf.uadetector.internal.data.Data;
+import net.sf.uadetector.internal.data.OrderedPatternIndex;
+
+import java.util.BitSet;
+import java.util.regex.Matcher;
+
+/**
+ * Scratch state to analyze user agent strings against one snapshot of <em>UAS data</em>.<br>
+ * <br>
+ * A context keeps the {@code Data} reference it was created for and reuses the {@code Matcher} of every pattern as
+ * well as the set of candidate positions for subsequent user agent strings. Therefore an instance is not thread-safe
+ * and must be confined to one thread.
+ *
+ * @author André Rouél
+ */
+final class MatchingContext
+{
+
+	/**
+	 * Reusable matchers of browser patterns by position
+	 */
+	@javax.validation.constraints.NotNull
+	private final Matcher[] browserMatchers;
+
+	/**
+	 * Reusable set of candidate positions
+	 */
+	@javax.validation.constraints.NotNull
+	private final BitSet candidates = new BitSet();
+
+	/**
+	 * The UAS data snapshot of this context
+	 */
+	@javax.validation.constraints.NotNull
+	private final Data data;
+
+	/**
+	 * Reusable matchers of device patterns by position
+	 */
+	@javax.validation.constraints.NotNull
+	private final Matcher[] deviceMatchers;
+
+	/**
+	 * Reusable matchers of operating system patterns by position
+	 */
+	@javax.validation.constraints.NotNull
+	private final Matcher[] operatingSystemMatchers;
+
+	/**
+	 * Constructs a {@code MatchingContext} for the given UAS data.
+	 *
+	 * @param data
+	 * 		UAS data snapshot
+	 */
+	MatchingContext(@javax.validation.constraints.NotNull Data data)
+	{
+		this.data = Check.notNull(data, "data");
+		browserMatchers = new Matcher[data.getBrowserPatternIndex()
+		                                  .size()];
+		operatingSystemMatchers = new Matcher[data.getOperatingSystemPatternIndex()
+		                                          .size()];
+		deviceMatchers = new Matcher[data.getDevicePatternIndex()
+		                                 .size()];
+	}
+
+	private static Matcher matcher(@javax.validation.constraints.NotNull Matcher[] matchers, @javax.validation.constraints.NotNull OrderedPatternIndex<?, ?> index,
+	                               int position, @javax.validation.constraints.NotNull String userAgent)
+	{
+		Matcher matcher = matchers[position];
+		if (matcher == null)
+		{
+			matcher = index.getPattern(position)
+			               .getPattern()
+			               .matcher(userAgent);
+			matchers[position] = matcher;
+		}
+		else
+		{
+			matcher.reset(userAgent);
+		}
+		return matcher;
+	}
+
+	/**
+	 * Gets a matcher of the browser pattern at the given position for the given user agent string.
+	 */
+	@javax.validation.constraints.NotNull
+	Matcher browserMatcher(int position, @javax.validation.constraints.NotNull String userAgent)
+	{
+		return matcher(browserMatchers, data.getBrowserPatternIndex(), position, userAgent);
+	}
+
+	/**
+	 * Gets a matcher of the device pattern at the given position for the given user agent string.
+	 */
+	@javax.validation.constraints.NotNull
+	Matcher deviceMatcher(int position, @javax.validation.constraints.NotNull String userAgent)
+	{
+		return matcher(deviceMatchers, data.getDevicePatternIndex(), position, userAgent);
+	}
+
+	/**
+	 * Determines the candidate positions of the given index for the given user agent string. The returned set will be
+	 * reused by the next call.
+	 */
+	@javax.validation.constraints.NotNull
+	BitSet findCandidates(@javax.validation.constraints.NotNull OrderedPatternIndex<?, ?> index, @javax.validation.constraints.NotNull String userAgent)
+	{
+		return index.findCandidates(userAgent, candidates);
+	}
+
+	/**
+	 * Gets the UAS data snapshot of this context.
+	 */
+	@javax.validation.constraints.NotNull
+	Data getData()
+	{
+		return data;
+	}
+
+	/**
+	 * Gets a matcher of the operating system pattern at the given position for the given user agent string.
+	 */
+	@javax.validation.constraints.NotNull
+	Matcher operatingSystemMatcher(int position, @javax.validation.constraints.NotNull String userAgent)
+	{
+		return matcher(operatingSystemMatchers, data.getOperatingSystemPatternIndex(), position, userAgent);
+	}
+
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.parser;
+
+import net.sf.uadetector.ReadableUserAgent;
+import net.sf.uadetector.internal.data.Data;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A {@code Spliterator} which detects informations about the user agent strings of a source {@code Spliterator}.<br>
+ * <br>
+ * All spliterators which are split off from each other share the same <em>UAS data</em> snapshot, but each of them
+ * owns its {@link MatchingContext}. Since a spliterator is traversed by only one thread at a time, the reusable
+ * matchers stay confined to the traversing thread.
+ *
+ * @author André Rouél
+ */
+final class ParsingSpliterator
+		implements Spliterator<ReadableUserAgent>
+{
+
+	/**
+	 * Characteristics of a source that remain valid after mapping user agent strings to results
+	 */
+	private static final int RETAINED_CHARACTERISTICS = ORDERED | SIZED | SUBSIZED | IMMUTABLE | CONCURRENT;
+
+	/**
+	 * UAS data snapshot shared by all split off spliterators
+	 */
+	@javax.validation.constraints.NotNull
+	private final Data data;
+
+	/**
+	 * Parser to detect the informations
+	 */
+	@javax.validation.constraints.NotNull
+	private final AbstractUserAgentStringParser parser;
+
+	/**
+	 * Source of user agent strings
+	 */
+	@javax.validation.constraints.NotNull
+	private final Spliterator<String> source;
+
+	/**
+	 * Context of this spliterator which will be created on first use
+	 */
+	private MatchingContext context;
+
+	ParsingSpliterator(@javax.validation.constraints.NotNull AbstractUserAgentStringParser parser, @javax.validation.constraints.NotNull Data data,
+	                   @javax.validation.constraints.NotNull Spliterator<String> source)
+	{
+		this.parser = parser;
+		this.data = data;
+		this.source = source;
+	}
+
+	@Override
+	public int characteristics()
+	{
+		return source.characteristics() & RETAINED_CHARACTERISTICS | NONNULL;
+	}
+
+	@Override
+	public long estimateSize()
+	{
+		return source.estimateSize();
+	}
+
+	@Override
+	public void forEachRemaining(@javax.validation.constraints.NotNull Consumer<? super ReadableUserAgent> action)
+	{
+		MatchingContext current = getContext();
+		source.forEachRemaining(userAgent -> action.accept(parser.parse(userAgent, current)));
+	}
+
+	private MatchingContext getContext()
+	{
+		if (context == null)
+		{
+			context = new MatchingContext(data);
+		}
+		return context;
+	}
+
+	@Override
+	public boolean tryAdvance(@javax.validation.constraints.NotNull Consumer<? super ReadableUserAgent> action)
+	{
+		MatchingContext current = getContext();
+		return source.tryAdvance(userAgent -> action.accept(parser.parse(userAgent, current)));
+	}
+
+	@Override
+	public Spliterator<ReadableUserAgent> trySplit()
+	{
+		Spliterator<String> prefix = source.trySplit();
+		return prefix != null ? new ParsingSpliterator(parser, data, prefix) : null;
+	}
+
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.parser;
+
+import net.sf.uadetector.ReadableUserAgent;
+import net.sf.uadetector.UserAgent;
+import net.sf.uadetector.internal.data.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A fork/join task which detects informations about a range of an array of user agent strings and stores them into the
+ * same range of a result array.<br>
+ * <br>
+ * The range will be split in halves until it is not larger than a threshold. Each leaf works with its own
+ * {@link MatchingContext} on the shared <em>UAS data</em> snapshot, so no state is shared between worker threads
+ * except the read-only data.
+ *
+ * @author André Rouél
+ */
+final class ParsingTask
+		extends RecursiveAction
+{
+
+	private static final long serialVersionUID = 4385627134937125423L;
+
+	/**
+	 * UAS data snapshot shared by all subtasks
+	 */
+	private final Data data;
+
+	/**
+	 * Exclusive end of the range
+	 */
+	private final int end;
+
+	/**
+	 * Parser to detect the informations
+	 */
+	private final AbstractUserAgentStringParser parser;
+
+	/**
+	 * Array to store the results into
+	 */
+	private final ReadableUserAgent[] results;
+
+	/**
+	 * Inclusive start of the range
+	 */
+	private final int start;
+
+	/**
+	 * Maximum size of a range which will not be split any further
+	 */
+	private final int threshold;
+
+	/**
+	 * User agent strings to analyze
+	 */
+	private final String[] userAgents;
+
+	ParsingTask(AbstractUserAgentStringParser parser, Data data, String[] userAgents, ReadableUserAgent[] results, int start, int end,
+	            int threshold)
+	{
+		this.parser = parser;
+		this.data = data;
+		this.userAgents = userAgents;
+		this.results = results;
+		this.start = start;
+		this.end = end;
+		this.threshold = threshold;
+	}
+
+	@Override
+	protected void compute()
+	{
+		if (end - start <= threshold)
+		{
+			MatchingContext context = new MatchingContext(data);
+			Map<String, UserAgent> parsed = new HashMap<>();
+			for (int i = start; i < end; i++)
+			{
+				results[i] = parser.parse(userAgents[i], context, parsed);
+			}
+		}
+		else
+		{
+			int middle = start + end >>> 1;
+			invokeAll(new ParsingTask(parser, data, userAgents, results, start, middle, threshold),
+			          new ParsingTask(parser, data, userAgents, results, middle, end, threshold));
+		}
+	}
+
+}
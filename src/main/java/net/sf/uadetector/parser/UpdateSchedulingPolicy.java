@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.parser;
+
+/**
+ * Defines when an {@link UpdatingUserAgentStringParserImpl} checks for updates of the <em>UAS data</em>.<br>
+ * <br>
+ * Implementations must be thread-safe.
+ *
+ * @author André Rouél
+ */
+public interface UpdateSchedulingPolicy
+{
+
+	/**
+	 * Gets the delay before the first update check after the update service has been set up.
+	 *
+	 * @param updateInterval
+	 * 		configured update interval in milliseconds
+	 *
+	 * @return delay in milliseconds, must not be negative
+	 */
+	long getInitialDelay(long updateInterval);
+
+	/**
+	 * Gets the delay before the next update check after the previous one has been finished.
+	 *
+	 * @param updateInterval
+	 * 		configured update interval in milliseconds
+	 * @param failures
+	 * 		number of consecutive failed update checks, {@code 0} if the previous check succeeded
+	 *
+	 * @return delay in milliseconds, must not be negative
+	 */
+	long getNextDelay(long updateInterval, int failures);
+
+}
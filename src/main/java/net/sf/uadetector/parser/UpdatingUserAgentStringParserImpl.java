@@ -16,17 +16,31 @@
 package net.sf.uadetector.parser;
 
 import net.sf.uadetector.datastore.RefreshableDataStore;
+import net.sf.uadetector.datastore.UpdateOperation;
 import net.sf.uadetector.internal.Check;
 import net.sf.uadetector.internal.util.ExecutorServices;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
 
 import static java.util.concurrent.TimeUnit.*;
 
 /**
  * This parser checks once per day if newer data are available. When newer data are available, they will be loaded, read
- * and replaced by the current one.
+ * and replaced by the current one.<br>
+ * <br>
+ * The points in time of the checks are determined by an {@link UpdateSchedulingPolicy}, which by default starts the
+ * first check immediately, shifts the following checks of every instance randomly and retries failed checks sooner
+ * (see {@link JitteredUpdateSchedulingPolicy}).<br>
+ * <br>
+ * Every check runs in a separate background thread and the scheduler waits for it only up to the update timeout, so a
+ * hanging request can not stop further checks. A check which is still running when the next one is due will not be
+ * started twice, instead the scheduler waits for the running one again.
  *
  * @author André Rouél
  */
@@ -38,22 +52,60 @@ public final class UpdatingUserAgentStringParserImpl
 	 * The default interval to check for updates is once per day
 	 */
 	public static final long DEFAULT_UPDATE_INTERVAL = 1000 * 60 * 60 * 24L;
+	/**
+	 * The default time to wait for an update check is ten minutes
+	 */
+	public static final long DEFAULT_UPDATE_TIMEOUT = 1000 * 60 * 10L;
+	/**
+	 * Corresponding default logger for this class
+	 */
+	private static final java.util.logging.Logger LOG = java.util.logging.Logger.getLogger(UpdatingUserAgentStringParserImpl.class.toString());
 	/**
 	 * {@link ScheduledExecutorService} to schedule commands to update the UAS data in defined intervals
 	 */
 	private final ScheduledExecutorService scheduler = ExecutorServices.createScheduler();
+	/**
+	 * {@link ExecutorService} to run the update checks, so that the scheduler does not block on a hanging check
+	 */
+	private final ExecutorService updater = ExecutorServices.createBackgroundExecutor();
 	/**
 	 * Interval to check for updates in milliseconds
 	 */
 	private long updateInterval = DEFAULT_UPDATE_INTERVAL;
+	/**
+	 * Time to wait for an update check in milliseconds
+	 */
+	private long updateTimeout = DEFAULT_UPDATE_TIMEOUT;
+	/**
+	 * Current or last update check, which runs within {@link UpdatingUserAgentStringParserImpl#updater}
+	 */
+	private Future<?> currentCheck;
 	/**
 	 * Current update task of {@link UpdatingUserAgentStringParserImpl#scheduler}
 	 */
 	private ScheduledFuture<?> currentUpdateTask;
+	/**
+	 * Command of the current update service, which reschedules itself as long as it has not been replaced
+	 */
+	private Runnable currentUpdateCommand;
+	/**
+	 * Policy to determine the delays between the update checks
+	 */
+	@javax.validation.constraints.NotNull
+	private UpdateSchedulingPolicy schedulingPolicy = new JitteredUpdateSchedulingPolicy();
+	/**
+	 * Number of consecutive failed update checks
+	 */
+	private int failures;
+	/**
+	 * Whether this parser has been shut down
+	 */
+	private boolean shutdown;
 
 	/**
-	 * Constructs an instance of {@code OnlineUserAgentStringParser}. During construction new UAS data will be queried
-	 * online by the given {@code URL}s.
+	 * Constructs an instance of {@code OnlineUserAgentStringParser}. During construction the first check for new UAS
+	 * data will be started in the background after the initial delay of the update scheduling policy, which is
+	 * {@code 0} by default.
 	 *
 	 * @param store
 	 * 		{@code DataStore} with reference UAS data used in fallback case
@@ -72,13 +124,138 @@ public final class UpdatingUserAgentStringParserImpl
 	/**
 	 * Set up a new update service to get newer UAS data
 	 */
-	private void setUpUpdateService()
+	private synchronized void setUpUpdateService()
 	{
 		if (currentUpdateTask != null)
 		{
 			currentUpdateTask.cancel(false);
 		}
-		currentUpdateTask = scheduler.scheduleWithFixedDelay(getDataStore().getUpdateOperation(), 0, updateInterval, MILLISECONDS);
+		failures = 0;
+		Runnable command = new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				update(this);
+			}
+		};
+		currentUpdateCommand = command;
+		schedule(command, schedulingPolicy.getInitialDelay(updateInterval));
+	}
+
+	/**
+	 * Schedules the given command of the update service, unless it has been replaced by a new one or this parser has
+	 * been shut down.
+	 */
+	private synchronized void schedule(Runnable command, long delay)
+	{
+		if (!shutdown && command == currentUpdateCommand)
+		{
+			currentUpdateTask = scheduler.schedule(command, Math.max(0L, delay), MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Checks for an update in background, waits for the check up to the update timeout within the thread of the
+	 * scheduler and schedules the next check afterwards.
+	 */
+	private void update(Runnable command)
+	{
+		UpdateOperation operation = getDataStore().getUpdateOperation();
+		Future<?> check;
+		long timeout;
+		synchronized (this)
+		{
+			if (currentCheck == null || currentCheck.isDone())
+			{
+				currentCheck = updater.submit(operation::call);
+			}
+			check = currentCheck;
+			timeout = updateTimeout;
+		}
+
+		boolean failed;
+		try
+		{
+			check.get(timeout, MILLISECONDS);
+			failed = operation.hasFailed();
+		}
+		catch (ExecutionException e)
+		{
+			LOG.log(Level.WARNING, "Can not check for an update: " + e.getCause()
+			                                                           .getLocalizedMessage(), e.getCause());
+			failed = true;
+		}
+		catch (TimeoutException e)
+		{
+			LOG.warning("The update check has not been finished within " + timeout + " ms.");
+			failed = true;
+		}
+		catch (InterruptedException e)
+		{
+			// the scheduler will be shut down
+			Thread.currentThread()
+			      .interrupt();
+			return;
+		}
+
+		long delay;
+		synchronized (this)
+		{
+			failures = failed ? failures + 1 : 0;
+			delay = schedulingPolicy.getNextDelay(updateInterval, failures);
+		}
+		schedule(command, delay);
+	}
+
+	/**
+	 * Gets the policy which determines the delays between the update checks.
+	 *
+	 * @return current scheduling policy
+	 */
+	@javax.validation.constraints.NotNull
+	public synchronized UpdateSchedulingPolicy getUpdateSchedulingPolicy()
+	{
+		return schedulingPolicy;
+	}
+
+	/**
+	 * Sets a new policy which determines the delays between the update checks.<br>
+	 * <br>
+	 * When a new policy is set, the old update service is removed and a new one will be set.
+	 *
+	 * @param schedulingPolicy
+	 * 		scheduling policy
+	 */
+	public synchronized void setUpdateSchedulingPolicy(@javax.validation.constraints.NotNull UpdateSchedulingPolicy schedulingPolicy)
+	{
+		this.schedulingPolicy = Check.notNull(schedulingPolicy, "schedulingPolicy");
+		setUpUpdateService();
+	}
+
+	/**
+	 * Gets the time in milliseconds to wait for an update check.
+	 *
+	 * @return current update timeout in milliseconds
+	 */
+	public synchronized long getUpdateTimeout()
+	{
+		return updateTimeout;
+	}
+
+	/**
+	 * Sets the time in milliseconds to wait for an update check. A check which takes longer counts as failed, but will
+	 * not be interrupted.
+	 *
+	 * @param updateTimeout
+	 * 		update timeout in milliseconds
+	 *
+	 * @throws net.sf.uadetector.exception.IllegalNegativeArgumentException
+	 * 		if the given update timeout is less than 0
+	 */
+	public synchronized void setUpdateTimeout(long updateTimeout)
+	{
+		this.updateTimeout = Check.notNegative(updateTimeout, "updateTimeout");
 	}
 
 	/**
@@ -86,7 +263,7 @@ public final class UpdatingUserAgentStringParserImpl
 	 *
 	 * @return current update interval in milliseconds
 	 */
-	public long getUpdateInterval()
+	public synchronized long getUpdateInterval()
 	{
 		return updateInterval;
 	}
@@ -102,7 +279,7 @@ public final class UpdatingUserAgentStringParserImpl
 	 * @throws net.sf.uadetector.exception.IllegalNegativeArgumentException
 	 * 		if the given update interval is less than 0
 	 */
-	public void setUpdateInterval(long updateInterval)
+	public synchronized void setUpdateInterval(long updateInterval)
 	{
 		Check.notNegative(updateInterval, "updateInterval");
 		this.updateInterval = updateInterval;
@@ -112,8 +289,13 @@ public final class UpdatingUserAgentStringParserImpl
 	@Override
 	public void shutdown()
 	{
-		currentUpdateTask.cancel(false);
+		synchronized (this)
+		{
+			shutdown = true;
+			currentUpdateTask.cancel(false);
+		}
 		ExecutorServices.shutdown(scheduler);
+		ExecutorServices.shutdown(updater);
 		getDataStore().getUpdateOperation()
 		              .shutdown();
 	}
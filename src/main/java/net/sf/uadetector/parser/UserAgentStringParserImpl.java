@@ -16,6 +16,7 @@
 package net.sf.uadetector.parser;
 
 
+import net.sf.uadetector.datastore.AbstractRefreshableDataStore;
 import net.sf.uadetector.datastore.DataStore;
 import net.sf.uadetector.internal.Check;
 
@@ -51,6 +52,12 @@ public class UserAgentStringParserImpl<T extends DataStore>
 		Check.notNull(store, "store");
 
 		this.store = store;
+
+		// warm up new UAS data with the detection of this parser before they will be published
+		if (store instanceof AbstractRefreshableDataStore)
+		{
+			((AbstractRefreshableDataStore) store).setWarmUpFunction(this::warmUp);
+		}
 	}
 
 	@javax.validation.constraints.NotNull
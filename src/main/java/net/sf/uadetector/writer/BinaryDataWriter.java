@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright 2014 André Rouél
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package net.sf.uadetector.writer;
+
+import net.sf.uadetector.internal.Check;
+import net.sf.uadetector.internal.data.BrowserOperatingSystemMappingComparator;
+import net.sf.uadetector.internal.data.Data;
+import net.sf.uadetector.internal.data.IdentifiableComparator;
+import net.sf.uadetector.internal.data.OrderedPatternComparator;
+import net.sf.uadetector.internal.data.domain.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * This utility is intended to transform an instance of {@code Data} into a compact binary snapshot which can be read
+ * in again with {@link net.sf.uadetector.datareader.BinaryDataReader} much faster than the <i>UAS data</i> in XML
+ * format.<br>
+ * <br>
+ * A snapshot is laid out as follows, all numbers are written in big-endian order:
+ * <ol>
+ * <li>the magic number {@link #MAGIC} and the {@link #FORMAT_VERSION format version} as {@code int}</li>
+ * <li>the string table: the number of strings followed by every string as length-prefixed UTF-8 bytes; each distinct
+ * string is stored only once and referenced by its index in the table</li>
+ * <li>the length of the following sections in bytes</li>
+ * <li>the version of the <i>UAS data</i>, followed by the sections of robots, browser types, operating systems,
+ * browsers, browser patterns, browser to operating system mappings, operating system patterns, devices and device
+ * patterns, each of them prefixed by the number of its entries</li>
+ * </ol>
+ * Regular expressions are stored as source and match flags, so they are not compiled when writing.
+ *
+ * @author André Rouél
+ */
+public final class BinaryDataWriter
+{
+
+	/**
+	 * Version of the layout which will be written, it must be increased on every incompatible change
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	/**
+	 * Magic number at the beginning of every snapshot (the characters {@code UASB})
+	 */
+	public static final int MAGIC = 0x55415342;
+
+	/**
+	 * Character set of the strings in the string table
+	 */
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * <strong>Attention:</strong> This class is not intended to create objects from it.
+	 */
+	private BinaryDataWriter()
+	{
+		// This class is not intended to create objects from it.
+	}
+
+	/**
+	 * Transforms a given {@code Data} instance into a binary snapshot and writes it to the passed in
+	 * {@code OutputStream}. The given stream will not be closed.
+	 *
+	 * @param data
+	 * 		{@code Data} to transform into a binary snapshot
+	 * @param outputStream
+	 * 		output stream to write
+	 *
+	 * @throws IOException
+	 * 		if an I/O error occurs
+	 */
+	public static void write(@javax.validation.constraints.NotNull Data data, @javax.validation.constraints.NotNull OutputStream outputStream) throws IOException
+	{
+		Check.notNull(data, "data");
+		Check.notNull(outputStream, "outputStream");
+
+		StringTable strings = new StringTable();
+		ByteArrayOutputStream sections = new ByteArrayOutputStream();
+		DataOutputStream body = new DataOutputStream(sections);
+		body.writeInt(strings.indexOf(data.getVersion()));
+		writeRobots(data, body, strings);
+		writeBrowserTypes(data, body, strings);
+		writeOperatingSystems(data, body, strings);
+		writeBrowsers(data, body, strings);
+		writePatterns(data.getBrowserPatterns(), body, strings);
+		writeBrowserOperatingSystemMappings(data, body);
+		writePatterns(data.getOperatingSystemPatterns(), body, strings);
+		writeDevices(data, body, strings);
+		writePatterns(data.getDevicePatterns(), body, strings);
+		body.flush();
+
+		DataOutputStream out = new DataOutputStream(outputStream);
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+		strings.writeTo(out);
+		out.writeInt(sections.size());
+		sections.writeTo(out);
+		out.flush();
+	}
+
+	private static void writeBrowserOperatingSystemMappings(Data data, DataOutputStream out) throws IOException
+	{
+		List<BrowserOperatingSystemMapping> mappings = new ArrayList<>(data.getBrowserToOperatingSystemMappings());
+		Collections.sort(mappings, BrowserOperatingSystemMappingComparator.INSTANCE);
+		out.writeInt(mappings.size());
+		for (BrowserOperatingSystemMapping mapping : mappings)
+		{
+			out.writeInt(mapping.getBrowserId());
+			out.writeInt(mapping.getOperatingSystemId());
+		}
+	}
+
+	private static void writeBrowsers(Data data, DataOutputStream out, StringTable strings) throws IOException
+	{
+		List<Browser> browsers = new ArrayList<>(data.getBrowsers());
+		Collections.sort(browsers, IdentifiableComparator.INSTANCE);
+		out.writeInt(browsers.size());
+		for (Browser browser : browsers)
+		{
+			out.writeInt(browser.getId());
+			out.writeInt(browser.getType()
+			                    .getId());
+			out.writeInt(strings.indexOf(browser.getFamilyName()));
+			out.writeInt(strings.indexOf(browser.getUrl()));
+			out.writeInt(strings.indexOf(browser.getProducer()));
+			out.writeInt(strings.indexOf(browser.getProducerUrl()));
+			out.writeInt(strings.indexOf(browser.getIcon()));
+			out.writeInt(strings.indexOf(browser.getInfoUrl()));
+		}
+	}
+
+	private static void writeBrowserTypes(Data data, DataOutputStream out, StringTable strings) throws IOException
+	{
+		List<BrowserType> browserTypes = new ArrayList<>(data.getBrowserTypes()
+		                                                     .values());
+		Collections.sort(browserTypes, IdentifiableComparator.INSTANCE);
+		out.writeInt(browserTypes.size());
+		for (BrowserType browserType : browserTypes)
+		{
+			out.writeInt(browserType.getId());
+			out.writeInt(strings.indexOf(browserType.getName()));
+		}
+	}
+
+	private static void writeDevices(Data data, DataOutputStream out, StringTable strings) throws IOException
+	{
+		List<Device> devices = new ArrayList<>(data.getDevices());
+		Collections.sort(devices, IdentifiableComparator.INSTANCE);
+		out.writeInt(devices.size());
+		for (Device device : devices)
+		{
+			out.writeInt(device.getId());
+			out.writeInt(strings.indexOf(device.getName()));
+			out.writeInt(strings.indexOf(device.getIcon()));
+			out.writeInt(strings.indexOf(device.getInfoUrl()));
+		}
+	}
+
+	private static void writeOperatingSystems(Data data, DataOutputStream out, StringTable strings) throws IOException
+	{
+		List<OperatingSystem> operatingSystems = new ArrayList<>(data.getOperatingSystems());
+		Collections.sort(operatingSystems, IdentifiableComparator.INSTANCE);
+		out.writeInt(operatingSystems.size());
+		for (OperatingSystem operatingSystem : operatingSystems)
+		{
+			out.writeInt(operatingSystem.getId());
+			out.writeInt(strings.indexOf(operatingSystem.getFamily()));
+			out.writeInt(strings.indexOf(operatingSystem.getName()));
+			out.writeInt(strings.indexOf(operatingSystem.getUrl()));
+			out.writeInt(strings.indexOf(operatingSystem.getProducer()));
+			out.writeInt(strings.indexOf(operatingSystem.getProducerUrl()));
+			out.writeInt(strings.indexOf(operatingSystem.getIcon()));
+			out.writeInt(strings.indexOf(operatingSystem.getInfoUrl()));
+		}
+	}
+
+	private static <T extends Identifiable & OrderedPattern<T>> void writePatterns(Map<Integer, SortedSet<T>> patternsById,
+	                                                                               DataOutputStream out, StringTable strings) throws IOException
+	{
+		List<T> patterns = new ArrayList<>(patternsById.size());
+		for (SortedSet<T> entry : patternsById.values())
+		{
+			patterns.addAll(entry);
+		}
+		Collections.sort(patterns, new OrderedPatternComparator<>());
+		out.writeInt(patterns.size());
+		for (T pattern : patterns)
+		{
+			out.writeInt(pattern.getId());
+			out.writeInt(pattern.getPosition());
+			out.writeInt(strings.indexOf(pattern.getPatternSource()));
+			out.writeInt(pattern.getPatternFlags());
+		}
+	}
+
+	private static void writeRobots(Data data, DataOutputStream out, StringTable strings) throws IOException
+	{
+		out.writeInt(data.getRobots()
+		                 .size());
+		for (Robot robot : data.getRobots())
+		{
+			out.writeInt(robot.getId());
+			out.writeInt(strings.indexOf(robot.getUserAgentString()));
+			out.writeInt(strings.indexOf(robot.getFamilyName()));
+			out.writeInt(strings.indexOf(robot.getName()));
+			out.writeInt(strings.indexOf(robot.getProducer()));
+			out.writeInt(strings.indexOf(robot.getProducerUrl()));
+			out.writeInt(strings.indexOf(robot.getIcon()));
+			out.writeInt(strings.indexOf(robot.getInfoUrl()));
+		}
+	}
+
+	/**
+	 * Table of distinct strings in order of their first occurrence.
+	 */
+	private static final class StringTable
+	{
+
+		@javax.validation.constraints.NotNull
+		private final Map<String, Integer> indexes = new LinkedHashMap<>();
+
+		int indexOf(@javax.validation.constraints.NotNull String value)
+		{
+			Integer index = indexes.get(value);
+			if (index == null)
+			{
+				index = indexes.size();
+				indexes.put(value, index);
+			}
+			return index;
+		}
+
+		void writeTo(@javax.validation.constraints.NotNull DataOutputStream out) throws IOException
+		{
+			out.writeInt(indexes.size());
+			for (String value : indexes.keySet())
+			{
+				byte[] bytes = value.getBytes(UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+		}
+
+	}
+
+}